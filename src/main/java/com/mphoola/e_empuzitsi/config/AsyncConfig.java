@@ -5,14 +5,17 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AsyncConfig implements WebMvcConfigurer {
     
     private final EmailVerificationInterceptor emailVerificationInterceptor;
@@ -53,6 +56,44 @@ public class AsyncConfig implements WebMvcConfigurer {
         return executor;
     }
     
+    /**
+     * Queue for bulk emails such as the credentials of imported users.
+     * A single sender drains it so a large import cannot crowd out password resets and
+     * verification emails; when it is full the producer sends the email itself, which slows
+     * the import down instead of dropping emails.
+     */
+    @Bean(name = "bulkEmailTaskExecutor")
+    public Executor bulkEmailTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10000);
+        executor.setThreadNamePrefix("BulkEmail-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(20);
+        executor.initialize();
+        return executor;
+    }
+    
+    /**
+     * Runs bulk user imports apart from the default executor.
+     * An import can keep its thread busy for minutes, so only two run at once and a few more
+     * may wait; further uploads are refused with a 503 instead of queueing behind them.
+     */
+    @Bean(name = "userImportTaskExecutor")
+    public Executor userImportTaskExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(5);
+        executor.setThreadNamePrefix("UserImport-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+    
     /**
      * Default task executor for other async operations
      */
@@ -1,239 +1,232 @@
 package com.mphoola.e_empuzitsi.config;
 
 import com.mphoola.e_empuzitsi.entity.AccountType;
-import com.mphoola.e_empuzitsi.entity.Permission;
-import com.mphoola.e_empuzitsi.entity.Role;
 import com.mphoola.e_empuzitsi.entity.User;
-import com.mphoola.e_empuzitsi.entity.UserRole;
-import com.mphoola.e_empuzitsi.repository.PermissionRepository;
-import com.mphoola.e_empuzitsi.repository.RoleRepository;
 import com.mphoola.e_empuzitsi.repository.UserRepository;
+import com.mphoola.e_empuzitsi.security.EffectivePermissionStore;
+import com.mphoola.e_empuzitsi.security.PermissionEpochRegistry;
+import com.mphoola.e_empuzitsi.security.UserPrincipalCache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Arrays;
-import java.util.HashSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
+/**
+ * Seeds the default permissions, roles and admin user.
+ *
+ * Each table is filled by one set-based insert of the rows that are missing, so seeding is
+ * idempotent and never touches rows that already exist. A hash of the seed definition is stored
+ * once it has been applied; while it matches, startup skips seeding after a single lookup.
+ * {@link SeedGuard} serializes instances that start together with a changed definition. The
+ * effective permissions of the ADMIN role's holders are refreshed in the same transaction.
+ */
 @Component
-@Transactional
 public class DataInitializer implements CommandLineRunner {
-    private final RoleRepository roleRepository;
-    private final PermissionRepository permissionRepository;
     private final UserRepository userRepository;
+    private final SeedGuard seedGuard;
+    private final JdbcTemplate jdbcTemplate;
     private final PasswordEncoder passwordEncoder;
+    private final EffectivePermissionStore effectivePermissionStore;
+    private final PermissionEpochRegistry permissionEpochRegistry;
+    private final UserPrincipalCache userPrincipalCache;
 
     private static final Logger log = LoggerFactory.getLogger(DataInitializer.class);
+
+    static final String SEED_NAME = "roles_and_permissions";
+
+    /**
+     * Seeded permissions, also interned first by PermissionIndex
+     */
+    public static final List<String> PERMISSION_NAMES = List.of(
+        // Role management permissions
+        "add_role",
+        "update_role",
+        "delete_role",
+        "show_role_details",
+        "list_users_by_role",
+        "list_roles",
+        
+        // User management permissions
+        "add_user",
+        "update_user",
+        "delete_user",
+        "ban_user",
+        "unban_user",
+        "show_user_details",
+        "list_users",
+        
+        // Subject management permissions
+        "add_subject",
+        "update_subject",
+        "delete_subject",
+        "show_subject_details",
+        "list_subjects",
+        
+        // Activity log permissions
+        "list_audit_logs",
+        "see_log_details",
+        "list_user_audit_log",
+        
+        // User role and permission management
+        "assign_user_role",
+        "revoke_user_role",
+        "list_user_roles",
+        "assign_user_permission",
+        "revoke_user_permission",
+        "list_user_permissions",
+        "manage_user_access",
+        "list_permissions",
+        
+        // Academic year management permissions
+        "list_academic_years",
+        "create_academic_year",
+        "update_academic_year",
+        "delete_academic_year",
+        "activate_academic_year",
+        
+        // Security key management
+        "rotate_signing_key"
+    );
     
-    public DataInitializer(RoleRepository roleRepository, PermissionRepository permissionRepository,
-                          UserRepository userRepository, PasswordEncoder passwordEncoder) {
-        this.roleRepository = roleRepository;
-        this.permissionRepository = permissionRepository;
+    /**
+     * Seeded roles. ADMIN gets every seeded permission, the others start empty and are configured by admins
+     */
+    public static final List<String> ROLE_NAMES = List.of("STUDENT", "TEACHER", "ADMIN");
+
+    private static final String ADMIN_ROLE = "ADMIN";
+    private static final String ADMIN_EMAIL = "admin@gmail.com";
+    private static final String ADMIN_PASSWORD = "123456789";
+
+    private static final String TEXT = "CAST(? AS VARCHAR(255))";
+    private static final String NOW = "CAST(? AS TIMESTAMP)";
+
+    private static final String INSERT_PERMISSIONS =
+        "INSERT INTO permissions (name, created_at, updated_at) " +
+        "SELECT v.name, " + NOW + ", " + NOW + " FROM (VALUES %s) AS v(name) " +
+        "WHERE NOT EXISTS (SELECT 1 FROM permissions p WHERE p.name = v.name)";
+
+    private static final String INSERT_ROLES =
+        "INSERT INTO roles (name, created_at, updated_at) " +
+        "SELECT v.name, " + NOW + ", " + NOW + " FROM (VALUES %s) AS v(name) " +
+        "WHERE NOT EXISTS (SELECT 1 FROM roles r WHERE r.name = v.name)";
+
+    private static final String INSERT_ROLE_PERMISSIONS =
+        "INSERT INTO role_permissions (role_id, permission_id) " +
+        "SELECT r.id, p.id FROM (VALUES %s) AS v(role_name, permission_name) " +
+        "JOIN roles r ON r.name = v.role_name " +
+        "JOIN permissions p ON p.name = v.permission_name " +
+        "WHERE NOT EXISTS (SELECT 1 FROM role_permissions rp WHERE rp.role_id = r.id AND rp.permission_id = p.id)";
+
+    private static final String INSERT_ADMIN_ROLE =
+        "INSERT INTO user_roles (user_id, role_id, created_at, updated_at) " +
+        "SELECT u.id, r.id, " + NOW + ", " + NOW + " FROM users u CROSS JOIN roles r " +
+        "WHERE u.email = " + TEXT + " AND r.name = " + TEXT + " " +
+        "AND NOT EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.role_id = r.id)";
+
+    private static final String SELECT_ROLE_HOLDERS =
+        "SELECT ur.user_id FROM user_roles ur JOIN roles r ON r.id = ur.role_id WHERE r.name = ?";
+
+    public DataInitializer(UserRepository userRepository, SeedGuard seedGuard,
+                          JdbcTemplate jdbcTemplate, PasswordEncoder passwordEncoder,
+                          EffectivePermissionStore effectivePermissionStore,
+                          PermissionEpochRegistry permissionEpochRegistry,
+                          UserPrincipalCache userPrincipalCache) {
         this.userRepository = userRepository;
+        this.seedGuard = seedGuard;
+        this.jdbcTemplate = jdbcTemplate;
         this.passwordEncoder = passwordEncoder;
+        this.effectivePermissionStore = effectivePermissionStore;
+        this.permissionEpochRegistry = permissionEpochRegistry;
+        this.userPrincipalCache = userPrincipalCache;
     }
     
     @Override
     public void run(String... args) throws Exception {
+        if (!seedGuard.runIfChanged(SEED_NAME, checksum(), this::seed)) {
+            log.info("Default roles and permissions are up to date, skipping initialization");
+        }
+    }
+
+    /**
+     * Apply the seed, inside the transaction holding the seed's checksum row
+     */
+    private void seed() {
         log.info("Initializing default roles and permissions...");
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
         
-        // Initialize permissions first
-        initializePermissions();
-        
-        // Initialize roles second (depends on permissions)
-        initializeRoles();
-
-        // Create default admin user last (depends on roles)
-        createDefaultAdminUser();
-
-        log.info("Data initialization completed successfully!");
+        // Permissions first, then roles and their permissions, then the admin user
+        int permissions = insertNames(INSERT_PERMISSIONS, PERMISSION_NAMES, now);
+        int roles = insertNames(INSERT_ROLES, ROLE_NAMES, now);
+        int grants = insertAdminPermissions();
+        createDefaultAdminUser(now);
+
+        // The grants bypass the services, so the holders' effective permissions are refreshed here
+        List<Long> adminIds = jdbcTemplate.queryForList(SELECT_ROLE_HOLDERS, Long.class, ADMIN_ROLE);
+        effectivePermissionStore.refresh(adminIds);
+        permissionEpochRegistry.bumpAll(adminIds);
+        userPrincipalCache.evictAll(adminIds);
+
+        log.info("Data initialization completed: {} permissions, {} roles and {} role permissions added",
+                permissions, roles, grants);
     }
     
-    private void createDefaultAdminUser() {
-        String adminEmail = "admin@gmail.com";
-        String adminPassword = "123456789";
+    private int insertNames(String statement, List<String> names, Timestamp now) {
+        List<Object> args = new ArrayList<>(names.size() + 2);
+        args.add(now);
+        args.add(now);
+        args.addAll(names);
+        return jdbcTemplate.update(statement.formatted(rows(names.size(), 1)), args.toArray());
+    }
 
-        User adminUser;
+    private int insertAdminPermissions() {
+        List<Object> args = new ArrayList<>(PERMISSION_NAMES.size() * 2);
+        for (String permission : PERMISSION_NAMES) {
+            args.add(ADMIN_ROLE);
+            args.add(permission);
+        }
+        return jdbcTemplate.update(INSERT_ROLE_PERMISSIONS.formatted(rows(PERMISSION_NAMES.size(), 2)), args.toArray());
+    }
 
-        // Check if the admin user already exists
-        if (!userRepository.existsByEmail(adminEmail)) {
-            adminUser = User.builder()
+    private void createDefaultAdminUser(Timestamp now) {
+        if (!userRepository.existsByEmail(ADMIN_EMAIL)) {
+            User adminUser = User.builder()
                     .name("Promise")
-                    .email(adminEmail)
+                    .email(ADMIN_EMAIL)
                     .accountType(AccountType.ADMIN)
-                    .emailVerifiedAt(java.time.LocalDateTime.now())
-                    .password(passwordEncoder.encode(adminPassword))
-                    .build();
-
-            // Save the user first to get the ID
-            adminUser = userRepository.save(adminUser);
-        } else {
-            // Get existing admin user
-            adminUser = userRepository.findByEmail(adminEmail)
-                    .orElseThrow(() -> new RuntimeException("Admin user not found"));
-        }
-
-        // Get the ADMIN role
-        Role adminRole = roleRepository.findByName("ADMIN")
-                .orElseThrow(() -> new RuntimeException("ADMIN role not found"));
-
-        // Check if user already has ADMIN role
-        boolean hasAdminRole = adminUser.getUserRoles() != null && 
-                adminUser.getUserRoles().stream()
-                    .anyMatch(ur -> ur.getRole().getName().equals("ADMIN"));
-
-        if (!hasAdminRole) {
-            // Create UserRole association
-            UserRole userRole = UserRole.builder()
-                    .user(adminUser)
-                    .role(adminRole)
+                    .emailVerifiedAt(now.toLocalDateTime())
+                    .password(passwordEncoder.encode(ADMIN_PASSWORD))
                     .build();
 
-            // Initialize userRoles collection if it's null
-            if (adminUser.getUserRoles() == null) {
-                adminUser.setUserRoles(new HashSet<>());
-            }
-            adminUser.getUserRoles().add(userRole);
-
-            // Save the updated user with roles
-            userRepository.save(adminUser);
-        } else {
-            log.info("Admin user {} already has ADMIN role", adminEmail);
+            // Flushed so the role link below can select it
+            userRepository.saveAndFlush(adminUser);
         }
-    }
 
-    private void initializePermissions() {
-        List<String> permissionNames = Arrays.asList(
-            // Role management permissions
-            "add_role",
-            "update_role",
-            "delete_role",
-            "show_role_details",
-            "list_users_by_role",
-            "list_roles",
-            
-            // User management permissions
-            "add_user",
-            "update_user",
-            "delete_user",
-            "ban_user",
-            "unban_user",
-            "show_user_details",
-            "list_users",
-            
-            // Subject management permissions
-            "add_subject",
-            "update_subject",
-            "delete_subject",
-            "show_subject_details",
-            "list_subjects",
-            
-            // Activity log permissions
-            "list_audit_logs",
-            "see_log_details",
-            "list_user_audit_log",
-            
-            // User role and permission management
-            "assign_user_role",
-            "revoke_user_role",
-            "list_user_roles",
-            "assign_user_permission",
-            "revoke_user_permission",
-            "list_user_permissions",
-            "manage_user_access",
-            "list_permissions",
-            
-            // Academic year management permissions
-            "list_academic_years",
-            "create_academic_year",
-            "update_academic_year",
-            "delete_academic_year",
-            "activate_academic_year"
-        );
-        
-        for (String permissionName : permissionNames) {
-            if (!permissionRepository.existsByName(permissionName)) {
-                Permission permission = Permission.builder()
-                        .name(permissionName)
-                        .build();
-                
-                permissionRepository.save(permission);
-                log.debug("Created permission: {}", permissionName);
-            }
-        }
+        jdbcTemplate.update(INSERT_ADMIN_ROLE, now, now, ADMIN_EMAIL, ADMIN_ROLE);
     }
-    
-    private void initializeRoles() {
-        // Initialize STUDENT role
-        initializeStudentRole();
-        
-        // Initialize TEACHER role
-        initializeTeacherRole();
-        
-        // Initialize ADMIN role
-        initializeAdminRole();
-    }
-    
-    private void initializeStudentRole() {
-        Role studentRole = null;
-        if (roleRepository.existsByName("STUDENT")) {
-            // Update existing STUDENT role with new permissions
-            studentRole = roleRepository.findByName("STUDENT").get();
-            studentRole.getPermissions().clear(); // Clear old permissions
-        } else {
-            // Create new STUDENT role
-            studentRole = Role.builder()
-                    .name("STUDENT")
-                    .permissions(new HashSet<>())
-                    .build();
-        }
-
-        // Save the STUDENT role
-        roleRepository.save(studentRole);
-        log.info("Created/Updated STUDENT role with {} permissions", studentRole.getPermissions().size());
-    }
-    
-    private void initializeTeacherRole() {
-        Role teacherRole = null;
-        if (roleRepository.existsByName("TEACHER")) {
-            // Update existing TEACHER role with new permissions
-            teacherRole = roleRepository.findByName("TEACHER").get();
-            teacherRole.getPermissions().clear(); // Clear old permissions
-        } else {
-            // Create new TEACHER role
-            teacherRole = Role.builder()
-                    .name("TEACHER")
-                    .permissions(new HashSet<>())
-                    .build();
-        }
 
-        // Save the TEACHER role
-        roleRepository.save(teacherRole);
-        log.info("Created/Updated TEACHER role with {} permissions", teacherRole.getPermissions().size());
+    /**
+     * A VALUES list of {@code count} rows of {@code columns} string parameters
+     */
+    private static String rows(int count, int columns) {
+        String row = "(" + String.join(", ", Collections.nCopies(columns, TEXT)) + ")";
+        return String.join(", ", Collections.nCopies(count, row));
     }
-    
-    private void initializeAdminRole() {
-        Role adminRole = null;
-        if (roleRepository.existsByName("ADMIN")) {
-            // Update existing ADMIN role with new permissions
-            adminRole = roleRepository.findByName("ADMIN").get();
-            adminRole.getPermissions().clear(); // Clear old permissions
-        } else {
-            // Create new ADMIN role
-            adminRole = Role.builder()
-                    .name("ADMIN")
-                    .permissions(new HashSet<>())
-                    .build();
-        }
-
-        // Admin gets all permissions
-        List<Permission> allPermissions = permissionRepository.findAll();
-        adminRole.getPermissions().addAll(allPermissions);
 
-        roleRepository.save(adminRole);
+    /**
+     * SHA-256 of the seed definition, so any change to it is applied on the next start
+     */
+    static String checksum() {
+        String definition = "permissions=" + String.join(",", PERMISSION_NAMES) +
+                "\nroles=" + String.join(",", ROLE_NAMES) +
+                "\nadmin=" + ADMIN_EMAIL + ":" + ADMIN_ROLE;
+        return SeedGuard.sha256(definition);
     }
 }
@@ -1,17 +1,24 @@
 package com.mphoola.e_empuzitsi.config;
 
+import com.mphoola.e_empuzitsi.security.AdaptiveBCryptPasswordEncoder;
+import com.mphoola.e_empuzitsi.security.BoundedPasswordEncoder;
 import com.mphoola.e_empuzitsi.security.CustomUserDetailsService;
 import com.mphoola.e_empuzitsi.security.JwtAuthenticationFilter;
+import com.mphoola.e_empuzitsi.security.PermissionAuthorizationManager;
+import com.mphoola.e_empuzitsi.security.PermissionIndex;
+import org.springframework.aop.Advisor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authorization.method.AuthorizationManagerBeforeMethodInterceptor;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -23,19 +30,65 @@ import java.util.List;
 
 @Configuration
 @EnableWebSecurity
-@EnableMethodSecurity(prePostEnabled = true)
+@EnableMethodSecurity(prePostEnabled = false)
 public class SecurityConfig {
     
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     
+    // Password hashing lane; 0 threads means one per available processor
+    @Value("${app.security.password-hashing.threads:0}")
+    private int hashingThreads = 0;
+    
+    @Value("${app.security.password-hashing.queue-capacity:64}")
+    private int hashingQueueCapacity = 64;
+    
+    @Value("${app.security.password-hashing.max-wait-ms:2000}")
+    private long hashingMaxWaitMs = 2000;
+    
+    @Value("${app.security.password-hashing.retry-after-seconds:2}")
+    private long hashingRetryAfterSeconds = 2;
+    
+    // BCrypt cost; calibrated at startup to the per-hash budget unless calibration is disabled
+    @Value("${app.security.password-hashing.calibrate:true}")
+    private boolean calibrateStrength = true;
+    
+    @Value("${app.security.password-hashing.target-ms:250}")
+    private long hashingTargetMs = 250;
+    
+    @Value("${app.security.password-hashing.min-strength:10}")
+    private int minStrength = 10;
+    
+    @Value("${app.security.password-hashing.max-strength:14}")
+    private int maxStrength = 14;
+    
     public SecurityConfig(CustomUserDetailsService userDetailsService, 
                          JwtAuthenticationFilter jwtAuthenticationFilter) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
     }
     
+    /**
+     * BCrypt on a dedicated, bounded lane so a login burst cannot take every request thread.
+     * The cost factor is calibrated to this host; hashes with another cost are upgraded on login.
+     */
+    @Bean
+    public BoundedPasswordEncoder passwordEncoder() {
+        int strength = calibrateStrength
+                ? AdaptiveBCryptPasswordEncoder.calibrate(hashingTargetMs, minStrength, maxStrength)
+                : minStrength;
+        int threads = hashingThreads > 0 ? hashingThreads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new AdaptiveBCryptPasswordEncoder(strength), threads,
+                hashingQueueCapacity, hashingMaxWaitMs, hashingRetryAfterSeconds);
+    }
+    
+    /**
+     * {@code @PreAuthorize} backed by compiled authority bits, see {@link PermissionAuthorizationManager}.
+     * Replaces the default pre/post advisors; only {@code @PreAuthorize} is used in this application.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor preAuthorizeAuthorizationMethodInterceptor(PermissionIndex permissionIndex) {
+        return AuthorizationManagerBeforeMethodInterceptor.preAuthorize(
+                new PermissionAuthorizationManager(permissionIndex));
     }
     
     @Bean
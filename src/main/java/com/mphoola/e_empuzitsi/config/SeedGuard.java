@@ -0,0 +1,99 @@
+package com.mphoola.e_empuzitsi.config;
+
+import com.mphoola.e_empuzitsi.entity.SeedChecksum;
+import com.mphoola.e_empuzitsi.repository.SeedChecksumRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Runs a startup step once per version of its definition, across every instance sharing the database.
+ *
+ * The checksum of the last applied definition is kept in {@code seed_checksums}; while it matches,
+ * the step is skipped after one primary key lookup. Otherwise the step runs in a transaction that
+ * holds a row lock on its checksum row, so instances starting together apply it one at a time and
+ * the later ones find the checksum already current once they get the lock.
+ */
+@Component
+public class SeedGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(SeedGuard.class);
+
+    private final SeedChecksumRepository seedChecksumRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransactionTemplate;
+
+    public SeedGuard(SeedChecksumRepository seedChecksumRepository, PlatformTransactionManager transactionManager) {
+        this.seedChecksumRepository = seedChecksumRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Run the step unless {@code checksum} is the one last applied under {@code name}. Returns whether it ran.
+     */
+    public boolean runIfChanged(String name, String checksum, Runnable step) {
+        return runIfChanged(name, checksum, () -> false, step);
+    }
+
+    /**
+     * Run the step unless {@code checksum} is the one last applied under {@code name} and
+     * {@code force} is false. {@code force} is evaluated again once the lock is held.
+     */
+    public boolean runIfChanged(String name, String checksum, BooleanSupplier force, Runnable step) {
+        boolean current = seedChecksumRepository.findById(name)
+                .map(seed -> checksum.equals(seed.getChecksum()))
+                .orElse(false);
+        if (current && !force.getAsBoolean()) {
+            return false;
+        }
+
+        ensureRow(name);
+        return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+            SeedChecksum seed = seedChecksumRepository.lockByName(name)
+                    .orElseThrow(() -> new IllegalStateException("Missing seed checksum row " + name));
+            // Another instance may have applied it while this one waited for the lock
+            if (checksum.equals(seed.getChecksum()) && !force.getAsBoolean()) {
+                return false;
+            }
+            step.run();
+            seed.setChecksum(checksum);
+            seed.setAppliedAt(LocalDateTime.now());
+            return true;
+        }));
+    }
+
+    /**
+     * SHA-256 hex of a step's definition, for use as its checksum
+     */
+    public static String sha256(String definition) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(definition.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void ensureRow(String name) {
+        try {
+            newTransactionTemplate.executeWithoutResult(
+                    status -> seedChecksumRepository.insertIfAbsent(name, LocalDateTime.now()));
+        } catch (DataIntegrityViolationException e) {
+            // Inserted by an instance starting at the same time, the lock below waits for it
+            log.debug("Seed checksum row {} created concurrently: {}", name, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.mphoola.e_empuzitsi.config;
+
+import com.mphoola.e_empuzitsi.util.DatabaseProduct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Creates pg_trgm GIN indexes on lowercased user names and emails when running on PostgreSQL.
+ *
+ * Hibernate's schema update cannot declare expression or GIN indexes. With them the ranked
+ * trigram search in {@code UserRepository} and its {@code LOWER(...) LIKE '%term%'} filters become
+ * index scans instead of full scans of {@code users}. The indexes are built {@code CONCURRENTLY}
+ * so writes to {@code users} go on during the build; a build that failed half way leaves an
+ * invalid index behind, which is dropped and built again. Other databases are left alone.
+ */
+@Component
+public class TrigramIndexInitializer implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(TrigramIndexInitializer.class);
+
+    private static final List<String> INDEXES = List.of("idx_users_name_trgm", "idx_users_email_trgm");
+
+    // CONCURRENTLY cannot run inside a transaction block, each statement runs on its own in autocommit
+    private static final List<String> STATEMENTS = List.of(
+        "CREATE EXTENSION IF NOT EXISTS pg_trgm",
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_name_trgm ON users USING gin (lower(name) gin_trgm_ops)",
+        "CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_users_email_trgm ON users USING gin (lower(email) gin_trgm_ops)"
+    );
+
+    private static final String SELECT_INVALID =
+        "SELECT c.relname FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid " +
+        "WHERE NOT i.indisvalid AND c.relname IN (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public TrigramIndexInitializer(JdbcTemplate jdbcTemplate,
+                                   @Value("${app.users.trigram-indexes.enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @Override
+    public void run(String... args) {
+        if (!enabled || !DatabaseProduct.isPostgres(jdbcTemplate.getDataSource())) {
+            return;
+        }
+
+        try {
+            // IF NOT EXISTS would keep an invalid index left by an interrupted build forever
+            jdbcTemplate.queryForList(SELECT_INVALID, String.class, INDEXES.toArray())
+                    .forEach(index -> jdbcTemplate.execute("DROP INDEX CONCURRENTLY IF EXISTS " + index));
+            STATEMENTS.forEach(jdbcTemplate::execute);
+            log.info("Trigram indexes on users ready");
+        } catch (Exception e) {
+            // Typically a missing privilege to create the extension; searches still work, just unindexed
+            log.warn("Could not create trigram indexes on users: {}", e.getMessage());
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.mphoola.e_empuzitsi.dto.academic.AcademicYearRequest;
 import com.mphoola.e_empuzitsi.dto.academic.AcademicYearResponse;
 import com.mphoola.e_empuzitsi.service.AcademicYearService;
 import com.mphoola.e_empuzitsi.util.ApiResponse;
+import com.mphoola.e_empuzitsi.util.CountMode;
 import com.mphoola.e_empuzitsi.security.AllowUnverifiedEmail;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,6 +13,7 @@ import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -41,9 +43,17 @@ public class AcademicYearController {
     @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Academic years retrieved successfully")
     public ResponseEntity<Map<String, Object>> getAllAcademicYears(
             @PageableDefault(size = 20) Pageable pageable,
-            @Parameter(description = "Filter by active status") @RequestParam(required = false) Boolean isActive) {
+            @Parameter(description = "Filter by active status") @RequestParam(required = false) Boolean isActive,
+            @Parameter(description = "EXACT counts every page, NONE skips the count, APPROXIMATE serves a cached total")
+            @RequestParam(defaultValue = "EXACT") CountMode count) {
         
-        log.info("Fetching academic years - pageable: {}, isActive: {}", pageable, isActive);
+        log.info("Fetching academic years - pageable: {}, isActive: {}, count: {}", pageable, isActive, count);
+        
+        if (count != CountMode.EXACT) {
+            Slice<AcademicYearResponse> slice = academicYearService.getAcademicYearsSlice(isActive, pageable);
+            Long total = count == CountMode.APPROXIMATE ? academicYearService.approximateAcademicYearCount(isActive) : null;
+            return ApiResponse.success("Academic years retrieved successfully", slice, "/api/academic-years", total);
+        }
         
         Page<AcademicYearResponse> academicYears;
         if (isActive != null) {
@@ -3,8 +3,11 @@ package com.mphoola.e_empuzitsi.controller;
 import com.mphoola.e_empuzitsi.entity.ActivityLog;
 import com.mphoola.e_empuzitsi.service.ActivityLogService;
 import com.mphoola.e_empuzitsi.util.ApiResponse;
+import com.mphoola.e_empuzitsi.util.CountMode;
+import com.mphoola.e_empuzitsi.util.CursorPage;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
@@ -33,8 +36,28 @@ public class ActivityLogController {
             @RequestParam(required = false) Long causerId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             @PageableDefault(page = 0, size = 10, sort = "createdAt", direction = org.springframework.data.domain.Sort.Direction.DESC) Pageable pageable) {
 
+        // Cursor mode, newest first: pass after (empty for the first page) instead of page
+        if (after != null) {
+            CursorPage<ActivityLog> page = activityLogService.findActivityLogsAfter(
+                event, subjectType, subjectId, causerId, startDate, endDate, after, pageable.getPageSize(), withTotal);
+            return ApiResponse.success("Activity logs retrieved successfully", page, "/api/activity-logs");
+        }
+
+        // count=NONE skips the total, count=APPROXIMATE serves a cached one (exact with id or date filters)
+        if (count != CountMode.EXACT) {
+            Slice<ActivityLog> slice = activityLogService.findActivityLogsSliceWithFilters(
+                event, subjectType, subjectId, causerId, startDate, endDate, pageable);
+            Long total = count == CountMode.APPROXIMATE
+                ? activityLogService.approximateActivityLogCount(event, subjectType, subjectId, causerId, startDate, endDate)
+                : null;
+            return ApiResponse.success("Activity logs retrieved successfully", slice, "/api/activity-logs", total);
+        }
+
         Page<ActivityLog> activityLogs = activityLogService.findActivityLogsWithFilters(
             event, subjectType, subjectId, causerId, startDate, endDate, pageable);
         return ApiResponse.success("Activity logs retrieved successfully", activityLogs);
@@ -6,7 +6,9 @@ import com.mphoola.e_empuzitsi.dto.auth.RegisterRequest;
 import com.mphoola.e_empuzitsi.dto.user.UserResponse;
 import com.mphoola.e_empuzitsi.dto.auth.ForgotPasswordRequest;
 import com.mphoola.e_empuzitsi.dto.auth.ResetPasswordRequest;
+import com.mphoola.e_empuzitsi.exception.BadCredentialsException;
 import com.mphoola.e_empuzitsi.security.AllowUnverifiedEmail;
+import com.mphoola.e_empuzitsi.security.LoginThrottle;
 import com.mphoola.e_empuzitsi.service.AuthService;
 import com.mphoola.e_empuzitsi.service.UserService;
 import com.mphoola.e_empuzitsi.util.ApiResponse;
@@ -14,6 +16,7 @@ import com.mphoola.e_empuzitsi.util.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -27,10 +30,12 @@ public class AuthController {
     
     private final AuthService authService;
     private final UserService userService;
+    private final LoginThrottle loginThrottle;
     
-    public AuthController(AuthService authService, UserService userService) {
+    public AuthController(AuthService authService, UserService userService, LoginThrottle loginThrottle) {
         this.authService = authService;
         this.userService = userService;
+        this.loginThrottle = loginThrottle;
     }
     
     @Operation(summary = "Register New User")
@@ -44,11 +49,44 @@ public class AuthController {
     @Operation(summary = "User Login")
     @PostMapping(value = "/login", consumes = "application/json")
     @AllowUnverifiedEmail
-    public ResponseEntity<Map<String, Object>> login(@Valid @RequestBody LoginRequest request) {        
-        AuthResponse response = authService.login(request);
+    public ResponseEntity<Map<String, Object>> login(@Valid @RequestBody LoginRequest request,
+                                                     HttpServletRequest httpRequest) {
+        String clientIp = httpRequest.getRemoteAddr();
+        
+        // Reserve an attempt before the user lookup and the BCrypt check, so concurrent guesses are all charged
+        long retryAfter = loginThrottle.tryAcquire(clientIp, request.getEmail());
+        if (retryAfter > 0) {
+            return ApiResponse.tooManyRequests("Too many failed sign-in attempts, please retry later", retryAfter);
+        }
+        
+        // Only wrong credentials keep the charge
+        boolean failed = false;
+        AuthResponse response;
+        try {
+            response = authService.login(request);
+        } catch (BadCredentialsException e) {
+            failed = true;
+            throw e;
+        } finally {
+            if (!failed) {
+                loginThrottle.release(clientIp, request.getEmail());
+            }
+        }
         return ApiResponse.success("Login successful", response);
     }
     
+    @Operation(summary = "Logout")
+    @PostMapping("/logout")
+    @AllowUnverifiedEmail
+    public ResponseEntity<Map<String, Object>> logout(
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            return ApiResponse.unauthorized("Authentication required. Please login to access this resource.");
+        }
+        authService.logout(authorization.substring(7));
+        return ApiResponse.success("Logout successful");
+    }
+    
     @Operation(summary = "Get Current User Profile")
     @GetMapping("/me")
     @AllowUnverifiedEmail
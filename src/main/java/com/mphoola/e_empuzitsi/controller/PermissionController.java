@@ -10,6 +10,7 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -27,7 +28,11 @@ public class PermissionController {
     @GetMapping
     @PreAuthorize("hasAuthority('list_permissions')")
     @Operation(summary = "List all available permissions")
-    public ResponseEntity<?> listPermissions() {
+    public ResponseEntity<?> listPermissions(WebRequest webRequest) {
+        // Read the tag first: the list can then only be newer than it, never older
+        if (webRequest.checkNotModified(permissionService.getPermissionsETag())) {
+            return null;
+        }
         List<PermissionResponse> permissions = permissionService.getAllPermissions();
         return ApiResponse.success("Permissions retrieved successfully", permissions);
     }
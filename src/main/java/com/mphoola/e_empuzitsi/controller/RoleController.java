@@ -7,6 +7,7 @@ import com.mphoola.e_empuzitsi.dto.role.RoleResponseSimple;
 import com.mphoola.e_empuzitsi.dto.user.UserResponseSimple;
 import com.mphoola.e_empuzitsi.service.RoleService;
 import com.mphoola.e_empuzitsi.util.ApiResponse;
+import com.mphoola.e_empuzitsi.util.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
@@ -65,11 +66,19 @@ public class RoleController {
 
     @GetMapping("/{roleId}/users")
     @PreAuthorize("hasAuthority('list_users_by_role')")
-    @Operation(summary = "List users with a particular role")
+    @Operation(summary = "List users with a particular role",
+               description = "Pass after (empty for the first page) to page by cursor in id order instead of page number")
     public ResponseEntity<Map<String, Object>> getUsersByRole(
             @PathVariable Long roleId,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean withTotal,
             Pageable pageable // Spring injects page, size, sort from query params
     ) {
+        if (after != null) {
+            CursorPage<UserResponseSimple> page = roleService.getUsersByRoleAfter(
+                    roleId, after, pageable.getPageSize(), withTotal);
+            return ApiResponse.success("Users retrieved successfully", page, "/api/roles/" + roleId + "/users");
+        }
         Page<UserResponseSimple> users = roleService.getUsersByRole(roleId, pageable);
         return ApiResponse.success("Users retrieved successfully", users);
     }
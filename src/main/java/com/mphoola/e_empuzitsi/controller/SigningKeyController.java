@@ -0,0 +1,40 @@
+package com.mphoola.e_empuzitsi.controller;
+
+import com.mphoola.e_empuzitsi.dto.auth.RotateSigningKeyRequest;
+import com.mphoola.e_empuzitsi.service.SigningKeyService;
+import com.mphoola.e_empuzitsi.util.ApiResponse;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/signing-keys")
+@Tag(name = "Signing Keys", description = "Rotate the JWT signing key without a restart")
+public class SigningKeyController {
+
+    private final SigningKeyService signingKeyService;
+
+    public SigningKeyController(SigningKeyService signingKeyService) {
+        this.signingKeyService = signingKeyService;
+    }
+
+    @PostMapping(value = "/rotate", consumes = "application/json")
+    @PreAuthorize("hasAuthority('rotate_signing_key')")
+    @Operation(summary = "Rotate the JWT signing key",
+               description = "Sign new tokens with the given key on this instance. Tokens signed with the previous key stay valid until they expire.")
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Signing key rotated")
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "422", description = "The key id is already active")
+    public ResponseEntity<Map<String, Object>> rotate(@Valid @RequestBody RotateSigningKeyRequest request) {
+        String previousKeyId = signingKeyService.rotate(request);
+        return ApiResponse.success("Signing key rotated",
+                Map.of("keyId", request.getKeyId(), "previousKeyId", previousKeyId));
+    }
+}
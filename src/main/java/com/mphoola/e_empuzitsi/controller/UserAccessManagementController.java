@@ -1,5 +1,7 @@
 package com.mphoola.e_empuzitsi.controller;
 
+import com.mphoola.e_empuzitsi.dto.user.BulkUserOperationResponse;
+import com.mphoola.e_empuzitsi.dto.user.BulkUserRequest;
 import com.mphoola.e_empuzitsi.dto.user.UserRoleRequest;
 import com.mphoola.e_empuzitsi.dto.user.UserRoleResponse;
 import com.mphoola.e_empuzitsi.dto.user.UserPermissionRequest;
@@ -46,6 +48,20 @@ public class UserAccessManagementController {
         return ApiResponse.created(response);
     }
 
+    @PostMapping("/bulk/roles/{roleId}")
+    @PreAuthorize("hasAuthority('assign_user_role')")
+    @Operation(summary = "Assign role to users in bulk",
+               description = "Select users by ids or by accountType, status and roleId filters; users who already hold the role are skipped")
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "200", description = "Role assigned successfully")
+    @io.swagger.v3.oas.annotations.responses.ApiResponse(responseCode = "404", description = "Role not found")
+    public ResponseEntity<Map<String, Object>> assignRoleToUsers(
+            @Parameter(description = "Role ID") @PathVariable Long roleId,
+            @Valid @RequestBody BulkUserRequest request) {
+        
+        BulkUserOperationResponse response = userAccessManagementService.assignRoleToUsers(roleId, request);
+        return ApiResponse.success("Role assigned successfully", response);
+    }
+
     @DeleteMapping("/{userId}/roles/{roleId}")
     @PreAuthorize("hasAuthority('revoke_user_role')")
     @Operation(summary = "Revoke role from user", description = "Remove a role from a specific user")
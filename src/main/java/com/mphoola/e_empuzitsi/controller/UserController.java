@@ -1,23 +1,36 @@
 package com.mphoola.e_empuzitsi.controller;
 
+import com.mphoola.e_empuzitsi.dto.user.BulkUserOperationResponse;
+import com.mphoola.e_empuzitsi.dto.user.BulkUserRequest;
 import com.mphoola.e_empuzitsi.dto.user.UpdateUserRequest;
+import com.mphoola.e_empuzitsi.dto.user.UserImportJobResponse;
 import com.mphoola.e_empuzitsi.dto.user.UserRequest;
 import com.mphoola.e_empuzitsi.dto.user.UserResponse;
 import com.mphoola.e_empuzitsi.dto.user.UserResponseSimple;
 import com.mphoola.e_empuzitsi.entity.AccountType;
 import com.mphoola.e_empuzitsi.entity.UserStatus;
+import com.mphoola.e_empuzitsi.service.UserExportService;
+import com.mphoola.e_empuzitsi.service.UserImportService;
 import com.mphoola.e_empuzitsi.service.UserService;
 import com.mphoola.e_empuzitsi.util.ApiResponse;
+import com.mphoola.e_empuzitsi.util.CountMode;
+import com.mphoola.e_empuzitsi.util.CursorPage;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -26,9 +39,14 @@ import java.util.Map;
 public class UserController {
     
     private final UserService userService;
+    private final UserExportService userExportService;
+    private final UserImportService userImportService;
     
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserExportService userExportService,
+                          UserImportService userImportService) {
         this.userService = userService;
+        this.userExportService = userExportService;
+        this.userImportService = userImportService;
     }
     
     @PostMapping
@@ -39,6 +57,26 @@ public class UserController {
         return ApiResponse.created(response);
     }
     
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasAuthority('add_user')")
+    @Operation(summary = "Import users from a CSV file",
+               description = "Columns name, email and optionally account_type, with a header row. "
+                           + "Runs in the background; poll the returned job for progress and per-row results")
+    public ResponseEntity<Map<String, Object>> importUsers(@RequestParam("file") MultipartFile file) {
+        UserImportJobResponse response = userImportService.startImport(file);
+        return ApiResponse.accepted(response);
+    }
+    
+    @GetMapping("/import/{jobId}")
+    @PreAuthorize("hasAuthority('add_user')")
+    @Operation(summary = "Get the progress and results of a user import")
+    public ResponseEntity<Map<String, Object>> getImport(
+            @PathVariable String jobId,
+            @RequestParam(defaultValue = "false") boolean failedOnly) {
+        UserImportJobResponse response = userImportService.getImport(jobId, failedOnly);
+        return ApiResponse.success("Import retrieved successfully", response);
+    }
+    
     @PutMapping("/{id}")
     @PreAuthorize("hasAuthority('update_user')")
     @Operation(summary = "Update an existing user")
@@ -63,6 +101,24 @@ public class UserController {
         return ApiResponse.success("User unbanned successfully");
     }
     
+    @PutMapping("/bulk/ban")
+    @PreAuthorize("hasAuthority('ban_user')")
+    @Operation(summary = "Ban users in bulk", description = "Select users by ids or by accountType, status and roleId filters. " +
+            "The caller is never banned, and a selection holding every active user with ban_user or unban_user " +
+            "is refused with 422 unless allowLockout is set")
+    public ResponseEntity<Map<String, Object>> banUsers(@Valid @RequestBody BulkUserRequest request) {
+        BulkUserOperationResponse response = userService.banUsers(request);
+        return ApiResponse.success("Users banned successfully", response);
+    }
+    
+    @PutMapping("/bulk/unban")
+    @PreAuthorize("hasAuthority('unban_user')")
+    @Operation(summary = "Unban users in bulk", description = "Select users by ids or by accountType, status and roleId filters")
+    public ResponseEntity<Map<String, Object>> unbanUsers(@Valid @RequestBody BulkUserRequest request) {
+        BulkUserOperationResponse response = userService.unbanUsers(request);
+        return ApiResponse.success("Users unbanned successfully", response);
+    }
+    
     @GetMapping("/{id}")
     @PreAuthorize("hasAuthority('show_user_details')")
     @Operation(summary = "Get user by ID")
@@ -73,17 +129,59 @@ public class UserController {
     
     @GetMapping
     @PreAuthorize("hasAuthority('list_users')")
-    @Operation(summary = "Get all users with pagination, filtering, sorting, and searching")
+    @Operation(summary = "Get all users with pagination, filtering, sorting, and searching",
+               description = "Pass after (empty for the first page) to page by cursor in creation order instead of page number. "
+                           + "count=NONE skips the total, count=APPROXIMATE serves a cached one, "
+                           + "except with a search term, which is always counted exactly")
     public ResponseEntity<Map<String, Object>> getAllUsers(
             @RequestParam(required = false) String search,
             @RequestParam(required = false) AccountType accountType,
             @RequestParam(required = false) UserStatus status,
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @RequestParam(defaultValue = "EXACT") CountMode count,
             @PageableDefault(page = 0, size = 10, sort = "createdAt") Pageable pageable) {
         
+        if (after != null) {
+            CursorPage<UserResponseSimple> page = userService.getUsersAfter(
+                    search, accountType, status, after, pageable.getPageSize(), withTotal);
+            return ApiResponse.success("Users retrieved successfully", page, "/api/users");
+        }
+        
+        if (count != CountMode.EXACT) {
+            Slice<UserResponseSimple> slice = userService.getUsersSlice(search, accountType, status, pageable);
+            Long total = count == CountMode.APPROXIMATE ? userService.approximateUserCount(search, accountType, status) : null;
+            return ApiResponse.success("Users retrieved successfully", slice, "/api/users", total);
+        }
+        
         Page<UserResponseSimple> response = userService.getAllUsers(search, accountType, status, pageable);
         return ApiResponse.success("Users retrieved successfully", response);
     }
     
+    @GetMapping("/search")
+    @PreAuthorize("hasAuthority('list_users')")
+    @Operation(summary = "Search users by name or email, best matches first")
+    public ResponseEntity<Map<String, Object>> searchUsers(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        
+        List<UserResponseSimple> response = userService.searchUsers(q, Math.min(Math.max(limit, 1), 100));
+        return ApiResponse.success("Users retrieved successfully", response);
+    }
+    
+    @GetMapping("/export")
+    @PreAuthorize("hasAuthority('list_users')")
+    @Operation(summary = "Export all users as NDJSON or CSV, streamed")
+    public ResponseEntity<StreamingResponseBody> exportUsers(
+            @RequestParam(defaultValue = "NDJSON") UserExportService.Format format) {
+        
+        StreamingResponseBody body = out -> userExportService.export(format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + format.getExtension() + "\"")
+                .body(body);
+    }
+    
     @GetMapping("/email/{email}")
     @PreAuthorize("hasAuthority('show_user_details')")
     @Operation(summary = "Get user by email")
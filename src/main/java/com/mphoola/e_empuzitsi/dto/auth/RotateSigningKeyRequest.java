@@ -0,0 +1,26 @@
+package com.mphoola.e_empuzitsi.dto.auth;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RotateSigningKeyRequest {
+    
+    @NotBlank(message = "Key id is required")
+    @Size(max = 64, message = "Key id must be at most 64 characters")
+    @Pattern(regexp = "[A-Za-z0-9._-]*", message = "Key id may only contain letters, digits, '.', '_' and '-'")
+    private String keyId;
+    
+    // HS256 needs at least 256 bits of key material
+    @NotBlank(message = "Secret is required")
+    @Size(min = 32, message = "Secret must be at least 32 characters")
+    private String secret;
+}
@@ -5,6 +5,7 @@ import com.mphoola.e_empuzitsi.annotation.Unique;
 import com.mphoola.e_empuzitsi.entity.Role;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -22,6 +23,8 @@ public class RoleRequest {
     
     @NotBlank(message = "Role name is required")
     @Size(min = 2, max = 50, message = "Role name must be between 2 and 50 characters")
+    // Control characters are reserved, UserDetailRow joins role names with one
+    @Pattern(regexp = "[^\\p{Cntrl}]*", message = "Role name must not contain control characters")
     @Unique(entity = Role.class, field = "name", message = "Role name already exists")
     private String name;
     
@@ -1,6 +1,7 @@
 package com.mphoola.e_empuzitsi.dto.role;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.mphoola.e_empuzitsi.dto.user.UserResponseSimple;
 
 import lombok.AllArgsConstructor;
@@ -24,6 +25,13 @@ public class RoleResponse {
     private Long userCount;
     private Long permissionCount;
     
+    // Set by updates only: the permission names the update linked and unlinked
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Set<String> addedPermissions;
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Set<String> removedPermissions;
+    
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime createdAt;
     
@@ -0,0 +1,7 @@
+package com.mphoola.e_empuzitsi.dto.user;
+
+/**
+ * Result of a bulk operation: how many users were selected and how many actually changed
+ */
+public record BulkUserOperationResponse(int selected, int updated) {
+}
@@ -0,0 +1,58 @@
+package com.mphoola.e_empuzitsi.dto.user;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.mphoola.e_empuzitsi.entity.AccountType;
+import com.mphoola.e_empuzitsi.entity.UserStatus;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Users targeted by a bulk operation: either explicit ids, or every user matching the filters
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BulkUserRequest {
+    
+    @Size(max = 50000, message = "At most 50000 user ids can be passed at once")
+    private List<Long> ids;
+    
+    private AccountType accountType;
+    
+    private UserStatus status;
+    
+    /**
+     * Only users currently holding this role
+     */
+    private Long roleId;
+    
+    private String reason; // Optional reason, recorded in the activity log
+    
+    /**
+     * Ban the selection even when it holds every active user able to ban or unban users
+     */
+    private boolean allowLockout;
+    
+    @JsonIgnore
+    public boolean hasIds() {
+        return ids != null && !ids.isEmpty();
+    }
+    
+    @JsonIgnore
+    public boolean hasFilters() {
+        return accountType != null || status != null || roleId != null;
+    }
+    
+    @JsonIgnore
+    @AssertTrue(message = "Pass either user ids or at least one filter, not both")
+    public boolean isSelectionValid() {
+        return hasIds() != hasFilters();
+    }
+}
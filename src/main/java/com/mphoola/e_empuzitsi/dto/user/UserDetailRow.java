@@ -0,0 +1,38 @@
+package com.mphoola.e_empuzitsi.dto.user;
+
+import com.mphoola.e_empuzitsi.entity.AccountType;
+import com.mphoola.e_empuzitsi.entity.UserStatus;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A user with the names of its roles and effective permissions, each aggregated in SQL into one
+ * string joined by {@link #SEPARATOR} (null when there are none)
+ */
+public record UserDetailRow(Long id, String name, String email, AccountType accountType, UserStatus status,
+                            LocalDateTime emailVerifiedAt, LocalDateTime createdAt, LocalDateTime updatedAt,
+                            String roleNames, String permissionNames) {
+
+    /**
+     * ASCII unit separator, a control character that role names may not contain
+     */
+    public static final String SEPARATOR = "\u001F";
+
+    public Set<String> roles() {
+        return split(roleNames);
+    }
+
+    public Set<String> permissions() {
+        return split(permissionNames);
+    }
+
+    private static Set<String> split(String names) {
+        if (names == null || names.isEmpty()) {
+            return new LinkedHashSet<>();
+        }
+        return new LinkedHashSet<>(Arrays.asList(names.split(SEPARATOR)));
+    }
+}
@@ -0,0 +1,19 @@
+package com.mphoola.e_empuzitsi.dto.user;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Progress and per-row results of a user import
+ */
+public record UserImportJobResponse(String id, Status status, String fileName, long processedRows, long createdCount,
+                                    long failedCount, LocalDateTime startedAt, LocalDateTime finishedAt, String error,
+                                    List<UserImportRowResult> rows) {
+
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,20 @@
+package com.mphoola.e_empuzitsi.dto.user;
+
+/**
+ * Outcome of one data row of a user import. {@code row} is the line of the file the row started on.
+ */
+public record UserImportRowResult(long row, String email, Outcome outcome, Long userId, String error) {
+
+    public enum Outcome {
+        CREATED,
+        FAILED
+    }
+
+    public static UserImportRowResult created(long row, String email, Long userId) {
+        return new UserImportRowResult(row, email, Outcome.CREATED, userId, null);
+    }
+
+    public static UserImportRowResult failed(long row, String email, String error) {
+        return new UserImportRowResult(row, email, Outcome.FAILED, null, error);
+    }
+}
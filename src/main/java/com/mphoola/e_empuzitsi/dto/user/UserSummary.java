@@ -0,0 +1,13 @@
+package com.mphoola.e_empuzitsi.dto.user;
+
+import com.mphoola.e_empuzitsi.entity.AccountType;
+import com.mphoola.e_empuzitsi.entity.UserStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * A user's own columns, read as a projection rather than a managed entity (listings and exports)
+ */
+public record UserSummary(Long id, String name, String email, AccountType accountType, UserStatus status,
+                          LocalDateTime createdAt) {
+}
@@ -14,7 +14,9 @@ import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "activity_logs")
+@Table(name = "activity_logs", indexes = {
+    @Index(name = "idx_activity_logs_created_at_id", columnList = "created_at, id")
+})
 @EntityListeners(AuditingEntityListener.class)
 @Data
 @NoArgsConstructor
@@ -0,0 +1,32 @@
+package com.mphoola.e_empuzitsi.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Hash of the last seed definition applied to this database, one row per seed.
+ * Startup seeding is skipped while the stored hash matches the current definition.
+ */
+@Entity
+@Table(name = "seed_checksums")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SeedChecksum {
+    
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+    
+    @Column(name = "checksum", nullable = false, length = 64)
+    private String checksum;
+    
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -2,6 +2,7 @@ package com.mphoola.e_empuzitsi.entity;
 
 import com.mphoola.e_empuzitsi.annotation.Loggable;
 import com.mphoola.e_empuzitsi.listener.ActivityLogEntityListener;
+import com.mphoola.e_empuzitsi.listener.UserSearchIndexListener;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -16,8 +17,10 @@ import java.time.LocalDateTime;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
-@EntityListeners({AuditingEntityListener.class, ActivityLogEntityListener.class})
+@Table(name = "users", indexes = {
+    @Index(name = "idx_users_created_at_id", columnList = "created_at, id")
+})
+@EntityListeners({AuditingEntityListener.class, ActivityLogEntityListener.class, UserSearchIndexListener.class})
 @Loggable(excludeFields = {"password", "resetToken"})
 @Getter
 @Setter
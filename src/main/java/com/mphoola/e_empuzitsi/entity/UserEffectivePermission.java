@@ -0,0 +1,41 @@
+package com.mphoola.e_empuzitsi.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * Materialized union of a user's role permissions and direct permissions, one row per distinct
+ * permission. Derived data maintained by {@code EffectivePermissionStore}: the columns are plain
+ * ids without foreign keys so the rows never block deleting a user or a permission.
+ */
+@Entity
+@Table(name = "user_effective_permissions", indexes = {
+    @Index(name = "idx_user_effective_permissions_permission_id", columnList = "permission_id")
+})
+@IdClass(UserEffectivePermission.UserEffectivePermissionId.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserEffectivePermission {
+    
+    @Id
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Id
+    @Column(name = "permission_id", nullable = false)
+    private Long permissionId;
+    
+    // Composite key class
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class UserEffectivePermissionId implements Serializable {
+        private Long userId;
+        private Long permissionId;
+    }
+}
@@ -14,7 +14,9 @@ import java.time.LocalDateTime;
 import java.util.Objects;
 
 @Entity
-@Table(name = "user_roles")
+@Table(name = "user_roles", indexes = {
+    @Index(name = "idx_user_roles_role_id_user_id", columnList = "role_id, user_id")
+})
 @IdClass(UserRole.UserRoleId.class)
 @Getter
 @Setter
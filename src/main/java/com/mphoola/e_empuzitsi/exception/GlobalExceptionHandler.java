@@ -24,6 +24,7 @@ import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.servlet.NoHandlerFoundException;
 import org.springframework.web.servlet.resource.NoResourceFoundException;
 
@@ -323,6 +324,32 @@ public class GlobalExceptionHandler {
         return ApiResponse.conflict(ex.getMessage());
     }
     
+    /**
+     * Handle saturated resources (503)
+     */
+    @ExceptionHandler(ServiceBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleServiceBusyException(
+            ServiceBusyException ex, 
+            HttpServletRequest request) {
+        
+        log.warn("Service busy for path: {} - {}", request.getRequestURI(), ex.getMessage());
+        
+        return ApiResponse.serviceUnavailable(ex.getMessage(), ex.getRetryAfterSeconds());
+    }
+    
+    /**
+     * Handle uploads over the configured size (413)
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<Map<String, Object>> handleMaxUploadSizeExceededException(
+            MaxUploadSizeExceededException ex, 
+            HttpServletRequest request) {
+        
+        log.warn("Upload too large for path: {} - {}", request.getRequestURI(), ex.getMessage());
+        
+        return ApiResponse.error("The uploaded file is too large", HttpStatus.PAYLOAD_TOO_LARGE);
+    }
+    
     /**
      * Handle general runtime errors
      */
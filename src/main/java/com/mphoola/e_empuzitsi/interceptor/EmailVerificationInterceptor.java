@@ -1,6 +1,7 @@
 package com.mphoola.e_empuzitsi.interceptor;
 
 import com.mphoola.e_empuzitsi.security.AllowUnverifiedEmail;
+import com.mphoola.e_empuzitsi.security.UserPrincipal;
 import com.mphoola.e_empuzitsi.service.UserService;
 import com.mphoola.e_empuzitsi.util.ApiResponse;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,6 +15,9 @@ import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.HandlerInterceptor;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 public class EmailVerificationInterceptor implements HandlerInterceptor {
@@ -21,6 +25,9 @@ public class EmailVerificationInterceptor implements HandlerInterceptor {
     private final UserService userService;
     private final ObjectMapper objectMapper;
     
+    // Whether a handler method (or its controller) is marked @AllowUnverifiedEmail
+    private final Map<Method, Boolean> allowUnverified = new ConcurrentHashMap<>();
+    
     public EmailVerificationInterceptor(UserService userService, ObjectMapper objectMapper) {
         this.userService = userService;
         this.objectMapper = objectMapper;
@@ -35,12 +42,8 @@ public class EmailVerificationInterceptor implements HandlerInterceptor {
         
         HandlerMethod handlerMethod = (HandlerMethod) handler;
         
-        // Check if endpoint is explicitly marked to allow unverified users
-        AllowUnverifiedEmail methodAnnotation = handlerMethod.getMethodAnnotation(AllowUnverifiedEmail.class);
-        AllowUnverifiedEmail classAnnotation = handlerMethod.getBeanType().getAnnotation(AllowUnverifiedEmail.class);
-        
         // If either method or class has @AllowUnverifiedEmail, skip verification
-        if (methodAnnotation != null || classAnnotation != null) {
+        if (isAllowUnverified(handlerMethod)) {
             return true;
         }
         
@@ -51,11 +54,9 @@ public class EmailVerificationInterceptor implements HandlerInterceptor {
             return true;
         }
         
-        String email = authentication.getName();
-        
         try {
             // Secure by default: require email verification unless explicitly allowed
-            if (!userService.isEmailVerified(email)) {
+            if (!isEmailVerified(authentication)) {
                 sendEmailVerificationRequired(response, "Email verification required to access this resource");
                 return false;
             }
@@ -67,6 +68,30 @@ public class EmailVerificationInterceptor implements HandlerInterceptor {
         return true;
     }
     
+    /**
+     * Resolve the annotations once per handler method
+     */
+    private boolean isAllowUnverified(HandlerMethod handlerMethod) {
+        Boolean allowed = allowUnverified.get(handlerMethod.getMethod());
+        if (allowed == null) {
+            allowed = handlerMethod.hasMethodAnnotation(AllowUnverifiedEmail.class)
+                    || handlerMethod.getBeanType().isAnnotationPresent(AllowUnverifiedEmail.class);
+            allowUnverified.put(handlerMethod.getMethod(), allowed);
+        }
+        return allowed;
+    }
+    
+    /**
+     * Read the verified flag from the request principal. Only principals that did not come from
+     * CustomUserDetailsService or a token need a lookup.
+     */
+    private boolean isEmailVerified(Authentication authentication) {
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.isEmailVerified();
+        }
+        return userService.isEmailVerified(authentication.getName());
+    }
+    
     private void sendEmailVerificationRequired(HttpServletResponse response, String message) throws IOException {
         response.setStatus(HttpServletResponse.SC_FORBIDDEN);
         response.setContentType("application/json");
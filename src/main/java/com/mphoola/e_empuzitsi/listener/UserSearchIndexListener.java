@@ -0,0 +1,44 @@
+package com.mphoola.e_empuzitsi.listener;
+
+import com.mphoola.e_empuzitsi.entity.User;
+import com.mphoola.e_empuzitsi.service.UserSearchIndex;
+import com.mphoola.e_empuzitsi.util.ApplicationContextProvider;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * JPA Entity Listener keeping {@link UserSearchIndex} in step with saved and deleted users
+ */
+public class UserSearchIndexListener {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndexListener.class);
+
+    private UserSearchIndex getUserSearchIndex() {
+        try {
+            return ApplicationContextProvider.getBean(UserSearchIndex.class);
+        } catch (Exception e) {
+            log.debug("UserSearchIndex not available: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void postSave(User user) {
+        UserSearchIndex index = getUserSearchIndex();
+        if (index != null) {
+            index.update(user.getId(), user.getName(), user.getEmail());
+        }
+    }
+
+    @PostRemove
+    public void postRemove(User user) {
+        UserSearchIndex index = getUserSearchIndex();
+        if (index != null) {
+            index.remove(user.getId());
+        }
+    }
+}
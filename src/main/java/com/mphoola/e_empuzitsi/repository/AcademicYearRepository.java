@@ -3,6 +3,7 @@ package com.mphoola.e_empuzitsi.repository;
 import com.mphoola.e_empuzitsi.entity.AcademicYear;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -39,6 +40,16 @@ public interface AcademicYearRepository extends JpaRepository<AcademicYear, Long
      */
     Page<AcademicYear> findByIsActive(Boolean isActive, Pageable pageable);
     
+    /**
+     * Find a slice of academic years without counting them
+     */
+    Slice<AcademicYear> findSliceBy(Pageable pageable);
+    
+    /**
+     * Find a slice of academic years by active status without counting them
+     */
+    Slice<AcademicYear> findSliceByIsActive(Boolean isActive, Pageable pageable);
+    
     /**
      * Find academic years with student subjects count
      */
@@ -1,26 +1,31 @@
 package com.mphoola.e_empuzitsi.repository;
 
 import com.mphoola.e_empuzitsi.entity.ActivityLog;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Repository
 public interface ActivityLogRepository extends JpaRepository<ActivityLog, Long> {
     
+    // Optional filters shared by the activity log queries, a null parameter matches every row
+    String FILTERS = "(COALESCE(:subjectType, '') = '' OR al.subjectType = :subjectType) AND " +
+                     "(COALESCE(:subjectId, -1) = -1 OR al.subjectId = :subjectId) AND " +
+                     "(COALESCE(:causerId, -1) = -1 OR al.causerId = :causerId) AND " +
+                     "(COALESCE(:event, '') = '' OR al.event = :event) AND " +
+                     "(COALESCE(:startDate, '1970-01-01T00:00:00') = '1970-01-01T00:00:00' OR al.createdAt >= :startDate) AND " +
+                     "(COALESCE(:endDate, '2999-12-31T23:59:59') = '2999-12-31T23:59:59' OR al.createdAt <= :endDate)";
+    
     // Complex query for filtering
-    @Query("SELECT al FROM ActivityLog al WHERE " +
-           "(COALESCE(:subjectType, '') = '' OR al.subjectType = :subjectType) AND " +
-           "(COALESCE(:subjectId, -1) = -1 OR al.subjectId = :subjectId) AND " +
-           "(COALESCE(:causerId, -1) = -1 OR al.causerId = :causerId) AND " +
-           "(COALESCE(:event, '') = '' OR al.event = :event) AND " +
-           "(COALESCE(:startDate, '1970-01-01T00:00:00') = '1970-01-01T00:00:00' OR al.createdAt >= :startDate) AND " +
-           "(COALESCE(:endDate, '2999-12-31T23:59:59') = '2999-12-31T23:59:59' OR al.createdAt <= :endDate)")
+    @Query("SELECT al FROM ActivityLog al WHERE " + FILTERS)
     Page<ActivityLog> findWithFilters(
             @Param("subjectType") String subjectType,
             @Param("subjectId") Long subjectId,
@@ -30,6 +35,41 @@ public interface ActivityLogRepository extends JpaRepository<ActivityLog, Long>
             @Param("endDate") LocalDateTime endDate,
             Pageable pageable);
     
+    // Same filters as findWithFilters without the count query
+    @Query("SELECT al FROM ActivityLog al WHERE " + FILTERS)
+    Slice<ActivityLog> findSliceWithFilters(
+            @Param("subjectType") String subjectType,
+            @Param("subjectId") Long subjectId,
+            @Param("causerId") Long causerId,
+            @Param("event") String event,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            Pageable pageable);
+    
+    // Keyset variant of findWithFilters, newest first
+    @Query("SELECT al FROM ActivityLog al WHERE " + FILTERS + " AND " +
+           "(al.createdAt < :beforeCreatedAt OR (al.createdAt = :beforeCreatedAt AND al.id < :beforeId)) " +
+           "ORDER BY al.createdAt DESC, al.id DESC")
+    List<ActivityLog> findWithFiltersBefore(
+            @Param("subjectType") String subjectType,
+            @Param("subjectId") Long subjectId,
+            @Param("causerId") Long causerId,
+            @Param("event") String event,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate,
+            @Param("beforeCreatedAt") LocalDateTime beforeCreatedAt,
+            @Param("beforeId") Long beforeId,
+            Limit limit);
+    
+    @Query("SELECT COUNT(al) FROM ActivityLog al WHERE " + FILTERS)
+    long countWithFilters(
+            @Param("subjectType") String subjectType,
+            @Param("subjectId") Long subjectId,
+            @Param("causerId") Long causerId,
+            @Param("event") String event,
+            @Param("startDate") LocalDateTime startDate,
+            @Param("endDate") LocalDateTime endDate);
+    
     // Count activities by user
     @Query("SELECT COUNT(al) FROM ActivityLog al WHERE al.causerId = :causerId")
     Long countByCauserId(@Param("causerId") Long causerId);
@@ -2,10 +2,12 @@ package com.mphoola.e_empuzitsi.repository;
 
 import com.mphoola.e_empuzitsi.entity.RolePermission;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -19,4 +21,18 @@ public interface RolePermissionRepository extends JpaRepository<RolePermission,
     
     @Query("SELECT rp FROM RolePermission rp WHERE rp.permission.id = :permissionId")
     List<RolePermission> findByPermissionId(@Param("permissionId") Long permissionId);
+    
+    // Permission sync applies only the delta, one statement per direction instead of a row per link
+    @Modifying
+    @Query(value = "INSERT INTO role_permissions (role_id, permission_id) " +
+           "SELECT :roleId, p.id FROM permissions p " +
+           "WHERE p.id IN (:permissionIds) " +
+           "AND NOT EXISTS (SELECT 1 FROM role_permissions rp WHERE rp.role_id = :roleId AND rp.permission_id = p.id)",
+           nativeQuery = true)
+    int insertMissing(@Param("roleId") Long roleId, @Param("permissionIds") Collection<Long> permissionIds);
+    
+    @Modifying
+    @Query(value = "DELETE FROM role_permissions WHERE role_id = :roleId AND permission_id IN (:permissionIds)",
+           nativeQuery = true)
+    int deleteByRoleIdAndPermissionIdIn(@Param("roleId") Long roleId, @Param("permissionIds") Collection<Long> permissionIds);
 }
@@ -1,7 +1,6 @@
 package com.mphoola.e_empuzitsi.repository;
 
 import com.mphoola.e_empuzitsi.entity.Role;
-import com.mphoola.e_empuzitsi.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -27,13 +26,20 @@ public interface RoleRepository extends JpaRepository<Role, Long> {
            "WHERE r.id = :id")
     Optional<Role> findByIdWithPermissions(@Param("id") Long id);
     
+    @Query("SELECT DISTINCT r FROM Role r " +
+           "LEFT JOIN FETCH r.permissions " +
+           "ORDER BY r.id")
+    List<Role> findAllWithPermissions();
+    
     @Query("SELECT COUNT(ur) FROM UserRole ur WHERE ur.role.id = :roleId")
     long countUsersByRoleId(@Param("roleId") Long roleId);
     
-    @Query("SELECT u FROM User u " +
-           "JOIN UserRole ur ON u.id = ur.user.id " +
-           "WHERE ur.role.id = :roleId")
-    List<User> findUsersByRoleId(@Param("roleId") Long roleId);
+    // Holder count of every role that has one, in a single pass over user_roles
+    @Query("SELECT ur.role.id, COUNT(ur) FROM UserRole ur GROUP BY ur.role.id")
+    List<Object[]> countUsersPerRole();
+    
+    @Query("SELECT ur.user.id FROM UserRole ur WHERE ur.role.id = :roleId")
+    List<Long> findUserIdsByRoleId(@Param("roleId") Long roleId);
     
     boolean existsByNameAndIdNot(String name, Long id);
 }
@@ -0,0 +1,29 @@
+package com.mphoola.e_empuzitsi.repository;
+
+import com.mphoola.e_empuzitsi.entity.SeedChecksum;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface SeedChecksumRepository extends JpaRepository<SeedChecksum, String> {
+    
+    // Placeholder row with an empty checksum, so there is a row to lock before the first seed
+    @Modifying
+    @Query(value = "INSERT INTO seed_checksums (name, checksum, applied_at) " +
+           "SELECT CAST(:name AS VARCHAR(100)), '', CAST(:now AS TIMESTAMP) " +
+           "WHERE NOT EXISTS (SELECT 1 FROM seed_checksums WHERE name = :name)",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("name") String name, @Param("now") LocalDateTime now);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SeedChecksum s WHERE s.name = :name")
+    Optional<SeedChecksum> lockByName(@Param("name") String name);
+}
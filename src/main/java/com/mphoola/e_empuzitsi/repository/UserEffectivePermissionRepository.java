@@ -0,0 +1,55 @@
+package com.mphoola.e_empuzitsi.repository;
+
+import com.mphoola.e_empuzitsi.entity.UserEffectivePermission;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface UserEffectivePermissionRepository
+        extends JpaRepository<UserEffectivePermission, UserEffectivePermission.UserEffectivePermissionId> {
+    
+    // The full derivation, its checksum decides whether startup rebuilds the table
+    String INSERT_ALL = "INSERT INTO user_effective_permissions (user_id, permission_id) " +
+           "SELECT ur.user_id, rp.permission_id FROM user_roles ur " +
+           "JOIN role_permissions rp ON rp.role_id = ur.role_id " +
+           "UNION " +
+           "SELECT up.user_id, up.permission_id FROM user_permissions up";
+    
+    // A range scan of the primary key (user_id, permission_id) plus the permission names
+    @Query("SELECT p.name FROM UserEffectivePermission e, Permission p " +
+           "WHERE e.userId = :userId AND p.id = e.permissionId")
+    List<String> findPermissionNamesByUserId(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query(value = "DELETE FROM user_effective_permissions WHERE user_id IN (:userIds)", nativeQuery = true)
+    int deleteByUserIdIn(@Param("userIds") Collection<Long> userIds);
+    
+    // UNION removes the duplicates between roles and between a role and a direct grant
+    @Modifying
+    @Query(value = "INSERT INTO user_effective_permissions (user_id, permission_id) " +
+           "SELECT ur.user_id, rp.permission_id FROM user_roles ur " +
+           "JOIN role_permissions rp ON rp.role_id = ur.role_id " +
+           "WHERE ur.user_id IN (:userIds) " +
+           "UNION " +
+           "SELECT up.user_id, up.permission_id FROM user_permissions up " +
+           "WHERE up.user_id IN (:userIds)",
+           nativeQuery = true)
+    int insertForUsers(@Param("userIds") Collection<Long> userIds);
+    
+    @Modifying
+    @Query(value = "DELETE FROM user_effective_permissions", nativeQuery = true)
+    int deleteAllRows();
+    
+    @Modifying
+    @Query(value = INSERT_ALL, nativeQuery = true)
+    int insertAll();
+    
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM user_effective_permissions)", nativeQuery = true)
+    boolean hasRows();
+}
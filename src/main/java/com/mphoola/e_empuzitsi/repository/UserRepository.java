@@ -1,62 +1,186 @@
 package com.mphoola.e_empuzitsi.repository;
 
+import com.mphoola.e_empuzitsi.dto.user.UserDetailRow;
+import com.mphoola.e_empuzitsi.dto.user.UserSummary;
 import com.mphoola.e_empuzitsi.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
+    
+    // Permission names come from the materialized user_effective_permissions rows, one primary key range scan
+    String USER_DETAIL = "SELECT new com.mphoola.e_empuzitsi.dto.user.UserDetailRow(u.id, u.name, u.email, u.accountType, u.status, " +
+           "u.emailVerifiedAt, u.createdAt, u.updatedAt, " +
+           "(SELECT LISTAGG(r.name, '" + UserDetailRow.SEPARATOR + "') WITHIN GROUP (ORDER BY r.name) FROM UserRole ur JOIN ur.role r WHERE ur.user.id = u.id), " +
+           "(SELECT LISTAGG(p.name, '" + UserDetailRow.SEPARATOR + "') WITHIN GROUP (ORDER BY p.name) " +
+           "FROM UserEffectivePermission e, Permission p WHERE e.userId = u.id AND p.id = e.permissionId)) " +
+           "FROM User u ";
     
     Optional<User> findByEmail(String email);
     
     boolean existsByEmail(String email);
     
+    // Set-based existence check, one query for a whole batch of candidate emails
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+    
+    @Query("SELECT u.id, u.email FROM User u WHERE u.email IN :emails")
+    List<Object[]> findIdsByEmailIn(@Param("emails") Collection<String> emails);
+    
     Optional<User> findByResetToken(String resetToken);
     
     Optional<User> findByVerificationToken(String verificationToken);
     
-    @Query("SELECT DISTINCT u FROM User u " +
-           "LEFT JOIN FETCH u.userRoles ur " +
-           "LEFT JOIN FETCH ur.role r " +
-           "LEFT JOIN FETCH r.permissions rp " +
-           "LEFT JOIN FETCH u.userPermissions up " +
-           "LEFT JOIN FETCH up.permission " +
-           "WHERE u.email = :email")
-    Optional<User> findByEmailWithRolesAndPermissions(@Param("email") String email);
-    
-    @Query("SELECT DISTINCT u FROM User u " +
-           "LEFT JOIN FETCH u.userRoles ur " +
-           "LEFT JOIN FETCH ur.role r " +
-           "LEFT JOIN FETCH r.permissions rp " +
-           "LEFT JOIN FETCH u.userPermissions up " +
-           "LEFT JOIN FETCH up.permission " +
-           "WHERE u.id = :id")
-    Optional<User> findByIdWithRolesAndPermissions(@Param("id") Long id);
-
-    @Query(value = "SELECT DISTINCT u.* FROM users u " +
-                   "JOIN user_roles ur ON u.id = ur.user_id " +
-                   "WHERE ur.role_id = :roleId", 
-           countQuery = "SELECT COUNT(DISTINCT u.id) FROM users u " +
-                       "JOIN user_roles ur ON u.id = ur.user_id " +
-                       "WHERE ur.role_id = :roleId",
+    @Query("SELECT u.id, u.name, u.email FROM User u")
+    List<Object[]> findAllSearchFields();
+    
+    // PostgreSQL only, served by the pg_trgm GIN indexes: substring matches first, then by the
+    // share of the term's trigrams found in the name or email
+    @Query(value = "SELECT u.id FROM users u " +
+           "WHERE lower(u.name) LIKE :pattern OR lower(u.email) LIKE :pattern " +
+           "OR :term <% lower(u.name) OR :term <% lower(u.email) " +
+           "ORDER BY (lower(u.name) LIKE :pattern OR lower(u.email) LIKE :pattern) DESC, " +
+           "GREATEST(word_similarity(:term, lower(u.name)), word_similarity(:term, lower(u.email))) DESC, " +
+           "length(u.name), u.id " +
+           "LIMIT :limit",
            nativeQuery = true)
-    Page<User> findByRoleId(@Param("roleId") Long roleId, Pageable pageable);
+    List<Long> searchIdsByTrigram(@Param("term") String term, @Param("pattern") String pattern, @Param("limit") int limit);
+    
+    // Sets the cut-off of the <% operator above for the current transaction only
+    @Query(value = "SELECT set_config('pg_trgm.word_similarity_threshold', :threshold, true)", nativeQuery = true)
+    String setWordSimilarityThreshold(@Param("threshold") String threshold);
+    
+    @Query(value = "SELECT EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm')", nativeQuery = true)
+    boolean isTrigramExtensionInstalled();
+    
+    @Query("SELECT new com.mphoola.e_empuzitsi.dto.user.UserSummary(u.id, u.name, u.email, u.accountType, u.status, u.createdAt) " +
+           "FROM User u WHERE u.id IN :ids")
+    List<UserSummary> findSummariesByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // Role and effective permission names are aggregated in SQL; listagg renders as string_agg on
+    // PostgreSQL and as the dialect's own equivalent elsewhere
+    @Query(USER_DETAIL + "WHERE u.id = :id")
+    Optional<UserDetailRow> findDetailById(@Param("id") Long id);
+    
+    @Query(USER_DETAIL + "WHERE u.email = :email")
+    Optional<UserDetailRow> findDetailByEmail(@Param("email") String email);
+    
+    // Forward-only and fetched in batches, for exports that must not hold every user in memory
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.mphoola.e_empuzitsi.dto.user.UserSummary(u.id, u.name, u.email, u.accountType, u.status, u.createdAt) " +
+           "FROM User u ORDER BY u.id")
+    Stream<UserSummary> streamAllForExport();
+    
+    // Bulk update, bypasses the persistence context and entity listeners
+    @Modifying
+    @Query("UPDATE User u SET u.status = :status, u.updatedAt = :now WHERE u.id IN :ids AND u.status <> :status")
+    int updateStatusByIdIn(@Param("ids") Collection<Long> ids,
+                           @Param("status") com.mphoola.e_empuzitsi.entity.UserStatus status,
+                           @Param("now") LocalDateTime now);
+    
+    // Compare-and-set on the hash, runs in its own transaction when the caller has none
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.password = :password WHERE u.id = :id AND u.password = :current")
+    int updatePasswordIfUnchanged(@Param("id") Long id, @Param("current") String current, @Param("password") String password);
+    
+    @Query("SELECT u.id FROM User u WHERE u.status = :status")
+    List<Long> findIdsByStatus(@Param("status") com.mphoola.e_empuzitsi.entity.UserStatus status);
+    
+    // Read from the materialized effective permissions, so role and direct grants both count
+    @Query("SELECT e.userId FROM UserEffectivePermission e, Permission p, User u " +
+           "WHERE p.name = :permission AND e.permissionId = p.id AND u.id = e.userId " +
+           "AND u.status = com.mphoola.e_empuzitsi.entity.UserStatus.ACTIVE")
+    List<Long> findActiveIdsWithPermission(@Param("permission") String permission);
+    
+    // Members of a role are read through idx_user_roles_role_id_user_id; (user, role) is the key
+    // of user_roles, so no DISTINCT is needed and the count never touches users
+    @Query(value = "SELECT new com.mphoola.e_empuzitsi.dto.user.UserSummary(u.id, u.name, u.email, u.accountType, u.status, u.createdAt) " +
+                   "FROM User u JOIN UserRole ur ON u.id = ur.user.id " +
+                   "WHERE ur.role.id = :roleId",
+           countQuery = "SELECT COUNT(ur) FROM UserRole ur WHERE ur.role.id = :roleId")
+    Page<UserSummary> findByRoleId(@Param("roleId") Long roleId, Pageable pageable);
 
-    @Query("SELECT u FROM User u WHERE " +
+    @Query("SELECT new com.mphoola.e_empuzitsi.dto.user.UserSummary(u.id, u.name, u.email, u.accountType, u.status, u.createdAt) " +
+           "FROM UserRole ur JOIN ur.user u " +
+           "WHERE ur.role.id = :roleId AND ur.user.id > :afterId " +
+           "ORDER BY ur.user.id")
+    List<UserSummary> findByRoleIdAfter(@Param("roleId") Long roleId, @Param("afterId") Long afterId, Limit limit);
+
+    // Listings read projections: no managed entities, snapshots or proxies, just the columns shown
+    @Query(value = "SELECT new com.mphoola.e_empuzitsi.dto.user.UserSummary(u.id, u.name, u.email, u.accountType, u.status, u.createdAt) " +
+           "FROM User u WHERE " +
+           "(:search IS NULL OR :search = '' OR " +
+           "LOWER(u.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
+           "(:accountType IS NULL OR u.accountType = :accountType) AND " +
+           "(:status IS NULL OR u.status = :status)",
+           countQuery = "SELECT COUNT(u) FROM User u WHERE " +
            "(:search IS NULL OR :search = '' OR " +
            "LOWER(u.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
            "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
            "(:accountType IS NULL OR u.accountType = :accountType) AND " +
            "(:status IS NULL OR u.status = :status)")
-    Page<User> findUsersWithFilters(@Param("search") String search,
+    Page<UserSummary> findUsersWithFilters(@Param("search") String search,
                                    @Param("accountType") com.mphoola.e_empuzitsi.entity.AccountType accountType,
                                    @Param("status") com.mphoola.e_empuzitsi.entity.UserStatus status,
                                    Pageable pageable);
+
+    // Same filters as findUsersWithFilters without the count query
+    @Query("SELECT new com.mphoola.e_empuzitsi.dto.user.UserSummary(u.id, u.name, u.email, u.accountType, u.status, u.createdAt) " +
+           "FROM User u WHERE " +
+           "(:search IS NULL OR :search = '' OR " +
+           "LOWER(u.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
+           "(:accountType IS NULL OR u.accountType = :accountType) AND " +
+           "(:status IS NULL OR u.status = :status)")
+    Slice<UserSummary> findUsersSliceWithFilters(@Param("search") String search,
+                                          @Param("accountType") com.mphoola.e_empuzitsi.entity.AccountType accountType,
+                                          @Param("status") com.mphoola.e_empuzitsi.entity.UserStatus status,
+                                          Pageable pageable);
+
+    @Query("SELECT new com.mphoola.e_empuzitsi.dto.user.UserSummary(u.id, u.name, u.email, u.accountType, u.status, u.createdAt) " +
+           "FROM User u WHERE " +
+           "(:search IS NULL OR :search = '' OR " +
+           "LOWER(u.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
+           "(:accountType IS NULL OR u.accountType = :accountType) AND " +
+           "(:status IS NULL OR u.status = :status) AND " +
+           "(u.createdAt > :afterCreatedAt OR (u.createdAt = :afterCreatedAt AND u.id > :afterId)) " +
+           "ORDER BY u.createdAt, u.id")
+    List<UserSummary> findUsersWithFiltersAfter(@Param("search") String search,
+                                         @Param("accountType") com.mphoola.e_empuzitsi.entity.AccountType accountType,
+                                         @Param("status") com.mphoola.e_empuzitsi.entity.UserStatus status,
+                                         @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                         @Param("afterId") Long afterId,
+                                         Limit limit);
+
+    @Query("SELECT COUNT(u) FROM User u WHERE " +
+           "(:search IS NULL OR :search = '' OR " +
+           "LOWER(u.name) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
+           "LOWER(u.email) LIKE LOWER(CONCAT('%', :search, '%'))) AND " +
+           "(:accountType IS NULL OR u.accountType = :accountType) AND " +
+           "(:status IS NULL OR u.status = :status)")
+    long countUsersWithFilters(@Param("search") String search,
+                               @Param("accountType") com.mphoola.e_empuzitsi.entity.AccountType accountType,
+                               @Param("status") com.mphoola.e_empuzitsi.entity.UserStatus status);
 }
@@ -0,0 +1,48 @@
+package com.mphoola.e_empuzitsi.repository;
+
+import com.mphoola.e_empuzitsi.entity.AccountType;
+import com.mphoola.e_empuzitsi.entity.User;
+import com.mphoola.e_empuzitsi.entity.UserStatus;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * User graph loading and bulk selection implemented by {@link UserRepositoryImpl}
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Find a user with roles, role permissions and direct permissions initialized
+     */
+    @Transactional(readOnly = true)
+    Optional<User> findByEmailWithRolesAndPermissions(String email);
+
+    /**
+     * Find a user with roles, role permissions and direct permissions initialized
+     */
+    @Transactional(readOnly = true)
+    Optional<User> findByIdWithRolesAndPermissions(Long id);
+
+    /**
+     * Find a user with its roles initialized, for callers that read permissions from the
+     * materialized effective permissions instead of the role graph
+     */
+    @Transactional(readOnly = true)
+    Optional<User> findByEmailWithRoles(String email);
+
+    /**
+     * Find a user with its roles initialized
+     */
+    @Transactional(readOnly = true)
+    Optional<User> findByIdWithRoles(Long id);
+
+    /**
+     * Ids of the users a bulk operation targets, in id order: the given ids that exist, or when
+     * none are given every user matching the filters (null filters match everything)
+     */
+    @Transactional(readOnly = true)
+    List<Long> findIdsForSelection(Collection<Long> ids, AccountType accountType, UserStatus status, Long roleId);
+}
@@ -0,0 +1,133 @@
+package com.mphoola.e_empuzitsi.repository;
+
+import com.mphoola.e_empuzitsi.entity.AccountType;
+import com.mphoola.e_empuzitsi.entity.Role;
+import com.mphoola.e_empuzitsi.entity.User;
+import com.mphoola.e_empuzitsi.entity.UserRole;
+import com.mphoola.e_empuzitsi.entity.UserStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Loads a user's roles and permissions one collection per query.
+ *
+ * Fetching every collection in a single join returns one row per combination of role permission
+ * and direct permission, so a user with 3 roles of 40 permissions and 10 direct permissions costs
+ * 1200 rows for 130 distinct values. Here each query fetches one collection, keyed by the user or
+ * by the role ids from the previous step, and the collections initialize on the same managed
+ * instances: 3 + 120 + 10 rows in three statements.
+ */
+class UserRepositoryImpl implements UserRepositoryCustom {
+
+    // Keeps IN lists well below the bind parameter limits of the drivers
+    static final int SELECTION_CHUNK_SIZE = 1000;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Optional<User> findByEmailWithRolesAndPermissions(String email) {
+        return loadGraph(userWithRolesByEmail(email));
+    }
+
+    @Override
+    public Optional<User> findByIdWithRolesAndPermissions(Long id) {
+        return loadGraph(userWithRolesById(id));
+    }
+
+    @Override
+    public Optional<User> findByEmailWithRoles(String email) {
+        return userWithRolesByEmail(email).getResultList().stream().findFirst();
+    }
+
+    @Override
+    public Optional<User> findByIdWithRoles(Long id) {
+        return userWithRolesById(id).getResultList().stream().findFirst();
+    }
+
+    @Override
+    public List<Long> findIdsForSelection(Collection<Long> ids, AccountType accountType, UserStatus status, Long roleId) {
+        if (ids == null || ids.isEmpty()) {
+            return entityManager.createQuery(
+                    "SELECT u.id FROM User u WHERE " +
+                    "(:accountType IS NULL OR u.accountType = :accountType) AND " +
+                    "(:status IS NULL OR u.status = :status) AND " +
+                    "(:roleId IS NULL OR EXISTS (SELECT 1 FROM UserRole ur WHERE ur.user = u AND ur.role.id = :roleId)) " +
+                    "ORDER BY u.id", Long.class)
+                    .setParameter("accountType", accountType)
+                    .setParameter("status", status)
+                    .setParameter("roleId", roleId)
+                    .getResultList();
+        }
+
+        List<Long> requested = ids.stream().filter(Objects::nonNull).distinct().sorted().toList();
+        List<Long> existing = new ArrayList<>(requested.size());
+        for (int from = 0; from < requested.size(); from += SELECTION_CHUNK_SIZE) {
+            existing.addAll(entityManager.createQuery(
+                    "SELECT u.id FROM User u WHERE u.id IN :ids ORDER BY u.id", Long.class)
+                    .setParameter("ids", requested.subList(from, Math.min(from + SELECTION_CHUNK_SIZE, requested.size())))
+                    .getResultList());
+        }
+        return existing;
+    }
+
+    private TypedQuery<User> userWithRolesByEmail(String email) {
+        return entityManager.createQuery(
+                "SELECT u FROM User u " +
+                "LEFT JOIN FETCH u.userRoles ur " +
+                "LEFT JOIN FETCH ur.role " +
+                "WHERE u.email = :email", User.class)
+                .setParameter("email", email);
+    }
+
+    private TypedQuery<User> userWithRolesById(Long id) {
+        return entityManager.createQuery(
+                "SELECT u FROM User u " +
+                "LEFT JOIN FETCH u.userRoles ur " +
+                "LEFT JOIN FETCH ur.role " +
+                "WHERE u.id = :id", User.class)
+                .setParameter("id", id);
+    }
+
+    private Optional<User> loadGraph(TypedQuery<User> userWithRoles) {
+        List<User> users = userWithRoles.getResultList();
+        if (users.isEmpty()) {
+            return Optional.empty();
+        }
+        User user = users.get(0);
+
+        // One row per role permission; fills Role.permissions on the roles loaded above
+        List<Long> roleIds = user.getUserRoles() == null ? List.of() : user.getUserRoles().stream()
+                .map(UserRole::getRole)
+                .filter(Objects::nonNull)
+                .map(Role::getId)
+                .distinct()
+                .toList();
+        if (!roleIds.isEmpty()) {
+            entityManager.createQuery(
+                    "SELECT DISTINCT r FROM Role r " +
+                    "LEFT JOIN FETCH r.permissions " +
+                    "WHERE r.id IN :roleIds", Role.class)
+                    .setParameter("roleIds", roleIds)
+                    .getResultList();
+        }
+
+        // One row per direct permission; fills User.userPermissions on the same user
+        entityManager.createQuery(
+                "SELECT u FROM User u " +
+                "LEFT JOIN FETCH u.userPermissions up " +
+                "LEFT JOIN FETCH up.permission " +
+                "WHERE u.id = :id", User.class)
+                .setParameter("id", user.getId())
+                .getResultList();
+
+        return Optional.of(user);
+    }
+}
@@ -2,10 +2,13 @@ package com.mphoola.e_empuzitsi.repository;
 
 import com.mphoola.e_empuzitsi.entity.UserRole;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,4 +29,15 @@ public interface UserRoleRepository extends JpaRepository<UserRole, Long> {
     List<UserRole> findByUserIdWithRole(@Param("userId") Long userId);
     
     void deleteByUserIdAndRoleId(Long userId, Long roleId);
+    
+    // Set-based assignment: links every given user that does not hold the role yet, in one statement
+    @Modifying
+    @Query(value = "INSERT INTO user_roles (user_id, role_id, created_at, updated_at) " +
+           "SELECT u.id, :roleId, :now, :now FROM users u " +
+           "WHERE u.id IN (:userIds) " +
+           "AND NOT EXISTS (SELECT 1 FROM user_roles ur WHERE ur.user_id = u.id AND ur.role_id = :roleId)",
+           nativeQuery = true)
+    int insertMissing(@Param("roleId") Long roleId,
+                      @Param("userIds") Collection<Long> userIds,
+                      @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,79 @@
+package com.mphoola.e_empuzitsi.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt encoder whose cost factor is chosen for the host it runs on.
+ *
+ * {@link #calibrate} times a hash at the minimum cost and raises the cost (each step doubles the
+ * work) while the estimate stays within the latency budget. Hashes stored with a lower cost are
+ * reported by {@link #upgradeEncoding} so they can be rehashed on the next successful login. Higher
+ * costs are kept: a slower node calibrating lower must not weaken hashes written by faster ones.
+ */
+public class AdaptiveBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveBCryptPasswordEncoder.class);
+
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+    private static final int SAMPLES = 3;
+
+    private final int strength;
+
+    public AdaptiveBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int cost = costOf(encodedPassword);
+        return cost > 0 && cost < strength;
+    }
+
+    /**
+     * Cost factor of a BCrypt hash, or -1 when the value is not a BCrypt hash
+     */
+    static int costOf(String encodedPassword) {
+        if (encodedPassword == null) {
+            return -1;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        return matcher.find() ? Integer.parseInt(matcher.group(1)) : -1;
+    }
+
+    /**
+     * Highest cost in {@code [minStrength, maxStrength]} whose hash is expected to take no longer
+     * than {@code budgetMillis} on this host
+     */
+    public static int calibrate(long budgetMillis, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(minStrength);
+        probe.encode("calibration"); // warm up
+
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double estimateMillis = best / 1_000_000.0;
+        int strength = minStrength;
+        while (strength < maxStrength && estimateMillis * 2 <= budgetMillis) {
+            strength++;
+            estimateMillis *= 2;
+        }
+
+        log.info("BCrypt cost calibrated to {} (~{} ms per hash, budget {} ms)",
+                strength, Math.round(estimateMillis), budgetMillis);
+        return strength;
+    }
+}
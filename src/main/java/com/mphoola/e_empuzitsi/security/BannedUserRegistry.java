@@ -0,0 +1,153 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.mphoola.e_empuzitsi.entity.UserStatus;
+import com.mphoola.e_empuzitsi.repository.UserRepository;
+import com.mphoola.e_empuzitsi.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.stream.LongStream;
+
+/**
+ * In-memory set of banned user ids, checked by {@link JwtAuthenticationFilter} on every request.
+ *
+ * Bans are rare and checks happen on every request, so the ids are kept as an immutable sorted
+ * {@code long[]} that is replaced on change: a check is a volatile read plus a binary search,
+ * with no boxing, no locking and 8 bytes per banned user. The set is loaded from the database
+ * before the web server accepts requests and kept current by {@code UserService.banUser}/{@code unbanUser}
+ * and their bulk variants. Those only update this process, so the set is also reloaded periodically
+ * to pick up bans committed by other instances.
+ */
+@Component
+public class BannedUserRegistry implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(BannedUserRegistry.class);
+
+    private static final long[] NONE = new long[0];
+
+    private final UserRepository userRepository;
+
+    private volatile long[] bannedIds = NONE;
+
+    public BannedUserRegistry(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        load();
+    }
+
+    /**
+     * Replace the set with the banned ids in the database. Local updates committed during the
+     * read wait for the lock and are applied on top of it.
+     */
+    @Scheduled(fixedDelayString = "${app.security.banned-users.reload-interval-ms:30000}",
+               initialDelayString = "${app.security.banned-users.reload-interval-ms:30000}")
+    public synchronized void load() {
+        long[] ids = userRepository.findIdsByStatus(UserStatus.BANNED).stream()
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+        bannedIds = ids;
+        log.debug("Loaded {} banned user(s)", ids.length);
+    }
+
+    /**
+     * Check if a user is banned
+     */
+    public boolean isBanned(Long userId) {
+        long[] ids = bannedIds;
+        return userId != null && ids.length > 0 && Arrays.binarySearch(ids, userId) >= 0;
+    }
+
+    /**
+     * Mark a user as banned. Inside a transaction this happens after commit.
+     */
+    public void ban(Long userId) {
+        if (userId != null) {
+            AfterCommit.run(() -> update(userId, true));
+        }
+    }
+
+    /**
+     * Lift a user's ban. Inside a transaction this happens after commit.
+     */
+    public void unban(Long userId) {
+        if (userId != null) {
+            AfterCommit.run(() -> update(userId, false));
+        }
+    }
+
+    /**
+     * Mark several users as banned with a single copy of the set. Inside a transaction this happens after commit.
+     */
+    public void banAll(Collection<Long> userIds) {
+        long[] ids = sortedIds(userIds);
+        if (ids.length > 0) {
+            AfterCommit.run(() -> updateAll(ids, true));
+        }
+    }
+
+    /**
+     * Lift several users' bans with a single copy of the set. Inside a transaction this happens after commit.
+     */
+    public void unbanAll(Collection<Long> userIds) {
+        long[] ids = sortedIds(userIds);
+        if (ids.length > 0) {
+            AfterCommit.run(() -> updateAll(ids, false));
+        }
+    }
+
+    /**
+     * Number of banned users
+     */
+    public int size() {
+        return bannedIds.length;
+    }
+
+    private synchronized void update(long userId, boolean banned) {
+        long[] ids = bannedIds;
+        int index = Arrays.binarySearch(ids, userId);
+        if (banned == (index >= 0)) {
+            return;
+        }
+
+        long[] next;
+        if (banned) {
+            int insertAt = -index - 1;
+            next = new long[ids.length + 1];
+            System.arraycopy(ids, 0, next, 0, insertAt);
+            next[insertAt] = userId;
+            System.arraycopy(ids, insertAt, next, insertAt + 1, ids.length - insertAt);
+        } else {
+            next = new long[ids.length - 1];
+            System.arraycopy(ids, 0, next, 0, index);
+            System.arraycopy(ids, index + 1, next, index, ids.length - index - 1);
+        }
+        bannedIds = next;
+    }
+
+    private synchronized void updateAll(long[] sortedIds, boolean banned) {
+        long[] ids = bannedIds;
+        bannedIds = banned
+                ? LongStream.concat(Arrays.stream(ids), Arrays.stream(sortedIds)).sorted().distinct().toArray()
+                : Arrays.stream(ids).filter(id -> Arrays.binarySearch(sortedIds, id) < 0).toArray();
+    }
+
+    private static long[] sortedIds(Collection<Long> userIds) {
+        return userIds.stream()
+                .filter(Objects::nonNull)
+                .mapToLong(Long::longValue)
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+}
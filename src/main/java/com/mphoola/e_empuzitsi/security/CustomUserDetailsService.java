@@ -1,42 +1,47 @@
 package com.mphoola.e_empuzitsi.security;
 
-import com.mphoola.e_empuzitsi.entity.Permission;
 import com.mphoola.e_empuzitsi.entity.Role;
 import com.mphoola.e_empuzitsi.entity.User;
-import com.mphoola.e_empuzitsi.entity.UserPermission;
 import com.mphoola.e_empuzitsi.entity.UserRole;
 import com.mphoola.e_empuzitsi.repository.UserRepository;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Loads principals through {@link UserPrincipalCache}. Not transactional: cache hits never touch
+ * the database, and a miss loads the user with its roles in its own read-only transaction and
+ * takes the permissions from {@link EffectivePermissionStore}.
+ */
 @Service
-@Transactional
 public class CustomUserDetailsService implements UserDetailsService {
     
     private final UserRepository userRepository;
+    private final PermissionEpochRegistry permissionEpochRegistry;
+    private final UserPrincipalCache userPrincipalCache;
+    private final PermissionIndex permissionIndex;
+    private final EffectivePermissionStore effectivePermissionStore;
     
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, PermissionEpochRegistry permissionEpochRegistry,
+                                    UserPrincipalCache userPrincipalCache, PermissionIndex permissionIndex,
+                                    EffectivePermissionStore effectivePermissionStore) {
         this.userRepository = userRepository;
+        this.permissionEpochRegistry = permissionEpochRegistry;
+        this.userPrincipalCache = userPrincipalCache;
+        this.permissionIndex = permissionIndex;
+        this.effectivePermissionStore = effectivePermissionStore;
     }
     
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         try {
-            // Use specialized method to eagerly load roles and permissions
-            User user = userRepository.findByEmailWithRolesAndPermissions(email)
-                    .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
-            
-            return UserPrincipal.create(user, getAuthorities(user));
-            
+            return userPrincipalCache.getByEmail(email, this::loadPrincipalByEmail);
         } catch (Exception e) {
             throw new UsernameNotFoundException("User not found with email: " + email);
         }
@@ -46,11 +51,37 @@ public class CustomUserDetailsService implements UserDetailsService {
      * Load user by ID for JWT authentication
      */
     public UserDetails loadUserById(Long id) {
-        // Use specialized method to eagerly load roles and permissions
-        User user = userRepository.findByIdWithRolesAndPermissions(id)
+        return userPrincipalCache.getById(id, this::loadPrincipalById);
+    }
+    
+    private UserPrincipal loadPrincipalByEmail(String email) {
+        long snapshot = permissionEpochRegistry.snapshot();
+        
+        User user = userRepository.findByEmailWithRoles(email)
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
+        
+        return createPrincipal(user, snapshot);
+    }
+    
+    private UserPrincipal loadPrincipalById(Long id) {
+        long snapshot = permissionEpochRegistry.snapshot();
+        
+        User user = userRepository.findByIdWithRoles(id)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id));
         
-        return UserPrincipal.create(user, getAuthorities(user));
+        return createPrincipal(user, snapshot);
+    }
+    
+    /**
+     * Build a principal stamped with the user's permission epoch and compiled authority bits.
+     * The user must be loaded with its roles, after {@code snapshot} was taken from
+     * {@link PermissionEpochRegistry#snapshot()}: a change that lands while the user is being loaded
+     * makes the principal stale, never fresh.
+     */
+    public UserPrincipal createPrincipal(User user, long snapshot) {
+        long epoch = permissionEpochRegistry.stampFor(user.getId(), snapshot);
+        Collection<? extends GrantedAuthority> authorities = getAuthorities(user);
+        return UserPrincipal.create(user, authorities, epoch, permissionIndex.bitsOf(authorities));
     }
     
     /**
@@ -65,33 +96,18 @@ public class CustomUserDetailsService implements UserDetailsService {
                 for (UserRole userRole : user.getUserRoles()) {
                     Role role = userRole.getRole();
                     if (role != null) {
-                        // Add role as authority
-                        authorities.add(new SimpleGrantedAuthority("ROLE_" + role.getName()));
-                        
-                        // Add role permissions
-                        if (role.getPermissions() != null) {
-                            for (Permission permission : role.getPermissions()) {
-                                if (permission != null) {
-                                    authorities.add(new SimpleGrantedAuthority(permission.getName()));
-                                }
-                            }
-                        }
+                        authorities.add(permissionIndex.authority("ROLE_" + role.getName()));
                     }
                 }
             }
             
-            // Add user-specific permissions (overrides)
-            if (user.getUserPermissions() != null) {
-                for (UserPermission userPermission : user.getUserPermissions()) {
-                    Permission permission = userPermission.getPermission();
-                    if (permission != null) {
-                        authorities.add(new SimpleGrantedAuthority(permission.getName()));
-                    }
-                }
+            // Role and direct permissions, already merged in the materialized table
+            for (String permission : effectivePermissionStore.permissionNames(user.getId())) {
+                authorities.add(permissionIndex.authority(permission));
             }
         } catch (Exception e) {
             // Return basic user authority if role/permission loading fails
-            authorities.add(new SimpleGrantedAuthority("ROLE_USER"));
+            authorities.add(permissionIndex.authority("ROLE_USER"));
         }
         
         return authorities;
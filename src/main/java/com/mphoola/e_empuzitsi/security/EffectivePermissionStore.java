@@ -0,0 +1,147 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mphoola.e_empuzitsi.config.SeedGuard;
+import com.mphoola.e_empuzitsi.repository.UserEffectivePermissionRepository;
+import com.mphoola.e_empuzitsi.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Effective permission names per user, materialized in {@code user_effective_permissions} and
+ * mirrored in a bounded in-memory cache.
+ *
+ * Reading a user's permissions is a single lookup on the table's primary key instead of a walk
+ * through roles, role permissions and direct permissions, and a mirror hit does not touch the
+ * database at all. Every write to {@code user_roles}, {@code role_permissions} or
+ * {@code user_permissions} must call {@link #refresh} for the affected users (every holder, when a
+ * role's permissions change) in the same transaction, before bumping their permission epochs, so
+ * the mirror is invalidated ahead of the principals. The table is shared by every instance, the
+ * mirror is not: other instances see a change once their entries expire after {@code ttl-seconds}.
+ *
+ * The table is checked once every singleton exists, before the web server accepts requests. It is
+ * rebuilt in full only when it is empty or the statement deriving it has changed since the last
+ * rebuild, under {@link SeedGuard} so instances starting together rebuild it once.
+ */
+@Component
+public class EffectivePermissionStore implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(EffectivePermissionStore.class);
+
+    static final String REBUILD_NAME = "user_effective_permissions";
+    static final String REBUILD_CHECKSUM = SeedGuard.sha256(UserEffectivePermissionRepository.INSERT_ALL);
+
+    // Users per DELETE/INSERT ... SELECT pair, keeps IN lists below the drivers' bind limits
+    static final int REFRESH_CHUNK_SIZE = 1000;
+
+    private final UserEffectivePermissionRepository effectivePermissionRepository;
+    private final SeedGuard seedGuard;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<Long, Set<String>> mirror;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public EffectivePermissionStore(UserEffectivePermissionRepository effectivePermissionRepository,
+                                    SeedGuard seedGuard,
+                                    PlatformTransactionManager transactionManager,
+                                    @Value("${app.security.effective-permissions.max-size:10000}") long maxSize,
+                                    @Value("${app.security.effective-permissions.ttl-seconds:600}") long ttlSeconds) {
+        this.effectivePermissionRepository = effectivePermissionRepository;
+        this.seedGuard = seedGuard;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.mirror = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        boolean rebuilt = seedGuard.runIfChanged(REBUILD_NAME, REBUILD_CHECKSUM,
+                () -> !effectivePermissionRepository.hasRows(), this::rebuildRows);
+        if (rebuilt) {
+            invalidateAll();
+        } else {
+            log.info("Effective permissions are up to date, skipping rebuild");
+        }
+    }
+
+    /**
+     * Recompute the whole table from the source tables in one transaction
+     */
+    public synchronized void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> rebuildRows());
+        invalidateAll();
+    }
+
+    private void rebuildRows() {
+        effectivePermissionRepository.deleteAllRows();
+        int rows = effectivePermissionRepository.insertAll();
+        log.info("Materialized {} effective permission(s)", rows);
+    }
+
+    /**
+     * Effective permission names of a user, from the mirror or with one indexed query
+     */
+    public Set<String> permissionNames(Long userId) {
+        if (userId == null) {
+            return Set.of();
+        }
+        Set<String> cached = mirror.getIfPresent(userId);
+        if (cached != null) {
+            return cached;
+        }
+
+        long generation = invalidations.get();
+        Set<String> names = Set.copyOf(effectivePermissionRepository.findPermissionNamesByUserId(userId));
+        mirror.put(userId, names);
+
+        // An invalidation while loading means the rows read may predate a change
+        if (invalidations.get() != generation) {
+            mirror.invalidate(userId);
+        }
+        return names;
+    }
+
+    /**
+     * Recompute the rows of the given users from their current roles and direct permissions.
+     * Pending entity changes are flushed first so the statements see them; the mirror is
+     * invalidated after commit.
+     */
+    public void refresh(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = userIds.stream().filter(Objects::nonNull).distinct().toList();
+
+        effectivePermissionRepository.flush();
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, ids.size()));
+            effectivePermissionRepository.deleteByUserIdIn(chunk);
+            effectivePermissionRepository.insertForUsers(chunk);
+        }
+        AfterCommit.run(() -> invalidate(ids));
+    }
+
+    private void invalidate(Collection<Long> userIds) {
+        invalidations.incrementAndGet();
+        mirror.invalidateAll(userIds);
+    }
+
+    private void invalidateAll() {
+        invalidations.incrementAndGet();
+        mirror.invalidateAll();
+    }
+}
@@ -3,6 +3,7 @@ package com.mphoola.e_empuzitsi.security;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mphoola.e_empuzitsi.util.ApiResponse;
 import com.mphoola.e_empuzitsi.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -10,10 +11,12 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
@@ -22,6 +25,10 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.Map;
 
 @Component
@@ -32,11 +39,28 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
     private final ObjectMapper objectMapper;
+    private final PermissionEpochRegistry permissionEpochRegistry;
+    private final PermissionIndex permissionIndex;
+    private final TokenDenyList tokenDenyList;
+    private final BannedUserRegistry bannedUserRegistry;
     
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService, ObjectMapper objectMapper) {
+    @Value("${app.jwt.claims-auth-enabled:false}")
+    private boolean claimsAuthEnabled = false;
+    
+    // Older tokens are re-checked against the database even while their epoch is current
+    @Value("${app.jwt.claims-max-age-seconds:600}")
+    private long claimsMaxAgeSeconds = 600;
+    
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService, ObjectMapper objectMapper,
+                                   PermissionEpochRegistry permissionEpochRegistry, PermissionIndex permissionIndex,
+                                   TokenDenyList tokenDenyList, BannedUserRegistry bannedUserRegistry) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
         this.objectMapper = objectMapper;
+        this.permissionEpochRegistry = permissionEpochRegistry;
+        this.permissionIndex = permissionIndex;
+        this.tokenDenyList = tokenDenyList;
+        this.bannedUserRegistry = bannedUserRegistry;
     }
     
     @Override
@@ -50,12 +74,30 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             
             if (StringUtils.hasText(jwt)) {
                 try {
-                    // Try to validate and extract username
-                    String username = jwtUtil.getUsernameFromToken(jwt);
+                    // Validate once and read every claim we need
+                    Claims claims = jwtUtil.getClaimsFromToken(jwt);
+                    String username = claims.getSubject();
                     
-                    // Load user details
-                    UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+                    // Bloom filter first, the deny-list table is only queried on a positive
+                    if (tokenDenyList.isRevoked(jwtUtil.getTokenId(claims, jwt))) {
+                        log.warn("Revoked JWT token used for path: {}", request.getRequestURI());
+                        writeUnauthorized(response, "Token has been revoked. Please login again.");
+                        return;
+                    }
                     
+                    // Trust the signed authorities while the permission epoch is current, otherwise load user details
+                    UserDetails userDetails = principalFromClaims(claims);
+                    if (userDetails == null) {
+                        userDetails = userDetailsService.loadUserByUsername(username);
+                    }
+
+                    // Bans apply to tokens issued before them, checked in memory
+                    if (userDetails instanceof UserPrincipal principal && bannedUserRegistry.isBanned(principal.getId())) {
+                        log.warn("Banned user {} rejected for path: {}", username, request.getRequestURI());
+                        writeUnauthorized(response, "Account has been banned. Please contact administrator.");
+                        return;
+                    }
+
                     // Create authentication token
                     UsernamePasswordAuthenticationToken authentication = 
                             new UsernamePasswordAuthenticationToken(
@@ -74,7 +116,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                             request.getRequestURI(), ex.getMessage());
                     
                     // Handle expired JWT directly in the filter
-                    handleExpiredJwtException(response, ex);
+                    writeUnauthorized(response, "Token has expired. Please login again.");
                     return; // Stop further processing
                 } catch (Exception ex) {
                     log.warn("Invalid JWT token for path: {} - {}", 
@@ -92,14 +134,63 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     }
     
     /**
-     * Handle expired JWT exception by setting appropriate response
+     * Build the principal straight from the token claims.
+     * Returns null when claim-based authentication is disabled, the token predates the
+     * uid/epoch claims, was issued more than {@code claims-max-age-seconds} ago, or the user's
+     * roles or permissions changed since it was issued.
+     */
+    private UserPrincipal principalFromClaims(Claims claims) {
+        if (!claimsAuthEnabled || !issuedWithinMaxAge(claims)) {
+            return null;
+        }
+        
+        Long userId = claims.get(JwtUtil.CLAIM_USER_ID, Long.class);
+        Long epoch = claims.get(JwtUtil.CLAIM_PERMISSION_EPOCH, Long.class);
+        String authorities = claims.get(JwtUtil.CLAIM_AUTHORITIES, String.class);
+        Boolean emailVerified = claims.get(JwtUtil.CLAIM_EMAIL_VERIFIED, Boolean.class);
+        
+        // Verifying an email bumps the epoch, so a current token also carries the current verification state
+        if (userId == null || epoch == null || authorities == null || emailVerified == null
+                || !permissionEpochRegistry.isCurrent(userId, epoch)) {
+            return null;
+        }
+        
+        List<GrantedAuthority> grantedAuthorities = parseAuthorities(authorities);
+        return UserPrincipal.fromClaims(
+                userId,
+                claims.get(JwtUtil.CLAIM_NAME, String.class),
+                claims.getSubject(),
+                grantedAuthorities,
+                epoch,
+                emailVerified,
+                permissionIndex.bitsOf(grantedAuthorities));
+    }
+    
+    private boolean issuedWithinMaxAge(Claims claims) {
+        Date issuedAt = claims.getIssuedAt();
+        return issuedAt != null
+                && issuedAt.toInstant().isAfter(Instant.now().minusSeconds(claimsMaxAgeSeconds));
+    }
+    
+    private List<GrantedAuthority> parseAuthorities(String authorities) {
+        List<GrantedAuthority> result = new ArrayList<>();
+        for (String authority : authorities.split(",")) {
+            if (!authority.isEmpty()) {
+                result.add(permissionIndex.authority(authority));
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Reject an expired or revoked token directly from the filter
      */
-    private void handleExpiredJwtException(HttpServletResponse response, ExpiredJwtException ex) throws IOException {
+    private void writeUnauthorized(HttpServletResponse response, String message) throws IOException {
         response.setStatus(HttpStatus.UNAUTHORIZED.value());
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
         response.setCharacterEncoding("UTF-8");
         
-        Map<String, Object> errorResponse = ApiResponse.unauthorized("Token has expired. Please login again.").getBody();
+        Map<String, Object> errorResponse = ApiResponse.unauthorized(message).getBody();
         
         String jsonResponse = objectMapper.writeValueAsString(errorResponse);
         response.getWriter().write(jsonResponse);
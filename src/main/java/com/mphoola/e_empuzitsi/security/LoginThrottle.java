@@ -0,0 +1,182 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets for failed logins, keyed by client IP and by client IP and email together.
+ *
+ * Every attempt reserves a token from both buckets before the user lookup and the BCrypt check,
+ * and the token is handed back unless the credentials turn out to be wrong. Reserving up front
+ * means concurrent guesses are charged as they arrive instead of all passing a read-only check,
+ * and a credential-stuffing script costs a map lookup instead of a hash. The second bucket is keyed
+ * by IP as well, so failures from one client never lock the account out for everyone else.
+ *
+ * Each bucket is a single {@link AtomicLong} holding the time at which it will be full again
+ * (the GCRA form of a token bucket) and is updated with CAS, so no locks are taken. Buckets live
+ * in size-bounded Caffeine maps that drop idle keys once they would have refilled anyway.
+ */
+@Component
+public class LoginThrottle implements MeterBinder {
+
+    private final boolean enabled;
+    private final Limiter byIp;
+    private final Limiter byIpAndEmail;
+
+    @Autowired
+    public LoginThrottle(@Value("${app.security.login-throttle.enabled:true}") boolean enabled,
+                         @Value("${app.security.login-throttle.max-keys:100000}") long maxKeys,
+                         @Value("${app.security.login-throttle.ip.capacity:30}") int ipCapacity,
+                         @Value("${app.security.login-throttle.ip.refill-seconds:10}") long ipRefillSeconds,
+                         @Value("${app.security.login-throttle.ip-email.capacity:5}") int ipEmailCapacity,
+                         @Value("${app.security.login-throttle.ip-email.refill-seconds:60}") long ipEmailRefillSeconds) {
+        this(enabled, maxKeys, ipCapacity, ipRefillSeconds, ipEmailCapacity, ipEmailRefillSeconds, Ticker.systemTicker());
+    }
+
+    LoginThrottle(boolean enabled, long maxKeys,
+                  int ipCapacity, long ipRefillSeconds,
+                  int ipEmailCapacity, long ipEmailRefillSeconds,
+                  Ticker ticker) {
+        this.enabled = enabled;
+        this.byIp = new Limiter(maxKeys, ipCapacity, ipRefillSeconds, ticker);
+        this.byIpAndEmail = new Limiter(maxKeys, ipEmailCapacity, ipEmailRefillSeconds, ticker);
+    }
+
+    /**
+     * Reserve an attempt for this client and email. Returns 0 when reserved, otherwise the seconds
+     * until an attempt may be made; nothing is charged then.
+     */
+    public long tryAcquire(String clientIp, String email) {
+        if (!enabled) {
+            return 0;
+        }
+        String ipEmail = key(clientIp, email);
+        long ipWait = byIp.tryTake(clientIp);
+        if (ipWait > 0) {
+            byIp.rejected();
+            return toSeconds(ipWait);
+        }
+        long ipEmailWait = byIpAndEmail.tryTake(ipEmail);
+        if (ipEmailWait > 0) {
+            byIp.giveBack(clientIp);
+            byIpAndEmail.rejected();
+            return toSeconds(ipEmailWait);
+        }
+        return 0;
+    }
+
+    /**
+     * Hand back a reserved attempt that did not fail on bad credentials
+     */
+    public void release(String clientIp, String email) {
+        if (!enabled) {
+            return;
+        }
+        byIp.giveBack(clientIp);
+        byIpAndEmail.giveBack(key(clientIp, email));
+    }
+
+    private static long toSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    private static String key(String clientIp, String email) {
+        if (clientIp == null || email == null) {
+            return null;
+        }
+        return clientIp + '|' + email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        byIp.bindTo(registry, "ip");
+        byIpAndEmail.bindTo(registry, "ip_email");
+    }
+
+    /**
+     * One family of buckets sharing a capacity and refill rate
+     */
+    private static final class Limiter {
+
+        private final Cache<String, AtomicLong> buckets;
+        private final Ticker ticker;
+        private final long intervalNanos;
+        private final long burstNanos;
+        private volatile Counter rejectedCounter;
+
+        Limiter(long maxKeys, int capacity, long refillSeconds, Ticker ticker) {
+            this.ticker = ticker;
+            this.intervalNanos = TimeUnit.SECONDS.toNanos(refillSeconds);
+            // A bucket may run this far ahead of the clock before it is empty
+            this.burstNanos = intervalNanos * Math.max(0, capacity - 1);
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(Duration.ofNanos(intervalNanos * Math.max(1, capacity)))
+                    .ticker(ticker)
+                    .build();
+        }
+
+        /**
+         * Take a token if one is available, otherwise leave the bucket alone and return how long
+         * until one will be, in nanoseconds
+         */
+        long tryTake(String key) {
+            if (key == null) {
+                return 0;
+            }
+            AtomicLong bucket = buckets.get(key, ignored -> new AtomicLong(ticker.read()));
+            long now = ticker.read();
+            long current;
+            long next;
+            do {
+                current = bucket.get();
+                long start = Math.max(current, now);
+                long wait = start - now - burstNanos;
+                if (wait > 0) {
+                    return wait;
+                }
+                next = start + intervalNanos;
+            } while (!bucket.compareAndSet(current, next));
+            return 0;
+        }
+
+        void giveBack(String key) {
+            if (key == null) {
+                return;
+            }
+            AtomicLong bucket = buckets.getIfPresent(key);
+            if (bucket != null) {
+                // Refilling past now would bank tokens beyond the capacity
+                long now = ticker.read();
+                bucket.getAndUpdate(current -> Math.max(now, current - intervalNanos));
+            }
+        }
+
+        void rejected() {
+            Counter counter = rejectedCounter;
+            if (counter != null) {
+                counter.increment();
+            }
+        }
+
+        void bindTo(MeterRegistry registry, String key) {
+            rejectedCounter = Counter.builder("login.throttle.rejected")
+                    .tag("key", key)
+                    .description("Logins turned away because too many recent attempts failed")
+                    .register(registry);
+        }
+    }
+}
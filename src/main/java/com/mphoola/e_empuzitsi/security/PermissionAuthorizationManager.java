@@ -0,0 +1,161 @@
+package com.mphoola.e_empuzitsi.security;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.authorization.method.PreAuthorizeAuthorizationManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@code @PreAuthorize} manager that evaluates plain authority checks against the principal's
+ * compiled authority bits instead of SpEL.
+ *
+ * Expressions of the form {@code hasAuthority('a')}, {@code hasAnyAuthority('a', 'b')} or an
+ * {@code or} of those are compiled once per handler method into {@link PermissionIndex} ids.
+ * Anything else is delegated to the standard SpEL manager, so every existing expression keeps
+ * its meaning.
+ */
+public class PermissionAuthorizationManager implements AuthorizationManager<MethodInvocation> {
+
+    private static final AuthorizationDecision GRANTED = new AuthorizationDecision(true);
+    private static final AuthorizationDecision DENIED = new AuthorizationDecision(false);
+
+    private static final Pattern OR = Pattern.compile("\\s+or\\s+|\\s*\\|\\|\\s*");
+    private static final Pattern AUTHORITY_CHECK =
+            Pattern.compile("has(Any)?Authority\\(\\s*('[^']+'(\\s*,\\s*'[^']+')*)\\s*\\)");
+    private static final Pattern QUOTED = Pattern.compile("'([^']+)'");
+
+    private final PermissionIndex permissionIndex;
+    private final AuthorizationManager<MethodInvocation> fallback;
+    private final Map<Method, Rule> rules = new ConcurrentHashMap<>();
+
+    /**
+     * Required authorities of one method; granted when the principal holds any of them.
+     * A null {@code ids} means the expression is not a plain authority check.
+     */
+    private record Rule(int[] ids, String[] names) {
+        static final Rule SPEL = new Rule(null, null);
+    }
+
+    public PermissionAuthorizationManager(PermissionIndex permissionIndex) {
+        this(permissionIndex, new PreAuthorizeAuthorizationManager());
+    }
+
+    public PermissionAuthorizationManager(PermissionIndex permissionIndex,
+                                          AuthorizationManager<MethodInvocation> fallback) {
+        this.permissionIndex = permissionIndex;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public AuthorizationResult authorize(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        Rule rule = rules.get(invocation.getMethod());
+        if (rule == null) {
+            rule = rules.computeIfAbsent(invocation.getMethod(), method -> compile(method, invocation.getThis()));
+        }
+        if (rule.ids() == null) {
+            return fallback.authorize(authentication, invocation);
+        }
+        return hasAny(authentication.get(), rule) ? GRANTED : DENIED;
+    }
+
+    /**
+     * @deprecated use {@link #authorize(Supplier, MethodInvocation)}
+     */
+    @Override
+    @Deprecated
+    public AuthorizationDecision check(Supplier<Authentication> authentication, MethodInvocation invocation) {
+        AuthorizationResult result = authorize(authentication, invocation);
+        if (result == null || result instanceof AuthorizationDecision) {
+            return (AuthorizationDecision) result;
+        }
+        return result.isGranted() ? GRANTED : DENIED;
+    }
+
+    private boolean hasAny(Authentication authentication, Rule rule) {
+        if (authentication == null) {
+            return false;
+        }
+
+        if (authentication.getPrincipal() instanceof UserPrincipal principal && principal.getAuthorityBits() != null) {
+            long[] bits = principal.getAuthorityBits();
+            for (int id : rule.ids()) {
+                if (PermissionIndex.contains(bits, id)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        // Principals without compiled bits (e.g. test users) are checked by name
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            for (String name : rule.names()) {
+                if (name.equals(authority.getAuthority())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private Rule compile(Method method, Object target) {
+        Class<?> targetClass = target != null ? AopUtils.getTargetClass(target) : method.getDeclaringClass();
+        Method specificMethod = AopUtils.getMostSpecificMethod(method, targetClass);
+
+        PreAuthorize preAuthorize = AnnotatedElementUtils.findMergedAnnotation(specificMethod, PreAuthorize.class);
+        if (preAuthorize == null) {
+            preAuthorize = AnnotatedElementUtils.findMergedAnnotation(targetClass, PreAuthorize.class);
+        }
+        if (preAuthorize == null) {
+            return Rule.SPEL;
+        }
+
+        List<String> names = parse(preAuthorize.value());
+        if (names == null) {
+            return Rule.SPEL;
+        }
+
+        int[] ids = new int[names.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = permissionIndex.idOf(names.get(i));
+        }
+        return new Rule(ids, names.toArray(String[]::new));
+    }
+
+    /**
+     * Authority names of a plain authority check, or null for any other expression
+     */
+    static List<String> parse(String expression) {
+        List<String> names = new ArrayList<>();
+        for (String term : OR.split(expression.trim())) {
+            Matcher check = AUTHORITY_CHECK.matcher(term.trim());
+            if (!check.matches()) {
+                return null;
+            }
+            if (check.group(1) == null && check.group(3) != null) {
+                // hasAuthority takes exactly one argument
+                return null;
+            }
+
+            Matcher quoted = QUOTED.matcher(check.group(2));
+            while (quoted.find()) {
+                names.add(quoted.group(1));
+            }
+        }
+        return names.isEmpty() ? null : names;
+    }
+}
@@ -0,0 +1,121 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.mphoola.e_empuzitsi.util.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory "permission epoch" per user.
+ *
+ * Every token issued from a {@link UserPrincipal} carries the epoch that was current when the
+ * principal was loaded. Whenever a user's roles or permissions change the epoch is bumped, so
+ * the authorities embedded in older tokens are no longer trusted and the filter falls back to
+ * loading the user from the database.
+ *
+ * Epochs start from the boot time, which means tokens issued before a restart are never trusted
+ * from their claims alone.
+ *
+ * Epochs live in this process only and are bumped by local commits. With several instances, a
+ * change committed on one of them does not bump the epochs held by the others, which would keep
+ * trusting the claims of the tokens they issued. Claims authentication
+ * ({@code app.jwt.claims-auth-enabled}) is therefore off by default and only safe on a single
+ * instance; with it disabled, other instances catch up once their cached principals and mirrored
+ * permissions expire. Even when enabled, claims older than {@code app.jwt.claims-max-age-seconds}
+ * are not trusted, which bounds how long a missed bump can go unnoticed.
+ */
+@Component
+public class PermissionEpochRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(PermissionEpochRegistry.class);
+
+    /**
+     * Epoch that never matches, used for principals that may carry outdated authorities
+     */
+    public static final long STALE = -1L;
+
+    private final long bootEpoch;
+    private final AtomicLong sequence;
+    private final Map<Long, Long> userEpochs = new ConcurrentHashMap<>();
+
+    public PermissionEpochRegistry() {
+        this.bootEpoch = System.currentTimeMillis();
+        this.sequence = new AtomicLong(bootEpoch);
+    }
+
+    /**
+     * Current epoch of a user
+     */
+    public long currentEpoch(Long userId) {
+        if (userId == null) {
+            return bootEpoch;
+        }
+        return userEpochs.getOrDefault(userId, bootEpoch);
+    }
+    
+    /**
+     * Marker to take before a user's authorities are loaded, see {@link #stampFor(Long, long)}
+     */
+    public long snapshot() {
+        return sequence.get();
+    }
+    
+    /**
+     * Epoch to stamp on a principal whose authorities were loaded after {@code snapshot} was taken.
+     * If the user was bumped in the meantime the loaded authorities may predate the change, so
+     * {@link #STALE} is returned and tokens issued from that principal are never trusted.
+     */
+    public long stampFor(Long userId, long snapshot) {
+        long epoch = currentEpoch(userId);
+        return epoch > snapshot ? STALE : epoch;
+    }
+
+    /**
+     * Check if a token epoch still matches the user's current epoch
+     */
+    public boolean isCurrent(Long userId, long epoch) {
+        return userId != null && epoch != STALE && currentEpoch(userId) == epoch;
+    }
+
+    /**
+     * Invalidate the claims of every token issued to a user.
+     * Inside a transaction the bump is applied after commit so that a concurrent load can never
+     * pair the new epoch with the old authorities.
+     */
+    public void bump(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        bumpAll(List.of(userId));
+    }
+
+    /**
+     * Invalidate the claims of every token issued to the given users
+     */
+    public void bumpAll(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+
+        // Copied, the caller may reuse its collection before the commit
+        List<Long> pending = new ArrayList<>(userIds);
+        AfterCommit.run(() -> apply(pending));
+    }
+
+    private void apply(Collection<Long> userIds) {
+        long epoch = sequence.incrementAndGet();
+        for (Long userId : userIds) {
+            if (userId != null) {
+                userEpochs.put(userId, epoch);
+            }
+        }
+        log.debug("Bumped permission epoch to {} for {} user(s)", epoch, userIds.size());
+    }
+}
@@ -0,0 +1,86 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.mphoola.e_empuzitsi.config.DataInitializer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interns authority names (permissions and {@code ROLE_} names) to dense integer ids.
+ *
+ * The seeded permissions get the lowest ids at startup so that a principal's authorities fit in a
+ * few {@code long} words. Names seen later (custom permissions, roles) are interned on first use.
+ * Ids are never reused or reassigned while the application is running.
+ */
+@Component
+public class PermissionIndex {
+
+    private final Map<String, Interned> interned = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger();
+
+    private record Interned(int id, SimpleGrantedAuthority authority) {
+    }
+
+    public PermissionIndex() {
+        DataInitializer.PERMISSION_NAMES.forEach(this::idOf);
+    }
+
+    /**
+     * Dense id of an authority name, interning it if it has not been seen yet
+     */
+    public int idOf(String name) {
+        return intern(name).id();
+    }
+
+    /**
+     * Shared authority instance for a name, so principals do not each allocate their own
+     */
+    public GrantedAuthority authority(String name) {
+        return intern(name).authority();
+    }
+
+    /**
+     * Bitset of the given authorities, one bit per interned id
+     */
+    public long[] bitsOf(Collection<? extends GrantedAuthority> authorities) {
+        int[] ids = new int[authorities.size()];
+        int max = -1;
+        int count = 0;
+        for (GrantedAuthority authority : authorities) {
+            String name = authority.getAuthority();
+            if (name != null) {
+                int id = idOf(name);
+                ids[count++] = id;
+                max = Math.max(max, id);
+            }
+        }
+
+        long[] bits = new long[(max >> 6) + 1];
+        for (int i = 0; i < count; i++) {
+            bits[ids[i] >> 6] |= 1L << ids[i];
+        }
+        return bits;
+    }
+
+    /**
+     * Check if a bitset contains an id. Ids interned after the bitset was built are never set.
+     */
+    public static boolean contains(long[] bits, int id) {
+        int word = id >> 6;
+        return word < bits.length && (bits[word] & (1L << id)) != 0;
+    }
+
+    private Interned intern(String name) {
+        Interned existing = interned.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        return interned.computeIfAbsent(name,
+                key -> new Interned(nextId.getAndIncrement(), new SimpleGrantedAuthority(key)));
+    }
+}
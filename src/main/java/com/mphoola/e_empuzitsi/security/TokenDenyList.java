@@ -0,0 +1,144 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.mphoola.e_empuzitsi.entity.RevokedToken;
+import com.mphoola.e_empuzitsi.repository.RevokedTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Ids of JWTs revoked before their expiry, with a Bloom filter in front of the {@code revoked_tokens} table.
+ *
+ * Almost every token is not revoked, and for those the filter answers from memory without a query.
+ * Only a filter positive (a revoked token or a rare false positive) is confirmed against the table.
+ * Expired rows are purged on a schedule and the filter is rebuilt from what is left, which also
+ * picks up tokens revoked by other instances.
+ */
+@Component
+public class TokenDenyList {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenDenyList.class);
+
+    private record Revocation(String tokenId, LocalDateTime expiresAt) {
+    }
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final TransactionTemplate newTransactionTemplate;
+    private final long expectedTokens;
+    private final double falsePositiveRate;
+
+    private volatile BloomFilter filter;
+    // Revocations since the last swap, guarded by swapLock. Their rows may commit after a rebuild
+    // has read the table, so the rebuilt filter gets them too before it is published.
+    private final List<Revocation> sinceSwap = new ArrayList<>();
+    private final Object swapLock = new Object();
+
+    public TokenDenyList(RevokedTokenRepository revokedTokenRepository,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${app.security.token-deny-list.expected-tokens:100000}") long expectedTokens,
+                         @Value("${app.security.token-deny-list.false-positive-rate:0.001}") double falsePositiveRate) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.newTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.newTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.expectedTokens = expectedTokens;
+        this.falsePositiveRate = falsePositiveRate;
+        this.filter = new BloomFilter(expectedTokens, falsePositiveRate);
+    }
+
+    /**
+     * Check if a token id was revoked, querying the table only when the filter says it might be
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !filter.mightContain(tokenId)) {
+            return false;
+        }
+        return revokedTokenRepository.existsByTokenId(tokenId);
+    }
+
+    /**
+     * Revoke a token until it would have expired. Revoking it twice, even concurrently, is a no-op.
+     */
+    public void revoke(String tokenId, Long userId, Date expiresAt) {
+        LocalDateTime expiry = toLocalDateTime(expiresAt);
+        synchronized (swapLock) {
+            filter.put(tokenId);
+            sinceSwap.add(new Revocation(tokenId, expiry));
+        }
+
+        if (revokedTokenRepository.existsByTokenId(tokenId)) {
+            return;
+        }
+        try {
+            // Own transaction, so a duplicate key only rolls back this insert
+            newTransactionTemplate.executeWithoutResult(status -> revokedTokenRepository.saveAndFlush(RevokedToken.builder()
+                    .tokenId(tokenId)
+                    .userId(userId)
+                    .expiresAt(expiry)
+                    .revokedAt(LocalDateTime.now())
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Token {} was revoked concurrently", tokenId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    /**
+     * Drop rows of tokens that have expired anyway and rebuild the filter from the rest
+     */
+    @Scheduled(fixedDelayString = "${app.security.token-deny-list.purge-interval-ms:600000}",
+               initialDelayString = "${app.security.token-deny-list.purge-interval-ms:600000}")
+    @Transactional
+    public void purgeAndRebuild() {
+        int purged = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (purged > 0) {
+            log.debug("Purged {} expired revoked tokens", purged);
+        }
+        rebuild();
+    }
+
+    private synchronized void rebuild() {
+        LocalDateTime now = LocalDateTime.now();
+        BloomFilter building = new BloomFilter(expectedTokens, falsePositiveRate);
+        List<String> tokenIds = revokedTokenRepository.findActiveTokenIds(now);
+        if (tokenIds.size() > expectedTokens) {
+            log.warn("{} revoked tokens exceed the expected {}, the deny-list filter will query more often",
+                    tokenIds.size(), expectedTokens);
+        }
+        tokenIds.forEach(building::put);
+
+        synchronized (swapLock) {
+            for (Revocation revocation : sinceSwap) {
+                if (revocation.expiresAt().isAfter(now)) {
+                    building.put(revocation.tokenId());
+                }
+            }
+            sinceSwap.clear();
+            filter = building;
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Date date) {
+        Instant instant = date != null ? date.toInstant() : Instant.now();
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+}
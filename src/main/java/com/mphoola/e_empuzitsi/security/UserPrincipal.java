@@ -17,17 +17,41 @@ public class UserPrincipal implements UserDetails {
     private String email;
     private String password;
     private Collection<? extends GrantedAuthority> authorities;
+    private long permissionEpoch;
+    private boolean emailVerified;
+    
+    /**
+     * Authorities as a bitset of {@link PermissionIndex} ids, null when not compiled
+     */
+    private long[] authorityBits;
     
     public static UserPrincipal create(User user, Collection<? extends GrantedAuthority> authorities) {
+        return create(user, authorities, 0L, null);
+    }
+    
+    public static UserPrincipal create(User user, Collection<? extends GrantedAuthority> authorities,
+                                       long permissionEpoch, long[] authorityBits) {
         return new UserPrincipal(
                 user.getId(),
                 user.getName(),
                 user.getEmail(),
                 user.getPassword(),
-                authorities
+                authorities,
+                permissionEpoch,
+                user.isEmailVerified(),
+                authorityBits
         );
     }
     
+    /**
+     * Rebuild a principal from signed token claims (no password, no database access)
+     */
+    public static UserPrincipal fromClaims(Long id, String name, String email,
+                                           Collection<? extends GrantedAuthority> authorities,
+                                           long permissionEpoch, boolean emailVerified, long[] authorityBits) {
+        return new UserPrincipal(id, name, email, null, authorities, permissionEpoch, emailVerified, authorityBits);
+    }
+    
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return authorities;
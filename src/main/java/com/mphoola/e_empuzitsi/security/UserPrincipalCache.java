@@ -0,0 +1,174 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.mphoola.e_empuzitsi.util.AfterCommit;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.ConcurrentStatsCounter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded, expiring cache of {@link UserPrincipal} in front of {@link CustomUserDetailsService}.
+ *
+ * Principals are stored by email with a secondary id to email index, so lookups by either key
+ * share one entry and evicting a user id drops it for both. Hit ratio, evictions and load times
+ * are published as the {@code user.principals} cache metrics.
+ */
+@Component
+public class UserPrincipalCache implements MeterBinder {
+
+    public static final String CACHE_NAME = "user.principals";
+
+    private final Cache<String, UserPrincipal> principalsByEmail;
+    private final Cache<Long, String> emailsById;
+    private final ConcurrentStatsCounter stats = new ConcurrentStatsCounter();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserPrincipalCache(@Value("${app.security.principal-cache.max-size:10000}") long maxSize,
+                              @Value("${app.security.principal-cache.ttl-seconds:600}") long ttlSeconds) {
+        this.principalsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats(() -> stats)
+                .build();
+        this.emailsById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    /**
+     * Get a principal by email, loading and caching it on a miss
+     */
+    public UserPrincipal getByEmail(String email, Function<String, UserPrincipal> loader) {
+        UserPrincipal cached = principalsByEmail.getIfPresent(email);
+        if (cached != null) {
+            return cached;
+        }
+        return load(() -> loader.apply(email));
+    }
+
+    /**
+     * Get a principal by id, loading and caching it on a miss
+     */
+    public UserPrincipal getById(Long id, Function<Long, UserPrincipal> loader) {
+        String email = emailsById.getIfPresent(id);
+        if (email != null) {
+            UserPrincipal cached = principalsByEmail.getIfPresent(email);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        return load(() -> loader.apply(id));
+    }
+
+    /**
+     * Load and cache a principal. If any eviction ran while it was loading, the entry is dropped
+     * again because the load may have read the state from before that change.
+     */
+    private UserPrincipal load(Supplier<UserPrincipal> loader) {
+        long generation = invalidations.get();
+        long start = System.nanoTime();
+
+        UserPrincipal principal;
+        try {
+            principal = loader.get();
+        } catch (RuntimeException e) {
+            stats.recordLoadFailure(System.nanoTime() - start);
+            throw e;
+        }
+        stats.recordLoadSuccess(System.nanoTime() - start);
+
+        if (principal != null) {
+            principalsByEmail.put(principal.getEmail(), principal);
+            if (principal.getId() != null) {
+                emailsById.put(principal.getId(), principal.getEmail());
+            }
+            if (invalidations.get() != generation) {
+                principalsByEmail.invalidate(principal.getEmail());
+            }
+        }
+        return principal;
+    }
+
+    /**
+     * Evict a user. Inside a transaction the eviction happens after commit so that a load
+     * running concurrently with the change cannot put the old state back.
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        evictAll(List.of(userId));
+    }
+
+    /**
+     * Evict several users, e.g. every holder of a changed role
+     */
+    public void evictAll(Collection<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return;
+        }
+
+        // Copied, the caller may reuse its collection before the commit
+        List<Long> pending = new ArrayList<>(userIds);
+        AfterCommit.run(() -> invalidate(pending));
+    }
+
+    private void invalidate(Collection<Long> userIds) {
+        invalidations.incrementAndGet();
+
+        Set<Long> unresolved = new HashSet<>();
+        for (Long userId : userIds) {
+            String email = emailsById.getIfPresent(userId);
+            if (email != null) {
+                principalsByEmail.invalidate(email);
+                emailsById.invalidate(userId);
+            } else {
+                unresolved.add(userId);
+            }
+        }
+
+        // The id index can lose an entry before the principal does; sweep once for those
+        if (!unresolved.isEmpty()) {
+            principalsByEmail.asMap().values().removeIf(principal -> unresolved.contains(principal.getId()));
+        }
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, principalsByEmail, CACHE_NAME);
+
+        // Caffeine only reports loads for a LoadingCache, ours are recorded by load() instead
+        FunctionCounter.builder("cache.load", stats, counter -> counter.snapshot().loadSuccessCount())
+                .tags("cache", CACHE_NAME, "result", "success")
+                .description("Number of principals loaded from the database")
+                .register(registry);
+        FunctionCounter.builder("cache.load", stats, counter -> counter.snapshot().loadFailureCount())
+                .tags("cache", CACHE_NAME, "result", "failure")
+                .description("Number of principal loads that failed")
+                .register(registry);
+        TimeGauge.builder("cache.load.duration", stats, TimeUnit.NANOSECONDS,
+                        counter -> counter.snapshot().totalLoadTime())
+                .tags("cache", CACHE_NAME)
+                .description("Time spent loading principals from the database")
+                .register(registry);
+    }
+}
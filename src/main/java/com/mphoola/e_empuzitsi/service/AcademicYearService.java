@@ -9,6 +9,7 @@ import com.mphoola.e_empuzitsi.repository.AcademicYearRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,10 +23,13 @@ public class AcademicYearService {
     
     private final AcademicYearRepository academicYearRepository;
     private final ActivityLogService activityLogService;
+    private final ApproximateCounts approximateCounts;
     
-    public AcademicYearService(AcademicYearRepository academicYearRepository, ActivityLogService activityLogService) {
+    public AcademicYearService(AcademicYearRepository academicYearRepository, ActivityLogService activityLogService,
+                               ApproximateCounts approximateCounts) {
         this.academicYearRepository = academicYearRepository;
         this.activityLogService = activityLogService;
+        this.approximateCounts = approximateCounts;
     }
     
     /**
@@ -52,6 +56,26 @@ public class AcademicYearService {
         return academicYears.map(this::mapToAcademicYearResponse);
     }
     
+    /**
+     * Get academic years as a slice, optionally by active status, without counting them
+     */
+    @Transactional(readOnly = true)
+    public Slice<AcademicYearResponse> getAcademicYearsSlice(Boolean isActive, Pageable pageable) {
+        Slice<AcademicYear> academicYears = isActive != null
+                ? academicYearRepository.findSliceByIsActive(isActive, pageable)
+                : academicYearRepository.findSliceBy(pageable);
+        
+        return academicYears.map(this::mapToAcademicYearResponse);
+    }
+    
+    /**
+     * Approximate number of academic years, optionally by active status, refreshed in the background
+     */
+    public long approximateAcademicYearCount(Boolean isActive) {
+        return approximateCounts.get("academic-years:" + isActive,
+                () -> isActive != null ? academicYearRepository.countByIsActive(isActive) : academicYearRepository.count());
+    }
+    
     /**
      * Get all academic years without pagination
      */
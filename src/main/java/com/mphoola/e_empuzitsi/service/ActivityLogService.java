@@ -5,18 +5,24 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mphoola.e_empuzitsi.entity.ActivityLog;
 import com.mphoola.e_empuzitsi.entity.User;
 import com.mphoola.e_empuzitsi.repository.ActivityLogRepository;
+import com.mphoola.e_empuzitsi.util.CursorPage;
+import com.mphoola.e_empuzitsi.util.KeysetCursor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.Function;
 
 @Service
 public class ActivityLogService {
@@ -25,10 +31,13 @@ public class ActivityLogService {
     
     private final ActivityLogRepository activityLogRepository;
     private final ObjectMapper objectMapper;
+    private final ApproximateCounts approximateCounts;
     
-    public ActivityLogService(ActivityLogRepository activityLogRepository, ObjectMapper objectMapper) {
+    public ActivityLogService(ActivityLogRepository activityLogRepository, ObjectMapper objectMapper,
+                              ApproximateCounts approximateCounts) {
         this.activityLogRepository = activityLogRepository;
         this.objectMapper = objectMapper;
+        this.approximateCounts = approximateCounts;
     }
     
     /**
@@ -99,6 +108,47 @@ public class ActivityLogService {
                                                     startDate, endDate, pageable);
     }
     
+    /**
+     * Find activity logs with combined filters as a slice, without counting the matches
+     */
+    public Slice<ActivityLog> findActivityLogsSliceWithFilters(String event, String subjectType,
+                                                              Long subjectId, Long causerId, LocalDateTime startDate,
+                                                              LocalDateTime endDate, Pageable pageable) {
+        return activityLogRepository.findSliceWithFilters(subjectType, subjectId, causerId, event,
+                                                         startDate, endDate, pageable);
+    }
+    
+    /**
+     * Approximate number of activity logs matching the event and subject type, refreshed in the
+     * background. Filters by id or date are counted exactly, their keys would rarely hit the cache.
+     */
+    public long approximateActivityLogCount(String event, String subjectType, Long subjectId, Long causerId,
+                                            LocalDateTime startDate, LocalDateTime endDate) {
+        if (subjectId != null || causerId != null || startDate != null || endDate != null) {
+            return activityLogRepository.countWithFilters(subjectType, subjectId, causerId, event, startDate, endDate);
+        }
+        String key = String.join(":", "activity-logs", event, subjectType);
+        return approximateCounts.get(key, () -> activityLogRepository.countWithFilters(
+                subjectType, subjectId, causerId, event, startDate, endDate));
+    }
+
+    /**
+     * Find activity logs with combined filters after a keyset cursor, newest first
+     */
+    public CursorPage<ActivityLog> findActivityLogsAfter(String event, String subjectType,
+                                                        Long subjectId, Long causerId, LocalDateTime startDate,
+                                                        LocalDateTime endDate, String after, int size, boolean withTotal) {
+        KeysetCursor cursor = KeysetCursor.decode(after, KeysetCursor.FIRST_DESCENDING);
+        List<ActivityLog> logs = activityLogRepository.findWithFiltersBefore(subjectType, subjectId, causerId, event,
+                startDate, endDate, cursor.createdAt(), cursor.id(), Limit.of(size + 1));
+        Long total = withTotal
+                ? activityLogRepository.countWithFilters(subjectType, subjectId, causerId, event, startDate, endDate)
+                : null;
+        
+        return CursorPage.of(logs, size, activityLog -> new KeysetCursor(activityLog.getCreatedAt(), activityLog.getId()),
+                Function.identity(), total);
+    }
+    
     /**
      * Convert object to JsonNode for properties storage
      */
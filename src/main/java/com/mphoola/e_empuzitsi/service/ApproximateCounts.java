@@ -0,0 +1,70 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * Cached row counts for paginated listings that want a total without a COUNT per page.
+ *
+ * The first request for a key counts synchronously. After that the cached value is served and,
+ * once it is older than the refresh interval, recounted in the background by the next request
+ * while the stale value is still returned. Totals are therefore approximate by up to one
+ * refresh interval. Keys nobody asks for expire.
+ *
+ * Recounts hold a JDBC connection, so they run on the application's {@code taskExecutor} rather
+ * than the common pool. Keys should come from a small set of filter values: callers count free-text
+ * and other high-cardinality filters exactly instead, as those keys would almost never be hit.
+ */
+@Component
+public class ApproximateCounts {
+
+    private record Count(long value, LongSupplier counter) {
+    }
+
+    private final LoadingCache<String, Count> counts;
+
+    @Autowired
+    public ApproximateCounts(@Value("${app.pagination.approximate-count.refresh-seconds:60}") long refreshSeconds,
+                             @Value("${app.pagination.approximate-count.max-entries:1000}") long maxEntries,
+                             @Qualifier("taskExecutor") Executor taskExecutor) {
+        this(refreshSeconds, maxEntries, Ticker.systemTicker(), taskExecutor);
+    }
+
+    ApproximateCounts(long refreshSeconds, long maxEntries, Ticker ticker, Executor executor) {
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .refreshAfterWrite(Duration.ofSeconds(refreshSeconds))
+                .expireAfterAccess(Duration.ofSeconds(refreshSeconds * 10))
+                .ticker(ticker)
+                .executor(executor)
+                .build(new CacheLoader<>() {
+                    @Override
+                    public Count load(@NonNull String key) {
+                        throw new IllegalStateException("Counts are loaded through get(key, counter)");
+                    }
+
+                    @Override
+                    public Count reload(@NonNull String key, @NonNull Count old) {
+                        return new Count(old.counter().getAsLong(), old.counter());
+                    }
+                });
+    }
+
+    /**
+     * Approximate count for a key, running {@code counter} only on a miss or a background refresh
+     */
+    public long get(String key, LongSupplier counter) {
+        return counts.get(key, k -> new Count(counter.getAsLong(), counter)).value();
+    }
+}
@@ -4,90 +4,131 @@ import com.mphoola.e_empuzitsi.dto.auth.AuthResponse;
 import com.mphoola.e_empuzitsi.dto.auth.LoginRequest;
 import com.mphoola.e_empuzitsi.dto.auth.RegisterRequest;
 import com.mphoola.e_empuzitsi.dto.user.UserResponse;
-import com.mphoola.e_empuzitsi.entity.Role;
 import com.mphoola.e_empuzitsi.entity.User;
 import com.mphoola.e_empuzitsi.entity.UserRole;
 import com.mphoola.e_empuzitsi.entity.UserStatus;
+import com.mphoola.e_empuzitsi.exception.BadCredentialsException;
 import com.mphoola.e_empuzitsi.exception.ResourceConflictException;
-import com.mphoola.e_empuzitsi.exception.ResourceNotFoundException;
+import com.mphoola.e_empuzitsi.exception.ServiceBusyException;
 import com.mphoola.e_empuzitsi.repository.RoleRepository;
 import com.mphoola.e_empuzitsi.repository.UserRepository;
-import com.mphoola.e_empuzitsi.repository.UserRoleRepository;
+import com.mphoola.e_empuzitsi.security.CustomUserDetailsService;
+import com.mphoola.e_empuzitsi.security.EffectivePermissionStore;
+import com.mphoola.e_empuzitsi.security.PermissionEpochRegistry;
+import com.mphoola.e_empuzitsi.security.TokenDenyList;
+import com.mphoola.e_empuzitsi.security.UserPrincipal;
 import com.mphoola.e_empuzitsi.util.JwtUtil;
-import org.springframework.security.authentication.AuthenticationManager;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class AuthService {
     
+    private static final Logger log = LoggerFactory.getLogger(AuthService.class);
+    
+    private record RegisteredUser(User user, DefaultRoleCache.DefaultRole defaultRole) {
+    }
+    
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
-    private final UserRoleRepository userRoleRepository;
+    private final DefaultRoleCache defaultRoleCache;
     private final UserService userService;
     private final PasswordEncoder passwordEncoder;
-    private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
+    private final CustomUserDetailsService userDetailsService;
+    private final PermissionEpochRegistry permissionEpochRegistry;
+    private final TokenDenyList tokenDenyList;
+    private final EffectivePermissionStore effectivePermissionStore;
+    private final TransactionTemplate transactionTemplate;
     
     public AuthService(UserRepository userRepository,
                       RoleRepository roleRepository,
-                      UserRoleRepository userRoleRepository,
+                      DefaultRoleCache defaultRoleCache,
                       UserService userService,
                       PasswordEncoder passwordEncoder,
-                      AuthenticationManager authenticationManager,
-                      JwtUtil jwtUtil) {
+                      JwtUtil jwtUtil,
+                      CustomUserDetailsService userDetailsService,
+                      PermissionEpochRegistry permissionEpochRegistry,
+                      TokenDenyList tokenDenyList,
+                      EffectivePermissionStore effectivePermissionStore,
+                      PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
-        this.userRoleRepository = userRoleRepository;
+        this.defaultRoleCache = defaultRoleCache;
         this.userService = userService;
         this.passwordEncoder = passwordEncoder;
-        this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
+        this.userDetailsService = userDetailsService;
+        this.permissionEpochRegistry = permissionEpochRegistry;
+        this.tokenDenyList = tokenDenyList;
+        this.effectivePermissionStore = effectivePermissionStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
     
     /**
-     * Register a new user
+     * Register a new user.
+     * The user, its STUDENT role link and its verification token are written in one transaction
+     * and the response is built from that in-memory state instead of reloading the user.
+     * The password is hashed first, outside any transaction, so no pooled connection is held while
+     * the hashing lane makes us wait.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AuthResponse register(RegisterRequest request) {
-        // Check if user already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new ResourceConflictException("User already exists with email: " + request.getEmail());
-        }
-        
-        // Generate verification token
-        String verificationToken = UUID.randomUUID().toString();
-        
-        // Create new user
-        User user = User.builder()
-                .name(request.getName())
-                .email(request.getEmail())
-                .password(passwordEncoder.encode(request.getPassword()))
-                .verificationToken(verificationToken)
-                .build();
-        
-        // Save user
-        User savedUser = userRepository.save(user);
+        String passwordHash = passwordEncoder.encode(request.getPassword());
         
-        // Assign default STUDENT role
-        assignDefaultRole(savedUser);
+        RegisteredUser registered = transactionTemplate.execute(status -> {
+            // Check if user already exists
+            if (userRepository.existsByEmail(request.getEmail())) {
+                throw new ResourceConflictException("User already exists with email: " + request.getEmail());
+            }
+            
+            DefaultRoleCache.DefaultRole defaultRole = defaultRoleCache.get();
+            
+            // Create new user with its verification token
+            User user = User.builder()
+                    .name(request.getName())
+                    .email(request.getEmail())
+                    .password(passwordHash)
+                    .verificationToken(UUID.randomUUID().toString())
+                    .build();
+            
+            // Default role link is cascaded from the user and flushed with it
+            UserRole userRole = UserRole.builder()
+                    .user(user)
+                    .role(roleRepository.getReferenceById(defaultRole.id()))
+                    .build();
+            user.setUserRoles(new HashSet<>(Set.of(userRole)));
+            
+            // Save user
+            User saved = userRepository.save(user);
+            effectivePermissionStore.refresh(List.of(saved.getId()));
+            return new RegisteredUser(saved, defaultRole);
+        });
+        User savedUser = registered.user();
+        DefaultRoleCache.DefaultRole defaultRole = registered.defaultRole();
         
         // Send verification email
-        userService.sendEmailVerification(savedUser.getEmail());
+        userService.sendVerificationEmail(savedUser);
         
         // Generate JWT token
         String token = jwtUtil.generateToken(savedUser.getEmail());
         
-        // Get user response with roles and permissions using UserService
-        // Reload user with roles and permissions
-        User userWithRoles = userRepository.findByEmailWithRolesAndPermissions(savedUser.getEmail())
-                .orElseThrow(() -> new ResourceNotFoundException("User not found after registration"));
-        UserResponse userResponse = userService.mapToUserResponse(userWithRoles);
+        UserResponse userResponse = userService.mapToUserResponse(
+                savedUser, Set.of(defaultRole.name()), defaultRole.permissions());
         
         return AuthResponse.builder()
                 .token(token)
@@ -96,55 +137,72 @@ public class AuthService {
     }
     
     /**
-     * Authenticate user and generate JWT token
+     * Authenticate user and generate JWT token.
+     * The user is loaded once with its roles and that entity serves the ban check, the password
+     * check, the token and the response; permissions come from the materialized effective permissions.
+     * Runs outside a transaction so no pooled connection is held while the password check waits for
+     * the hashing lane: each read borrows a connection only for its own statement.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public AuthResponse login(LoginRequest request) {
-        try {
-            // Check if user exists and is active
-            User user = userRepository.findByEmail(request.getEmail())
-                    .orElseThrow(() -> new com.mphoola.e_empuzitsi.exception.BadCredentialsException("Invalid email or password"));
-            
-            // Check if user is banned
-            if (user.getStatus() == UserStatus.BANNED) {
-                throw new com.mphoola.e_empuzitsi.exception.BadCredentialsException("Account has been banned. Please contact administrator.");
-            }
-            
-            // Authenticate user
-            Authentication authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                    request.getEmail(),
-                    request.getPassword()
-                )
-            );
-            
-            // Generate JWT token
-            String token = jwtUtil.generateToken(authentication);
-            
-            // Get user response with roles and permissions
-            UserResponse userResponse = userService.mapToUserResponse(user);
-            
-            return AuthResponse.builder()
-                    .token(token)
-                    .user(userResponse)
-                    .build();
-                    
-        } catch (AuthenticationException e) {
-            throw new com.mphoola.e_empuzitsi.exception.BadCredentialsException("Invalid email or password");
+        long snapshot = permissionEpochRegistry.snapshot();
+        
+        // Check if user exists, loading the roles the principal and the response need
+        User user = userRepository.findByEmailWithRoles(request.getEmail())
+                .orElseThrow(() -> new BadCredentialsException("Invalid email or password"));
+        
+        // Check if user is banned
+        if (user.getStatus() == UserStatus.BANNED) {
+            throw new BadCredentialsException("Account has been banned. Please contact administrator.");
+        }
+        
+        // Authenticate user
+        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+            throw new BadCredentialsException("Invalid email or password");
+        }
+        
+        // Bring the stored hash to the calibrated cost while we have the plain password
+        if (passwordEncoder.upgradeEncoding(user.getPassword())) {
+            upgradePasswordHash(user, request.getPassword());
         }
+        
+        // Generate JWT token
+        UserPrincipal principal = userDetailsService.createPrincipal(user, snapshot);
+        String token = jwtUtil.generateToken(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        
+        // Get user response with roles and permissions, the latter from the store's mirror by now
+        Set<String> roles = user.getUserRoles() == null ? Set.of() : user.getUserRoles().stream()
+                .map(userRole -> userRole.getRole().getName())
+                .collect(Collectors.toSet());
+        UserResponse userResponse = userService.mapToUserResponse(
+                user, roles, effectivePermissionStore.permissionNames(user.getId()));
+        
+        return AuthResponse.builder()
+                .token(token)
+                .user(userResponse)
+                .build();
     }
     
     /**
-     * Assign default STUDENT role to newly registered user
+     * Revoke a token so it is refused until it would have expired
      */
-    private void assignDefaultRole(User user) {
-        Role studentRole = roleRepository.findByName("STUDENT")
-                .orElseThrow(() -> new ResourceNotFoundException("STUDENT role not found. Please ensure roles are initialized."));
-        
-        UserRole userRole = UserRole.builder()
-                .user(user)
-                .role(studentRole)
-                .build();
-        
-        userRoleRepository.save(userRole);
+    public void logout(String token) {
+        Claims claims = jwtUtil.getClaimsFromToken(token);
+        tokenDenyList.revoke(
+                jwtUtil.getTokenId(claims, token),
+                claims.get(JwtUtil.CLAIM_USER_ID, Long.class),
+                claims.getExpiration());
+    }
+    
+    /**
+     * Rehash is best effort; a busy hashing lane must not fail an otherwise valid login
+     */
+    private void upgradePasswordHash(User user, String rawPassword) {
+        try {
+            userService.upgradePasswordHash(user, rawPassword);
+        } catch (ServiceBusyException e) {
+            log.debug("Skipping password rehash for user {}: {}", user.getId(), e.getMessage());
+        }
     }
 }
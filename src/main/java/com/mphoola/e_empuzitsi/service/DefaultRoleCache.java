@@ -0,0 +1,76 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.mphoola.e_empuzitsi.entity.Permission;
+import com.mphoola.e_empuzitsi.entity.Role;
+import com.mphoola.e_empuzitsi.exception.ResourceNotFoundException;
+import com.mphoola.e_empuzitsi.repository.RoleRepository;
+import com.mphoola.e_empuzitsi.util.AfterCommit;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * The role every self-registered user gets (STUDENT), loaded once with its permission names.
+ *
+ * Registration links new users to it by id without a lookup and builds the response from the
+ * cached names. {@link RoleService} invalidates it whenever a role is created, changed or deleted.
+ */
+@Component
+public class DefaultRoleCache {
+
+    public static final String DEFAULT_ROLE = "STUDENT";
+
+    public record DefaultRole(Long id, String name, Set<String> permissions) {
+    }
+
+    private final RoleRepository roleRepository;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private volatile DefaultRole cached;
+
+    public DefaultRoleCache(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * The default role, loading it on first use or after an invalidation
+     */
+    public DefaultRole get() {
+        DefaultRole role = cached;
+        if (role != null) {
+            return role;
+        }
+
+        long generation = invalidations.get();
+        role = load();
+        // Do not publish a load that may have read the state from before an invalidation
+        if (invalidations.get() == generation) {
+            cached = role;
+        }
+        return role;
+    }
+
+    private DefaultRole load() {
+        Role role = roleRepository.findByNameWithPermissions(DEFAULT_ROLE)
+                .orElseThrow(() -> new ResourceNotFoundException(DEFAULT_ROLE + " role not found. Please ensure roles are initialized."));
+
+        Set<String> permissions = role.getPermissions() == null ? Set.of() : role.getPermissions().stream()
+                .map(Permission::getName)
+                .collect(Collectors.toUnmodifiableSet());
+        return new DefaultRole(role.getId(), role.getName(), permissions);
+    }
+
+    /**
+     * Drop the cached role. Inside a transaction this happens after commit.
+     */
+    public void invalidate() {
+        AfterCommit.run(this::clear);
+    }
+
+    private void clear() {
+        invalidations.incrementAndGet();
+        cached = null;
+    }
+}
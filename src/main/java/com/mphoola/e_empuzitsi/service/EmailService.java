@@ -62,6 +62,14 @@ public class EmailService {
         }
     }
     
+    /**
+     * Queue an email behind other bulk emails, on a lane separate from transactional ones
+     */
+    @Async("bulkEmailTaskExecutor")
+    public void queueBulkEmail(EmailTemplate emailTemplate) {
+        sendEmail(emailTemplate);
+    }
+    
     /**
      * Send password reset email
      */
@@ -1,30 +1,30 @@
 package com.mphoola.e_empuzitsi.service;
 
 import com.mphoola.e_empuzitsi.dto.role.PermissionResponse;
-import com.mphoola.e_empuzitsi.entity.Permission;
-import com.mphoola.e_empuzitsi.repository.PermissionRepository;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
+/**
+ * Permissions are served from the {@link RoleCatalog}, so neither method opens a transaction
+ * unless the catalog has to be loaded.
+ */
 @Service
 public class PermissionService {
-    private final PermissionRepository permissionRepository;
+    private final RoleCatalog roleCatalog;
 
-    public PermissionService(PermissionRepository permissionRepository) {
-        this.permissionRepository = permissionRepository;
+    public PermissionService(RoleCatalog roleCatalog) {
+        this.roleCatalog = roleCatalog;
     }
 
-    @Transactional(readOnly = true)
     public List<PermissionResponse> getAllPermissions() {
-        List<Permission> permissions = permissionRepository.findAll();
-        return permissions.stream()
-                .map(permission -> PermissionResponse.builder()
-                        .id(permission.getId())
-                        .name(permission.getName())
-                        .build())
-                .collect(Collectors.toList());
+        return roleCatalog.get().permissions();
+    }
+
+    /**
+     * Strong ETag of the permission list, changing whenever the catalog is rebuilt
+     */
+    public String getPermissionsETag() {
+        return roleCatalog.eTag();
     }
 }
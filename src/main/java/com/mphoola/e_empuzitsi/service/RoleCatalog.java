@@ -0,0 +1,127 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.mphoola.e_empuzitsi.dto.role.PermissionResponse;
+import com.mphoola.e_empuzitsi.entity.Permission;
+import com.mphoola.e_empuzitsi.entity.Role;
+import com.mphoola.e_empuzitsi.repository.PermissionRepository;
+import com.mphoola.e_empuzitsi.repository.RoleRepository;
+import com.mphoola.e_empuzitsi.util.AfterCommit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of every permission and every role with its permission names.
+ *
+ * Permissions are only seeded at startup and roles only change through {@link RoleService}, which
+ * invalidates the catalog after each write commits; the next read loads a new snapshot in two
+ * queries. Each snapshot gets a higher version, served as a strong ETag so admin pages can
+ * revalidate their lists without a database round trip.
+ *
+ * Invalidation only reaches this process, so a snapshot is also reloaded once it is older than
+ * {@code app.roles.catalog.ttl-seconds}, which bounds how long writes made by other instances go
+ * unseen. A reload that finds nothing changed keeps the previous snapshot and its ETag.
+ */
+@Component
+public class RoleCatalog {
+
+    public record RoleEntry(Long id, String name, Set<String> permissions) {
+    }
+
+    public record Snapshot(long version, String eTag, List<PermissionResponse> permissions, List<RoleEntry> roles) {
+    }
+
+    private record Cached(Snapshot snapshot, long expiresAt) {
+    }
+
+    // Versions restart with the process, so tags also carry the start time
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+
+    private final RoleRepository roleRepository;
+    private final PermissionRepository permissionRepository;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong versions = new AtomicLong();
+    private final long ttlNanos;
+
+    private volatile Cached cached;
+
+    public RoleCatalog(RoleRepository roleRepository, PermissionRepository permissionRepository,
+                       @Value("${app.roles.catalog.ttl-seconds:60}") long ttlSeconds) {
+        this.roleRepository = roleRepository;
+        this.permissionRepository = permissionRepository;
+        this.ttlNanos = Duration.ofSeconds(ttlSeconds).toNanos();
+    }
+
+    /**
+     * The current snapshot, loading it on first use, after an invalidation or once it expired
+     */
+    public Snapshot get() {
+        Cached current = cached;
+        long now = System.nanoTime();
+        if (current != null && now - current.expiresAt() < 0) {
+            return current.snapshot();
+        }
+
+        long generation = invalidations.get();
+        Snapshot snapshot = load(current == null ? null : current.snapshot());
+        // Do not publish a load that may have read the state from before an invalidation
+        if (invalidations.get() == generation) {
+            cached = new Cached(snapshot, now + ttlNanos);
+        }
+        return snapshot;
+    }
+
+    /**
+     * ETag of the current snapshot
+     */
+    public String eTag() {
+        return get().eTag();
+    }
+
+    private Snapshot load(Snapshot previous) {
+        List<PermissionResponse> permissions = permissionRepository.findAll().stream()
+                .sorted(Comparator.comparing(Permission::getId))
+                .map(permission -> PermissionResponse.builder()
+                        .id(permission.getId())
+                        .name(permission.getName())
+                        .build())
+                .toList();
+
+        List<RoleEntry> roles = roleRepository.findAllWithPermissions().stream()
+                .map(this::toEntry)
+                .toList();
+
+        if (previous != null && previous.permissions().equals(permissions) && previous.roles().equals(roles)) {
+            return previous;
+        }
+        long version = versions.incrementAndGet();
+        return new Snapshot(version, "\"" + instance + "-" + version + "\"", permissions, roles);
+    }
+
+    private RoleEntry toEntry(Role role) {
+        Set<String> names = role.getPermissions() == null ? Set.of() : role.getPermissions().stream()
+                .map(Permission::getName)
+                .collect(Collectors.toCollection(TreeSet::new));
+        return new RoleEntry(role.getId(), role.getName(), Collections.unmodifiableSet(names));
+    }
+
+    /**
+     * Drop the snapshot. Inside a transaction this happens after commit.
+     */
+    public void invalidate() {
+        AfterCommit.run(this::clear);
+    }
+
+    private void clear() {
+        invalidations.incrementAndGet();
+        cached = null;
+    }
+}
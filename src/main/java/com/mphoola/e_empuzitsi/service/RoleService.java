@@ -5,25 +5,35 @@ import com.mphoola.e_empuzitsi.dto.role.RoleRequest;
 import com.mphoola.e_empuzitsi.dto.role.RoleResponse;
 import com.mphoola.e_empuzitsi.dto.role.RoleResponseSimple;
 import com.mphoola.e_empuzitsi.dto.user.UserResponseSimple;
+import com.mphoola.e_empuzitsi.dto.user.UserSummary;
 import com.mphoola.e_empuzitsi.entity.Permission;
 import com.mphoola.e_empuzitsi.entity.Role;
-import com.mphoola.e_empuzitsi.entity.User;
 import com.mphoola.e_empuzitsi.exception.ResourceConflictException;
 import com.mphoola.e_empuzitsi.exception.ResourceNotFoundException;
 import com.mphoola.e_empuzitsi.exception.RoleInUseException;
 import com.mphoola.e_empuzitsi.repository.PermissionRepository;
+import com.mphoola.e_empuzitsi.repository.RolePermissionRepository;
 import com.mphoola.e_empuzitsi.repository.RoleRepository;
 import com.mphoola.e_empuzitsi.repository.UserRepository;
+import com.mphoola.e_empuzitsi.security.EffectivePermissionStore;
+import com.mphoola.e_empuzitsi.security.PermissionEpochRegistry;
+import com.mphoola.e_empuzitsi.security.UserPrincipalCache;
+import com.mphoola.e_empuzitsi.util.CursorPage;
+import com.mphoola.e_empuzitsi.util.KeysetCursor;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Page;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
@@ -33,11 +43,29 @@ public class RoleService {
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
     private final UserRepository userRepository;
+    private final PermissionEpochRegistry permissionEpochRegistry;
+    private final UserPrincipalCache userPrincipalCache;
+    private final DefaultRoleCache defaultRoleCache;
+    private final RolePermissionRepository rolePermissionRepository;
+    private final ActivityLogService activityLogService;
+    private final EffectivePermissionStore effectivePermissionStore;
+    private final RoleCatalog roleCatalog;
 
-    public RoleService(RoleRepository roleRepository, PermissionRepository permissionRepository, UserRepository userRepository) {
+    public RoleService(RoleRepository roleRepository, PermissionRepository permissionRepository, UserRepository userRepository,
+                       PermissionEpochRegistry permissionEpochRegistry, UserPrincipalCache userPrincipalCache,
+                       DefaultRoleCache defaultRoleCache, RolePermissionRepository rolePermissionRepository,
+                       ActivityLogService activityLogService, EffectivePermissionStore effectivePermissionStore,
+                       RoleCatalog roleCatalog) {
         this.roleRepository = roleRepository;
         this.permissionRepository = permissionRepository;
         this.userRepository = userRepository;
+        this.permissionEpochRegistry = permissionEpochRegistry;
+        this.userPrincipalCache = userPrincipalCache;
+        this.defaultRoleCache = defaultRoleCache;
+        this.rolePermissionRepository = rolePermissionRepository;
+        this.activityLogService = activityLogService;
+        this.effectivePermissionStore = effectivePermissionStore;
+        this.roleCatalog = roleCatalog;
     }
     
     public RoleResponse createRole(RoleRequest request) {
@@ -49,6 +77,8 @@ public class RoleService {
                 .build();
         
         Role savedRole = roleRepository.save(role);
+        defaultRoleCache.invalidate();
+        roleCatalog.invalidate();
         
         return mapToRoleResponseWithoutPermissions(savedRole);
     }
@@ -57,19 +87,68 @@ public class RoleService {
         Role role = roleRepository.findByIdWithPermissions(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Role not found with id: " + id));
         
-        if (!role.getName().equals(request.getName()) && 
-            roleRepository.existsByNameAndIdNot(request.getName(), id)) {
+        boolean renamed = !role.getName().equals(request.getName());
+        if (renamed && roleRepository.existsByNameAndIdNot(request.getName(), id)) {
             throw new ResourceConflictException("Role already exists with name: " + request.getName());
         }
         
         Set<Permission> permissions = validateAndFetchPermissions(request.getPermissionIds());
         
-        role.setName(request.getName());
-        role.setPermissions(permissions);
+        // Diff against the current links: replacing the collection would make Hibernate delete and
+        // re-insert every role_permissions row of the role
+        Map<Long, String> current = new HashMap<>();
+        if (role.getPermissions() != null) {
+            role.getPermissions().forEach(permission -> current.put(permission.getId(), permission.getName()));
+        }
+        Map<Long, String> added = new HashMap<>();
+        for (Permission permission : permissions) {
+            if (!current.containsKey(permission.getId())) {
+                added.put(permission.getId(), permission.getName());
+            }
+        }
+        Map<Long, String> removed = new HashMap<>(current);
+        permissions.forEach(permission -> removed.remove(permission.getId()));
         
+        role.setName(request.getName());
         Role updatedRole = roleRepository.save(role);
         
-        return mapToRoleResponseWithoutPermissions(updatedRole);
+        if (!removed.isEmpty()) {
+            rolePermissionRepository.deleteByRoleIdAndPermissionIdIn(id, removed.keySet());
+        }
+        if (!added.isEmpty()) {
+            rolePermissionRepository.insertMissing(id, added.keySet());
+        }
+        
+        if (renamed || !added.isEmpty() || !removed.isEmpty()) {
+            // Tokens and cached principals of every holder carry the old role name and permissions
+            List<Long> holderIds = roleRepository.findUserIdsByRoleId(id);
+            if (!added.isEmpty() || !removed.isEmpty()) {
+                effectivePermissionStore.refresh(holderIds);
+            }
+            permissionEpochRegistry.bumpAll(holderIds);
+            userPrincipalCache.evictAll(holderIds);
+            defaultRoleCache.invalidate();
+            roleCatalog.invalidate();
+        }
+        
+        Set<String> addedNames = new TreeSet<>(added.values());
+        Set<String> removedNames = new TreeSet<>(removed.values());
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("added_permissions", addedNames);
+        properties.put("removed_permissions", removedNames);
+        properties.put("permission_count", permissions.size());
+        ActivityLogService.ActivityLogBuilder.create(activityLogService)
+                .description(String.format("Role '%s' updated: %d permission(s) added, %d removed",
+                        updatedRole.getName(), added.size(), removed.size()))
+                .on(updatedRole)
+                .event("role_permissions_synced")
+                .withProperties(properties)
+                .log();
+        
+        RoleResponse response = mapToRoleResponseWithoutPermissions(updatedRole);
+        response.setAddedPermissions(addedNames);
+        response.setRemovedPermissions(removedNames);
+        return response;
     }
     
     public void deleteRole(Long id) {
@@ -82,7 +161,10 @@ public class RoleService {
                     "' as it is assigned to " + userCount + " user(s)");
         }
         
+        // Only roles without holders can be deleted, so no issued token or cached principal embeds this role
         roleRepository.deleteById(id);
+        defaultRoleCache.invalidate();
+        roleCatalog.invalidate();
     }
     
     @Transactional(readOnly = true)
@@ -93,11 +175,17 @@ public class RoleService {
         return mapToRoleResponseWithDetails(role);
     }
     
+    /**
+     * Roles and their permission names come from the catalog, only holder counts are read
+     */
     @Transactional(readOnly = true)
     public List<RoleResponseSimple> getAllRoles() {
-        List<Role> roles = roleRepository.findAll();
-        return roles.stream()
-                .map(this::mapToRoleResponseWithCounts)
+        Map<Long, Long> userCounts = new HashMap<>();
+        for (Object[] row : roleRepository.countUsersPerRole()) {
+            userCounts.put((Long) row[0], (Long) row[1]);
+        }
+        return roleCatalog.get().roles().stream()
+                .map(role -> mapToRoleResponseWithCounts(role, userCounts.getOrDefault(role.id(), 0L)))
                 .collect(Collectors.toList());
     }
     
@@ -111,9 +199,22 @@ public class RoleService {
 
     @Transactional(readOnly = true)
     public Page<UserResponseSimple> getUsersByRole(Long roleId, Pageable pageable) {
-        Page<User> usersPage = userRepository.findByRoleId(roleId, pageable);
+        Page<UserSummary> usersPage = userRepository.findByRoleId(roleId, pageable);
         return usersPage.map(this::mapToSimpleUserResponse);
    }
+
+    /**
+     * Get the users of a role after a keyset cursor, ordered by user id
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserResponseSimple> getUsersByRoleAfter(Long roleId, String after, int size, boolean withTotal) {
+        KeysetCursor cursor = KeysetCursor.decode(after, KeysetCursor.FIRST_ASCENDING);
+        List<UserSummary> users = userRepository.findByRoleIdAfter(roleId, cursor.id(), Limit.of(size + 1));
+        Long total = withTotal ? roleRepository.countUsersByRoleId(roleId) : null;
+        
+        return CursorPage.of(users, size, user -> new KeysetCursor(null, user.id()),
+                this::mapToSimpleUserResponse, total);
+    }
     
     @Transactional(readOnly = true)
     public List<PermissionResponse> getPermissionsByRole(Long roleId) {
@@ -130,12 +231,15 @@ public class RoleService {
             return new HashSet<>();
         }
         
-        Set<Permission> permissions = new HashSet<>();
-        for (Long permissionId : permissionIds) {
-            Permission permission = permissionRepository.findById(permissionId)
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Permission not found with id: " + permissionId));
-            permissions.add(permission);
+        Set<Permission> permissions = new HashSet<>(permissionRepository.findAllById(permissionIds));
+        if (permissions.size() < permissionIds.size()) {
+            Set<Long> foundIds = permissions.stream().map(Permission::getId).collect(Collectors.toSet());
+            Long missingId = permissionIds.stream()
+                    .filter(permissionId -> !foundIds.contains(permissionId))
+                    .sorted()
+                    .findFirst()
+                    .orElseThrow();
+            throw new ResourceNotFoundException("Permission not found with id: " + missingId);
         }
         
         return permissions;
@@ -154,22 +258,17 @@ public class RoleService {
                 .build();
     }
     
-    private RoleResponseSimple mapToRoleResponseWithCounts(Role role) {
-        long userCount = roleRepository.countUsersByRoleId(role.getId());
-        long permissionCount = role.getPermissions() != null ? role.getPermissions().size() : 0;
-        List<String> permissionNames = role.getPermissions() != null
-                ? role.getPermissions().stream()
-                    .map(Permission::getName)
-                    .limit(8)
-                    .collect(Collectors.toList())
-                : new ArrayList<>();
+    private RoleResponseSimple mapToRoleResponseWithCounts(RoleCatalog.RoleEntry role, long userCount) {
+        Set<String> permissionNames = role.permissions().stream()
+                .limit(8)
+                .collect(Collectors.toCollection(HashSet::new));
 
         return RoleResponseSimple.builder()
-                .id(role.getId())
-                .name(role.getName())
-                .permissions(new HashSet<>(permissionNames))
+                .id(role.id())
+                .name(role.name())
+                .permissions(permissionNames)
                 .userCount(userCount)
-                .permissionCount(permissionCount)
+                .permissionCount((long) role.permissions().size())
                 .build();
     }
     
@@ -181,19 +280,15 @@ public class RoleService {
                         .collect(Collectors.toSet())
                 : new HashSet<>();
         
-        // Get users with this role
-        List<User> users = roleRepository.findUsersByRoleId(role.getId());
-        List<UserResponseSimple> userResponses = users.stream()
-                .map(this::mapToSimpleUserResponse)
-                .limit(10)
-                .collect(Collectors.toList());
+        // Only the holder count, members are listed page by page from /api/roles/{id}/users
+        long userCount = roleRepository.countUsersByRoleId(role.getId());
         
         return RoleResponse.builder()
                 .id(role.getId())
                 .name(role.getName())
                 .permissions(permissionResponses)
-                .users(userResponses)
-                .userCount((long) userResponses.size())
+                .users(new ArrayList<>())
+                .userCount(userCount)
                 .permissionCount((long) permissionResponses.size())
                 .createdAt(role.getCreatedAt())
                 .updatedAt(role.getUpdatedAt())
@@ -207,11 +302,13 @@ public class RoleService {
                 .build();
     }
     
-    private UserResponseSimple mapToSimpleUserResponse(User user) {
+    private UserResponseSimple mapToSimpleUserResponse(UserSummary user) {
         return UserResponseSimple.builder()
-                .id(user.getId())
-                .name(user.getName())
-                .email(user.getEmail())
+                .id(user.id())
+                .name(user.name())
+                .email(user.email())
+                .accountType(user.accountType() != null ? user.accountType().toString() : null)
+                .status(user.status() != null ? user.status().toString() : null)
                 .build();
     }
 
@@ -0,0 +1,44 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.mphoola.e_empuzitsi.dto.auth.RotateSigningKeyRequest;
+import com.mphoola.e_empuzitsi.exception.ValidationException;
+import com.mphoola.e_empuzitsi.util.JwtUtil;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rotates the JWT signing key of this instance without a restart.
+ * The new key signs every token issued from now on; the previous one keeps verifying the tokens it
+ * signed until they expire. The key ring is held per instance, so a rotation must be sent to every
+ * instance, and the new pair set in {@code app.jwt.*} for it to survive a restart.
+ */
+@Service
+public class SigningKeyService {
+    
+    private final JwtUtil jwtUtil;
+    private final ActivityLogService activityLogService;
+    
+    public SigningKeyService(JwtUtil jwtUtil, ActivityLogService activityLogService) {
+        this.jwtUtil = jwtUtil;
+        this.activityLogService = activityLogService;
+    }
+    
+    /**
+     * Make a new key active, returns the id of the key it replaced
+     */
+    public String rotate(RotateSigningKeyRequest request) {
+        String previousKeyId = jwtUtil.getActiveKeyId();
+        try {
+            jwtUtil.rotateSigningKey(request.getKeyId(), request.getSecret());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(e.getMessage());
+        }
+        
+        // Never log the secret itself
+        ActivityLogService.ActivityLogBuilder.create(activityLogService)
+                .description("JWT signing key rotated from " + previousKeyId + " to " + request.getKeyId())
+                .event("signing_key_rotated")
+                .withProperty("key_id", request.getKeyId())
+                .log();
+        return previousKeyId;
+    }
+}
@@ -1,5 +1,7 @@
 package com.mphoola.e_empuzitsi.service;
 
+import com.mphoola.e_empuzitsi.dto.user.BulkUserOperationResponse;
+import com.mphoola.e_empuzitsi.dto.user.BulkUserRequest;
 import com.mphoola.e_empuzitsi.dto.user.UserRoleRequest;
 import com.mphoola.e_empuzitsi.dto.user.UserRoleResponse;
 import com.mphoola.e_empuzitsi.dto.user.UserPermissionRequest;
@@ -12,12 +14,17 @@ import com.mphoola.e_empuzitsi.entity.*;
 import com.mphoola.e_empuzitsi.exception.ResourceNotFoundException;
 import com.mphoola.e_empuzitsi.exception.ValidationException;
 import com.mphoola.e_empuzitsi.repository.*;
+import com.mphoola.e_empuzitsi.security.EffectivePermissionStore;
+import com.mphoola.e_empuzitsi.security.PermissionEpochRegistry;
+import com.mphoola.e_empuzitsi.security.UserPrincipalCache;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -25,23 +32,38 @@ import java.util.stream.Collectors;
 @Transactional
 public class UserAccessManagementService {
 
+    // Ids per INSERT ... SELECT statement in bulk assignments
+    private static final int BULK_CHUNK_SIZE = 1000;
+
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PermissionRepository permissionRepository;
     private final UserPermissionRepository userPermissionRepository;
+    private final UserRoleRepository userRoleRepository;
     private final ActivityLogService activityLogService;
+    private final PermissionEpochRegistry permissionEpochRegistry;
+    private final UserPrincipalCache userPrincipalCache;
+    private final EffectivePermissionStore effectivePermissionStore;
 
     public UserAccessManagementService(
             UserRepository userRepository,
             RoleRepository roleRepository,
             PermissionRepository permissionRepository,
             UserPermissionRepository userPermissionRepository,
-            ActivityLogService activityLogService) {
+            UserRoleRepository userRoleRepository,
+            ActivityLogService activityLogService,
+            PermissionEpochRegistry permissionEpochRegistry,
+            UserPrincipalCache userPrincipalCache,
+            EffectivePermissionStore effectivePermissionStore) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.permissionRepository = permissionRepository;
         this.userPermissionRepository = userPermissionRepository;
+        this.userRoleRepository = userRoleRepository;
         this.activityLogService = activityLogService;
+        this.permissionEpochRegistry = permissionEpochRegistry;
+        this.userPrincipalCache = userPrincipalCache;
+        this.effectivePermissionStore = effectivePermissionStore;
     }
 
     // ==================== USER ROLE MANAGEMENT ====================
@@ -73,6 +95,9 @@ public class UserAccessManagementService {
 
         // Save the user
         userRepository.save(user);
+        effectivePermissionStore.refresh(List.of(userId));
+        permissionEpochRegistry.bump(userId);
+        userPrincipalCache.evict(userId);
 
         // Log the activity
         ActivityLogService.ActivityLogBuilder.create(activityLogService)
@@ -88,6 +113,40 @@ public class UserAccessManagementService {
         return buildUserRoleResponse(userRole);
     }
 
+    /**
+     * Assign a role to every selected user with one INSERT ... SELECT per chunk of ids.
+     * Users already holding the role are skipped by the statement itself.
+     */
+    public BulkUserOperationResponse assignRoleToUsers(Long roleId, BulkUserRequest request) {
+        Role role = findRoleById(roleId);
+        List<Long> userIds = userRepository.findIdsForSelection(
+                request.getIds(), request.getAccountType(), request.getStatus(), request.getRoleId());
+
+        LocalDateTime now = LocalDateTime.now();
+        int assigned = 0;
+        for (int from = 0; from < userIds.size(); from += BULK_CHUNK_SIZE) {
+            assigned += userRoleRepository.insertMissing(
+                    roleId, userIds.subList(from, Math.min(from + BULK_CHUNK_SIZE, userIds.size())), now);
+        }
+
+        // Users who already held the role are refreshed and invalidated too, which only costs them one reload
+        effectivePermissionStore.refresh(userIds);
+        permissionEpochRegistry.bumpAll(userIds);
+        userPrincipalCache.evictAll(userIds);
+
+        Map<String, Object> properties = UserService.bulkLogProperties(request, userIds.size(), assigned);
+        properties.put("assigned_role_id", roleId);
+        properties.put("assigned_role_name", role.getName());
+        ActivityLogService.ActivityLogBuilder.create(activityLogService)
+                .description(String.format("Role '%s' assigned to %d users in bulk", role.getName(), assigned))
+                .on(role)
+                .event("role_assigned_bulk")
+                .withProperties(properties)
+                .log();
+
+        return new BulkUserOperationResponse(userIds.size(), assigned);
+    }
+
     public void revokeRoleFromUser(Long userId, Long roleId) {
         User user = findUserById(userId);
         Role role = findRoleById(roleId);
@@ -103,6 +162,9 @@ public class UserAccessManagementService {
 
         user.getUserRoles().remove(userRoleToRemove);
         userRepository.save(user);
+        effectivePermissionStore.refresh(List.of(userId));
+        permissionEpochRegistry.bump(userId);
+        userPrincipalCache.evict(userId);
 
         // Log the activity
         ActivityLogService.ActivityLogBuilder.create(activityLogService)
@@ -145,6 +207,9 @@ public class UserAccessManagementService {
                 .build();
 
         userPermissionRepository.save(userPermission);
+        effectivePermissionStore.refresh(List.of(userId));
+        permissionEpochRegistry.bump(userId);
+        userPrincipalCache.evict(userId);
 
         // Log the activity
         ActivityLogService.ActivityLogBuilder.create(activityLogService)
@@ -168,6 +233,9 @@ public class UserAccessManagementService {
                 .orElseThrow(() -> new ResourceNotFoundException("User does not have this permission assigned directly"));
 
         userPermissionRepository.delete(userPermission);
+        effectivePermissionStore.refresh(List.of(userId));
+        permissionEpochRegistry.bump(userId);
+        userPrincipalCache.evict(userId);
 
         // Log the activity
         ActivityLogService.ActivityLogBuilder.create(activityLogService)
@@ -223,9 +291,8 @@ public class UserAccessManagementService {
         List<UserRoleResponse> roles = getUserRoles(userId);
         List<UserPermissionResponse> permissions = getUserPermissions(userId);
         
-        // Get effective permissions (unique list)
-        Set<String> effectivePermissions = new HashSet<>();
-        permissions.forEach(p -> effectivePermissions.add(p.getPermissionName()));
+        // Effective permissions are materialized, one indexed lookup or a mirror hit
+        Set<String> effectivePermissions = effectivePermissionStore.permissionNames(userId);
         
         return UserAccessResponse.builder()
                 .userId(userId)
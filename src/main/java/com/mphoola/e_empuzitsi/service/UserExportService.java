@@ -0,0 +1,136 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.mphoola.e_empuzitsi.dto.user.UserSummary;
+import com.mphoola.e_empuzitsi.repository.UserRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Streams every user to an output stream as NDJSON or CSV.
+ *
+ * Rows come from a forward-only cursor as projections, so nothing is added to the persistence
+ * context and each row can be collected as soon as it is written: memory use does not grow
+ * with the number of users. Must be called on the thread that writes the response, since the
+ * cursor lives as long as the read-only transaction around {@link #export}.
+ */
+@Service
+public class UserExportService {
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private static final String CSV_HEADER = "id,name,email,account_type,status,created_at";
+
+    // Flush periodically so the client receives rows while the export runs
+    private static final int FLUSH_EVERY = 1000;
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    public UserExportService(UserRepository userRepository, ObjectMapper objectMapper) {
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Write every user, ordered by id, without closing the stream
+     */
+    @Transactional(readOnly = true)
+    public void export(Format format, OutputStream out) throws IOException {
+        try (Stream<UserSummary> rows = userRepository.streamAllForExport()) {
+            if (format == Format.CSV) {
+                writeCsv(rows.iterator(), out);
+            } else {
+                writeNdjson(rows.iterator(), out);
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<UserSummary> rows, OutputStream out) throws IOException {
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            int written = 0;
+            while (rows.hasNext()) {
+                writer.write(rows.next());
+                if (++written % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+        }
+        out.write('\n');
+        out.flush();
+    }
+
+    private void writeCsv(Iterator<UserSummary> rows, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+
+        int written = 0;
+        while (rows.hasNext()) {
+            UserSummary row = rows.next();
+            writer.write(String.valueOf(row.id()));
+            writer.write(',');
+            writer.write(csvField(row.name()));
+            writer.write(',');
+            writer.write(csvField(row.email()));
+            writer.write(',');
+            writer.write(row.accountType() != null ? row.accountType().name() : "");
+            writer.write(',');
+            writer.write(row.status() != null ? row.status().name() : "");
+            writer.write(',');
+            writer.write(row.createdAt() != null ? row.createdAt().toString() : "");
+            writer.write("\r\n");
+            if (++written % FLUSH_EVERY == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Quote a field when needed (RFC 4180) and defuse values a spreadsheet would run as a formula
+     */
+    static String csvField(String value) {
+        if (value == null || value.isEmpty()) {
+            return "";
+        }
+        String field = "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        if (field.indexOf(',') >= 0 || field.indexOf('"') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+            return '"' + field.replace("\"", "\"\"") + '"';
+        }
+        return field;
+    }
+}
@@ -0,0 +1,497 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mphoola.e_empuzitsi.config.EmailProperties;
+import com.mphoola.e_empuzitsi.dto.user.UserImportJobResponse;
+import com.mphoola.e_empuzitsi.dto.user.UserImportRowResult;
+import com.mphoola.e_empuzitsi.entity.AccountType;
+import com.mphoola.e_empuzitsi.entity.UserStatus;
+import com.mphoola.e_empuzitsi.exception.ResourceNotFoundException;
+import com.mphoola.e_empuzitsi.exception.ServiceBusyException;
+import com.mphoola.e_empuzitsi.exception.ValidationException;
+import com.mphoola.e_empuzitsi.mail.notifications.UserCredentialsEmail;
+import com.mphoola.e_empuzitsi.repository.UserRepository;
+import com.mphoola.e_empuzitsi.security.BoundedPasswordEncoder;
+import com.mphoola.e_empuzitsi.util.CsvReader;
+import com.mphoola.e_empuzitsi.util.PasswordGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Imports users in bulk from a CSV upload ({@code name,email[,account_type]} with a header row).
+ *
+ * Creating users one by one costs an existence query, a BCrypt hash, an insert that cannot be
+ * batched (IDENTITY ids), a graph reload and an email per user. An import instead reads the file
+ * as a stream in chunks and, per chunk, checks every email with one query, hashes the temporary
+ * passwords in parallel on its own bounded pool, inserts the users with one JDBC batch and reads
+ * their ids back with one query. Credential emails go to the bulk email queue.
+ *
+ * Imports run in the background on their own small executor, so long imports never hold the
+ * threads of general async work; when it is saturated new uploads get a 503. Progress and per-row results are kept in memory for
+ * {@code app.users.import.job-ttl-minutes} and can be polled by job id. The file is counted in a
+ * first pass, so one over {@code app.users.import.max-rows} fails before any user is created.
+ */
+@Service
+public class UserImportService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(UserImportService.class);
+
+    private static final String INSERT_USER =
+            "INSERT INTO users (name, email, password, account_type, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    // Retry-After for an upload refused while the import executor is full
+    static final long BUSY_RETRY_AFTER_SECONDS = 60;
+
+    // Roughly what @Email on UserRequest accepts
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+$");
+
+    private record ImportRow(long line, String name, String email, AccountType accountType) {
+    }
+
+    private record NewUser(ImportRow row, String temporaryPassword, String passwordHash) {
+    }
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final PasswordEncoder hasher;
+    private final PasswordGenerator passwordGenerator;
+    private final EmailService emailService;
+    private final EmailProperties emailProperties;
+    private final UserSearchIndex userSearchIndex;
+    private final ActivityLogService activityLogService;
+    private final Executor jobExecutor;
+    private final ExecutorService hashingPool;
+    private final int chunkSize;
+    private final int maxRows;
+    private final Cache<String, ImportJob> jobs;
+
+    public UserImportService(UserRepository userRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             PasswordEncoder passwordEncoder,
+                             PasswordGenerator passwordGenerator,
+                             EmailService emailService,
+                             EmailProperties emailProperties,
+                             UserSearchIndex userSearchIndex,
+                             ActivityLogService activityLogService,
+                             @Qualifier("userImportTaskExecutor") Executor jobExecutor,
+                             @Value("${app.users.import.hashing-threads:0}") int hashingThreads,
+                             @Value("${app.users.import.chunk-size:500}") int chunkSize,
+                             @Value("${app.users.import.max-rows:50000}") int maxRows,
+                             @Value("${app.users.import.job-ttl-minutes:60}") long jobTtlMinutes) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // Hash on the import's own pool rather than the login lane, whose small queue a large
+        // import would fill, turning sign-ins away with 503s
+        this.hasher = passwordEncoder instanceof BoundedPasswordEncoder bounded ? bounded.getDelegate() : passwordEncoder;
+        this.passwordGenerator = passwordGenerator;
+        this.emailService = emailService;
+        this.emailProperties = emailProperties;
+        this.userSearchIndex = userSearchIndex;
+        this.activityLogService = activityLogService;
+        this.jobExecutor = jobExecutor;
+        this.hashingPool = hashingPool(hashingThreads > 0
+                ? hashingThreads
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxRows = maxRows;
+        this.jobs = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMinutes(jobTtlMinutes))
+                .build();
+    }
+
+    /**
+     * Accept a CSV upload and import it in the background
+     */
+    public UserImportJobResponse startImport(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            throw new ValidationException("A non-empty CSV file is required");
+        }
+
+        // The upload is deleted when the request ends, so keep a copy for the background job
+        Path copy;
+        try {
+            copy = Files.createTempFile("user-import-", ".csv");
+            file.transferTo(copy);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not store the uploaded file", e);
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), file.getOriginalFilename());
+        jobs.put(job.id, job);
+        try {
+            jobExecutor.execute(() -> {
+                try {
+                    runImport(job, copy);
+                } finally {
+                    deleteQuietly(copy);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            deleteQuietly(copy);
+            jobs.invalidate(job.id);
+            throw new ServiceBusyException("Too many imports in progress, please try again later", BUSY_RETRY_AFTER_SECONDS);
+        } catch (RuntimeException e) {
+            deleteQuietly(copy);
+            jobs.invalidate(job.id);
+            throw e;
+        }
+        return job.toResponse(false);
+    }
+
+    /**
+     * Progress of an import, with every row or only the failed ones
+     */
+    public UserImportJobResponse getImport(String jobId, boolean failedOnly) {
+        ImportJob job = jobs.getIfPresent(jobId);
+        if (job == null) {
+            throw new ResourceNotFoundException("Import not found with id: " + jobId);
+        }
+        return job.toResponse(failedOnly);
+    }
+
+    void runImport(ImportJob job, Path file) {
+        job.start();
+        try (CsvReader csv = checkedReader(file)) {
+            Map<String, Integer> columns = readHeader(csv.next());
+            Set<String> seenEmails = new HashSet<>();
+            List<ImportRow> chunk = new ArrayList<>(chunkSize);
+
+            for (List<String> record = csv.next(); record != null; record = csv.next()) {
+                if (record.stream().allMatch(String::isBlank)) {
+                    continue;
+                }
+                ImportRow row = parse(job, csv.getRecordLine(), record, columns, seenEmails);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() == chunkSize) {
+                    importChunk(job, chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(job, chunk);
+            }
+            job.complete();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            job.fail("Import was interrupted");
+        } catch (ValidationException e) {
+            job.fail(e.getMessage());
+        } catch (IOException e) {
+            job.fail("Could not read the uploaded file");
+        } catch (Exception e) {
+            log.error("User import {} failed", job.id, e);
+            job.fail("Import failed: " + e.getMessage());
+        }
+
+        log.info("User import {} finished with status {}: {} created, {} failed",
+                job.id, job.status, job.created.get(), job.failed.get());
+        if (job.created.get() > 0) {
+            try {
+                activityLogService.log("Imported " + job.created.get() + " users from " + job.fileName, "imported");
+            } catch (Exception e) {
+                log.warn("Could not log user import {}: {}", job.id, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Parse the whole file once without importing anything, so a file that is too long or
+     * malformed fails before the first chunk commits, then open it again for the import
+     */
+    private CsvReader checkedReader(Path file) throws IOException {
+        try (CsvReader csv = new CsvReader(open(file))) {
+            readHeader(csv.next());
+            long rows = 0;
+            for (List<String> record = csv.next(); record != null; record = csv.next()) {
+                if (!record.stream().allMatch(String::isBlank) && ++rows > maxRows) {
+                    throw new ValidationException("An import may contain at most " + maxRows + " rows");
+                }
+            }
+        }
+        return new CsvReader(open(file));
+    }
+
+    private static Reader open(Path file) throws IOException {
+        return new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Integer> readHeader(List<String> header) {
+        if (header == null) {
+            throw new ValidationException("The file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.putIfAbsent(header.get(i).trim().toLowerCase(Locale.ROOT).replace(' ', '_'), i);
+        }
+        if (!columns.containsKey("name") || !columns.containsKey("email")) {
+            throw new ValidationException("The header row must contain name and email columns");
+        }
+        return columns;
+    }
+
+    /**
+     * Validate one record, recording a failure and returning null when it cannot be imported
+     */
+    private static ImportRow parse(ImportJob job, long line, List<String> record, Map<String, Integer> columns,
+                                   Set<String> seenEmails) {
+        String name = column(record, columns, "name");
+        String email = column(record, columns, "email");
+        String accountType = column(record, columns, "account_type");
+
+        String error = null;
+        if (name.isEmpty()) {
+            error = "Name is required";
+        } else if (name.length() < 2 || name.length() > 100) {
+            error = "Name must be between 2 and 100 characters";
+        } else if (email.isEmpty()) {
+            error = "Email is required";
+        } else if (!EMAIL.matcher(email).matches()) {
+            error = "Email must be valid";
+        } else if (email.length() > 255) {
+            error = "Email must not exceed 255 characters";
+        }
+
+        AccountType type = AccountType.STUDENT;
+        if (error == null && !accountType.isEmpty()) {
+            try {
+                type = AccountType.valueOf(accountType.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                error = "Account type must be one of " + Arrays.toString(AccountType.values());
+            }
+        }
+        if (error == null && !seenEmails.add(email)) {
+            error = "Email appears more than once in the file";
+        }
+
+        if (error != null) {
+            job.record(UserImportRowResult.failed(line, email, error));
+            return null;
+        }
+        return new ImportRow(line, name, email, type);
+    }
+
+    private static String column(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        return index == null || index >= record.size() ? "" : record.get(index).trim();
+    }
+
+    private void importChunk(ImportJob job, List<ImportRow> chunk) throws InterruptedException, ExecutionException {
+        Set<String> existing = new HashSet<>(userRepository.findExistingEmails(chunk.stream().map(ImportRow::email).toList()));
+        List<ImportRow> fresh = new ArrayList<>(chunk.size());
+        for (ImportRow row : chunk) {
+            if (existing.contains(row.email())) {
+                job.record(UserImportRowResult.failed(row.line(), row.email(), "Email already exists"));
+            } else {
+                fresh.add(row);
+            }
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        List<NewUser> users = hash(fresh);
+        List<NewUser> inserted = insert(job, users);
+        if (inserted.isEmpty()) {
+            return;
+        }
+
+        Map<String, Long> ids = new HashMap<>();
+        for (Object[] idAndEmail : userRepository.findIdsByEmailIn(inserted.stream().map(user -> user.row().email()).toList())) {
+            ids.put((String) idAndEmail[1], ((Number) idAndEmail[0]).longValue());
+        }
+
+        String loginUrl = emailProperties.getFrontendUrl() + "/auth/login";
+        for (NewUser user : inserted) {
+            ImportRow row = user.row();
+            Long id = ids.get(row.email());
+            job.record(UserImportRowResult.created(row.line(), row.email(), id));
+            userSearchIndex.update(id, row.name(), row.email());
+            try {
+                emailService.queueBulkEmail(new UserCredentialsEmail(
+                        row.email(), row.name(), user.temporaryPassword(), loginUrl, row.accountType().toString()));
+            } catch (Exception e) {
+                // The user exists either way, same as a single create
+                log.warn("Could not queue credentials email for {}: {}", row.email(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Generate and hash a temporary password per row, in parallel on the hashing pool
+     */
+    private List<NewUser> hash(List<ImportRow> rows) throws InterruptedException, ExecutionException {
+        List<Callable<NewUser>> tasks = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            String temporaryPassword = passwordGenerator.generatePassword();
+            tasks.add(() -> new NewUser(row, temporaryPassword, hasher.encode(temporaryPassword)));
+        }
+
+        List<NewUser> users = new ArrayList<>(rows.size());
+        for (Future<NewUser> future : hashingPool.invokeAll(tasks)) {
+            users.add(future.get());
+        }
+        return users;
+    }
+
+    /**
+     * Insert the chunk with one JDBC batch. If it collides with a user created meanwhile, insert
+     * row by row so only the conflicting rows fail.
+     */
+    private List<NewUser> insert(ImportJob job, List<NewUser> users) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(INSERT_USER, users.stream().map(user -> values(user, now)).toList()));
+            return users;
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Batch insert for import {} conflicted, retrying row by row: {}", job.id, e.getMessage());
+        }
+
+        List<NewUser> inserted = new ArrayList<>(users.size());
+        for (NewUser user : users) {
+            try {
+                jdbcTemplate.update(INSERT_USER, values(user, now));
+                inserted.add(user);
+            } catch (DuplicateKeyException e) {
+                job.record(UserImportRowResult.failed(user.row().line(), user.row().email(), "Email already exists"));
+            } catch (DataIntegrityViolationException e) {
+                job.record(UserImportRowResult.failed(user.row().line(), user.row().email(), "Could not be saved"));
+            }
+        }
+        return inserted;
+    }
+
+    private static Object[] values(NewUser user, Timestamp now) {
+        ImportRow row = user.row();
+        return new Object[]{row.name(), row.email(), user.passwordHash(), row.accountType().name(),
+                UserStatus.ACTIVE.name(), now, now};
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Could not delete import file {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static ExecutorService hashingPool(int threads) {
+        AtomicInteger sequence = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "import-hashing-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    @Override
+    public void destroy() {
+        hashingPool.shutdown();
+    }
+
+    /**
+     * Mutable state of one import, read concurrently by status requests
+     */
+    static final class ImportJob {
+
+        private final String id;
+        private final String fileName;
+        private final List<UserImportRowResult> results = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+
+        private volatile UserImportJobResponse.Status status = UserImportJobResponse.Status.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        ImportJob(String id, String fileName) {
+            this.id = id;
+            this.fileName = fileName;
+        }
+
+        void start() {
+            startedAt = LocalDateTime.now();
+            status = UserImportJobResponse.Status.RUNNING;
+        }
+
+        void record(UserImportRowResult result) {
+            results.add(result);
+            (result.outcome() == UserImportRowResult.Outcome.CREATED ? created : failed).incrementAndGet();
+        }
+
+        void complete() {
+            finishedAt = LocalDateTime.now();
+            status = UserImportJobResponse.Status.COMPLETED;
+        }
+
+        void fail(String message) {
+            error = message;
+            finishedAt = LocalDateTime.now();
+            status = UserImportJobResponse.Status.FAILED;
+        }
+
+        UserImportJobResponse toResponse(boolean failedOnly) {
+            List<UserImportRowResult> rows;
+            synchronized (results) {
+                rows = results.stream()
+                        .filter(result -> !failedOnly || result.outcome() == UserImportRowResult.Outcome.FAILED)
+                        .sorted(Comparator.comparingLong(UserImportRowResult::row))
+                        .toList();
+            }
+            return new UserImportJobResponse(id, status, fileName, created.get() + failed.get(), created.get(),
+                    failed.get(), startedAt, finishedAt, error, rows);
+        }
+    }
+}
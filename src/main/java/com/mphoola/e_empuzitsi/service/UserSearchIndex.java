@@ -0,0 +1,306 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.mphoola.e_empuzitsi.repository.UserRepository;
+import com.mphoola.e_empuzitsi.util.AfterCommit;
+import com.mphoola.e_empuzitsi.util.DatabaseProduct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ranked, typo-tolerant search over user names and emails.
+ *
+ * On PostgreSQL with pg_trgm installed every search is one ranked query against the GIN trigram
+ * indexes built by {@code TrigramIndexInitializer}, so results are always current and nothing is
+ * held in memory. Other databases (H2 in development and tests) fall back to the in-memory
+ * trigram index below, which is only loaded when the database query is not available.
+ *
+ * A {@code LIKE '%term%'} filter cannot use a B-tree index and scans every user. Here each
+ * name and email is split into 3-character grams and every gram maps to the sorted positions
+ * of the users containing it. A search adds up the posting lists of the query's grams, so it
+ * touches only users sharing a gram with the query, and ranks them: substring matches first,
+ * then by the share of query grams they contain.
+ *
+ * The bulk of the index is an immutable snapshot of {@code int[]} posting lists rebuilt from
+ * the database at startup and on a schedule (which also picks up changes made by other
+ * instances). Saves and deletes seen by {@code UserSearchIndexListener} go into a small
+ * overlay after commit and take precedence over the snapshot until the next rebuild.
+ */
+@Component
+public class UserSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(UserSearchIndex.class);
+
+    private static final int GRAM = 3;
+
+    private record Entry(long id, String name, String email, long sequence) {
+        boolean removed() {
+            return name == null;
+        }
+    }
+
+    private record Hit(long id, boolean contains, double similarity, int length) {
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator
+            .comparing(Hit::contains).reversed()
+            .thenComparing(Comparator.comparingDouble(Hit::similarity).reversed())
+            .thenComparingInt(Hit::length)
+            .thenComparingLong(Hit::id);
+
+    /**
+     * Users in id order with their lowercased name and email, and gram -> sorted positions
+     */
+    private record Snapshot(long[] ids, String[] names, String[] emails, Map<Long, int[]> postings) {
+        static final Snapshot EMPTY = new Snapshot(new long[0], new String[0], new String[0], Map.of());
+    }
+
+    private final UserRepository userRepository;
+    private final boolean postgres;
+    private final boolean enabled;
+    private final double minSimilarity;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ConcurrentHashMap<Long, Entry> overlay = new ConcurrentHashMap<>();
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean trigramQuery;
+
+    @Autowired
+    public UserSearchIndex(UserRepository userRepository, DataSource dataSource,
+                           @Value("${app.users.search-index.enabled:true}") boolean enabled,
+                           @Value("${app.users.search-index.min-similarity:0.5}") double minSimilarity) {
+        this(userRepository, DatabaseProduct.isPostgres(dataSource), enabled, minSimilarity);
+    }
+
+    UserSearchIndex(UserRepository userRepository, boolean postgres, boolean enabled, double minSimilarity) {
+        this.userRepository = userRepository;
+        this.postgres = postgres;
+        this.enabled = enabled;
+        this.minSimilarity = minSimilarity;
+    }
+
+    /**
+     * Choose the database query or the in-memory index, once the startup runners created pg_trgm
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        trigramQuery = postgres && userRepository.isTrigramExtensionInstalled();
+        if (trigramQuery) {
+            snapshot = Snapshot.EMPTY;
+            overlay.clear();
+            log.info("Searching users with pg_trgm");
+        } else {
+            rebuild();
+        }
+    }
+
+    /**
+     * Rebuild the snapshot from the database and drop the overlay entries it now contains
+     */
+    @Scheduled(fixedDelayString = "${app.users.search-index.rebuild-interval-ms:600000}",
+               initialDelayString = "${app.users.search-index.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        if (!enabled || trigramQuery) {
+            return;
+        }
+
+        // Overlay entries up to here were committed before the read below and are in the new snapshot
+        long built = sequence.get();
+        List<Object[]> rows = userRepository.findAllSearchFields();
+        snapshot = build(rows);
+        overlay.entrySet().removeIf(entry -> entry.getValue().sequence() <= built);
+        log.info("Indexed {} users for search ({} grams)", rows.size(), snapshot.postings().size());
+    }
+
+    /**
+     * Index a user's current name and email. Inside a transaction this happens after commit.
+     */
+    public void update(Long userId, String name, String email) {
+        if (enabled && !trigramQuery && userId != null) {
+            AfterCommit.run(() -> overlay.put(userId, new Entry(userId, normalize(name), normalize(email), sequence.incrementAndGet())));
+        }
+    }
+
+    /**
+     * Remove a user. Inside a transaction this happens after commit.
+     */
+    public void remove(Long userId) {
+        if (enabled && !trigramQuery && userId != null) {
+            AfterCommit.run(() -> overlay.put(userId, new Entry(userId, null, null, sequence.incrementAndGet())));
+        }
+    }
+
+    /**
+     * Ids of the users best matching the query by name or email, best first
+     */
+    @Transactional(readOnly = true)
+    public List<Long> search(String query, int limit) {
+        String term = normalize(query);
+        if (term.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        if (trigramQuery) {
+            // The threshold is transaction local, so it must share the search's transaction
+            userRepository.setWordSimilarityThreshold(String.valueOf(minSimilarity));
+            return userRepository.searchIdsByTrigram(term, "%" + escapeLike(term) + "%", limit);
+        }
+
+        Snapshot current = snapshot;
+        long[] queryGrams = distinctGrams(term, "");
+        List<Hit> hits = new ArrayList<>();
+
+        if (queryGrams.length == 0) {
+            // Too short for a gram, a substring scan is all a 1-2 character query can do
+            for (int i = 0; i < current.ids().length; i++) {
+                if (!overlay.containsKey(current.ids()[i])) {
+                    addHit(hits, current.ids()[i], current.names()[i], current.emails()[i], term, 0, 1);
+                }
+            }
+        } else {
+            int[] shared = new int[current.ids().length];
+            for (long gram : queryGrams) {
+                int[] positions = current.postings().get(gram);
+                if (positions != null) {
+                    for (int position : positions) {
+                        shared[position]++;
+                    }
+                }
+            }
+            for (int i = 0; i < shared.length; i++) {
+                if (shared[i] > 0 && !overlay.containsKey(current.ids()[i])) {
+                    addHit(hits, current.ids()[i], current.names()[i], current.emails()[i], term, shared[i], queryGrams.length);
+                }
+            }
+        }
+
+        for (Entry entry : overlay.values()) {
+            if (!entry.removed()) {
+                int shared = queryGrams.length == 0 ? 0 : countShared(queryGrams, distinctGrams(entry.name(), entry.email()));
+                addHit(hits, entry.id(), entry.name(), entry.email(), term, shared, Math.max(1, queryGrams.length));
+            }
+        }
+
+        return hits.stream()
+                .sorted(RANKING)
+                .limit(limit)
+                .map(Hit::id)
+                .toList();
+    }
+
+    /**
+     * Number of users in the snapshot
+     */
+    public int size() {
+        return snapshot.ids().length;
+    }
+
+    private void addHit(List<Hit> hits, long id, String name, String email, String term, int shared, int queryGrams) {
+        boolean contains = name.contains(term) || email.contains(term);
+        double similarity = (double) shared / queryGrams;
+        if (contains || similarity >= minSimilarity) {
+            hits.add(new Hit(id, contains, similarity, name.length()));
+        }
+    }
+
+    private static Snapshot build(List<Object[]> rows) {
+        List<Object[]> sorted = new ArrayList<>(rows);
+        sorted.sort(Comparator.comparingLong(row -> ((Number) row[0]).longValue()));
+
+        int size = sorted.size();
+        long[] ids = new long[size];
+        String[] names = new String[size];
+        String[] emails = new String[size];
+        long[][] grams = new long[size][];
+        Map<Long, Integer> counts = new HashMap<>();
+
+        for (int i = 0; i < size; i++) {
+            Object[] row = sorted.get(i);
+            ids[i] = ((Number) row[0]).longValue();
+            names[i] = normalize((String) row[1]);
+            emails[i] = normalize((String) row[2]);
+            grams[i] = distinctGrams(names[i], emails[i]);
+            for (long gram : grams[i]) {
+                counts.merge(gram, 1, Integer::sum);
+            }
+        }
+
+        // Positions are added in increasing order, so every posting list comes out sorted
+        Map<Long, int[]> postings = new HashMap<>(counts.size() * 2);
+        Map<Long, Integer> filled = new HashMap<>(counts.size() * 2);
+        counts.forEach((gram, count) -> postings.put(gram, new int[count]));
+        for (int i = 0; i < size; i++) {
+            for (long gram : grams[i]) {
+                int at = filled.merge(gram, 1, Integer::sum) - 1;
+                postings.get(gram)[at] = i;
+            }
+            grams[i] = null;
+        }
+        return new Snapshot(ids, names, emails, postings);
+    }
+
+    /**
+     * Sorted distinct grams of both strings, each packed as three 16-bit chars
+     */
+    private static long[] distinctGrams(String first, String second) {
+        int count = Math.max(0, first.length() - GRAM + 1) + Math.max(0, second.length() - GRAM + 1);
+        long[] grams = new long[count];
+        int n = addGrams(first, grams, 0);
+        addGrams(second, grams, n);
+        Arrays.sort(grams);
+        return Arrays.stream(grams).distinct().toArray();
+    }
+
+    private static int addGrams(String text, long[] grams, int from) {
+        int n = from;
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams[n++] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return n;
+    }
+
+    private static int countShared(long[] sortedA, long[] sortedB) {
+        int shared = 0;
+        for (int i = 0, j = 0; i < sortedA.length && j < sortedB.length; ) {
+            if (sortedA[i] == sortedB[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (sortedA[i] < sortedB[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    /**
+     * Escape LIKE wildcards with PostgreSQL's default escape character
+     */
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,30 +1,51 @@
 package com.mphoola.e_empuzitsi.service;
 
+import com.mphoola.e_empuzitsi.dto.user.BulkUserOperationResponse;
+import com.mphoola.e_empuzitsi.dto.user.BulkUserRequest;
 import com.mphoola.e_empuzitsi.dto.user.UpdateUserRequest;
+import com.mphoola.e_empuzitsi.dto.user.UserDetailRow;
 import com.mphoola.e_empuzitsi.dto.user.UserRequest;
 import com.mphoola.e_empuzitsi.dto.user.UserResponse;
 import com.mphoola.e_empuzitsi.dto.user.UserResponseSimple;
+import com.mphoola.e_empuzitsi.dto.user.UserSummary;
 import com.mphoola.e_empuzitsi.entity.*;
 import com.mphoola.e_empuzitsi.exception.ResourceConflictException;
 import com.mphoola.e_empuzitsi.exception.ResourceNotFoundException;
 import com.mphoola.e_empuzitsi.exception.BadCredentialsException;
+import com.mphoola.e_empuzitsi.exception.ValidationException;
 import com.mphoola.e_empuzitsi.mail.notifications.EmailVerificationEmail;
 import com.mphoola.e_empuzitsi.mail.notifications.UserCredentialsEmail;
 import com.mphoola.e_empuzitsi.repository.UserRepository;
+import com.mphoola.e_empuzitsi.security.BannedUserRegistry;
+import com.mphoola.e_empuzitsi.security.PermissionEpochRegistry;
+import com.mphoola.e_empuzitsi.security.UserPrincipal;
+import com.mphoola.e_empuzitsi.security.UserPrincipalCache;
+import com.mphoola.e_empuzitsi.util.CursorPage;
+import com.mphoola.e_empuzitsi.util.KeysetCursor;
 import com.mphoola.e_empuzitsi.util.PasswordGenerator;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -34,38 +55,68 @@ public class UserService {
     private final PasswordEncoder passwordEncoder;
     private final EmailService emailService;
     private final PasswordGenerator passwordGenerator;
+    private final UserPrincipalCache userPrincipalCache;
+    private final PermissionEpochRegistry permissionEpochRegistry;
+    private final BannedUserRegistry bannedUserRegistry;
+    private final ApproximateCounts approximateCounts;
+    private final UserSearchIndex userSearchIndex;
+    private final ActivityLogService activityLogService;
+    private final TransactionTemplate transactionTemplate;
     
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, EmailService emailService, PasswordGenerator passwordGenerator) {
+    // Ids per UPDATE statement in bulk operations
+    private static final int BULK_CHUNK_SIZE = 1000;
+    
+    // A bulk ban may not leave any of these without an active holder unless the request allows it
+    private static final List<String> LOCKOUT_PERMISSIONS = List.of("ban_user", "unban_user");
+    
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, EmailService emailService, PasswordGenerator passwordGenerator,
+                       UserPrincipalCache userPrincipalCache, PermissionEpochRegistry permissionEpochRegistry,
+                       BannedUserRegistry bannedUserRegistry, ApproximateCounts approximateCounts,
+                       UserSearchIndex userSearchIndex, ActivityLogService activityLogService,
+                       PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.emailService = emailService;
         this.passwordGenerator = passwordGenerator;
+        this.userPrincipalCache = userPrincipalCache;
+        this.permissionEpochRegistry = permissionEpochRegistry;
+        this.bannedUserRegistry = bannedUserRegistry;
+        this.approximateCounts = approximateCounts;
+        this.userSearchIndex = userSearchIndex;
+        this.activityLogService = activityLogService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
     
     // ==================== CRUD OPERATIONS ====================
     
     /**
-     * Create a new user with auto-generated password
+     * Create a new user with auto-generated password.
+     * The password is hashed before any connection is borrowed, the hashing lane may make us wait;
+     * only the existence check and the insert run in a transaction.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserResponse createUser(UserRequest request) {
-        // Check if user already exists
-        if (userRepository.existsByEmail(request.getEmail())) {
-            throw new ResourceConflictException("User already exists with email: " + request.getEmail());
-        }
-        
         // Generate secure temporary password
         String temporaryPassword = passwordGenerator.generatePassword();
+        String passwordHash = passwordEncoder.encode(temporaryPassword);
         
-        // Create new user
-        User user = User.builder()
-                .name(request.getName())
-                .email(request.getEmail())
-                .password(passwordEncoder.encode(temporaryPassword))
-                .accountType(request.getAccountType() != null ? request.getAccountType() : AccountType.STUDENT)
-                .build();
-        
-        // Save user
-        User savedUser = userRepository.save(user);
+        User savedUser = transactionTemplate.execute(status -> {
+            // Check if user already exists
+            if (userRepository.existsByEmail(request.getEmail())) {
+                throw new ResourceConflictException("User already exists with email: " + request.getEmail());
+            }
+            
+            // Create new user
+            User user = User.builder()
+                    .name(request.getName())
+                    .email(request.getEmail())
+                    .password(passwordHash)
+                    .accountType(request.getAccountType() != null ? request.getAccountType() : AccountType.STUDENT)
+                    .build();
+            
+            // Save user
+            return userRepository.save(user);
+        });
         
         // Send credentials via email
         try {
@@ -84,10 +135,10 @@ public class UserService {
         }
         
         // Return user response with roles and permissions
-        User userWithRoles = userRepository.findByIdWithRolesAndPermissions(savedUser.getId())
+        UserDetailRow detail = userRepository.findDetailById(savedUser.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found after creation"));
         
-        return mapToUserResponse(userWithRoles);
+        return mapToUserResponse(detail);
     }
     
     /**
@@ -107,12 +158,13 @@ public class UserService {
         
         // Save user
         User savedUser = userRepository.save(user);
+        userPrincipalCache.evict(savedUser.getId());
         
         // Return user response with roles and permissions
-        User userWithRoles = userRepository.findByIdWithRolesAndPermissions(savedUser.getId())
+        UserDetailRow detail = userRepository.findDetailById(savedUser.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found after update"));
         
-        return mapToUserResponse(userWithRoles);
+        return mapToUserResponse(detail);
     }
     
     /**
@@ -124,6 +176,9 @@ public class UserService {
         
         user.setStatus(UserStatus.BANNED);
         userRepository.save(user);
+        userPrincipalCache.evict(id);
+        // Existing tokens are refused from the next request on
+        bannedUserRegistry.ban(id);
     }
     
     /**
@@ -135,6 +190,108 @@ public class UserService {
         
         user.setStatus(UserStatus.ACTIVE);
         userRepository.save(user);
+        userPrincipalCache.evict(id);
+        bannedUserRegistry.unban(id);
+    }
+    
+    /**
+     * Ban every selected user with set-based updates. The caller is never banned, and a selection
+     * holding every active user with {@code ban_user} or {@code unban_user} is refused unless the
+     * request sets {@code allowLockout}.
+     */
+    public BulkUserOperationResponse banUsers(BulkUserRequest request) {
+        return updateStatus(request, UserStatus.BANNED);
+    }
+    
+    /**
+     * Unban/activate every selected user with set-based updates
+     */
+    public BulkUserOperationResponse unbanUsers(BulkUserRequest request) {
+        return updateStatus(request, UserStatus.ACTIVE);
+    }
+    
+    /**
+     * One UPDATE per chunk of ids instead of loading and saving each user, then a single
+     * aggregated activity entry (entity listeners do not see bulk updates)
+     */
+    private BulkUserOperationResponse updateStatus(BulkUserRequest request, UserStatus status) {
+        List<Long> ids = userRepository.findIdsForSelection(
+                request.getIds(), request.getAccountType(), request.getStatus(), request.getRoleId());
+        if (status == UserStatus.BANNED) {
+            Long currentUserId = currentUserId();
+            if (currentUserId != null) {
+                ids = ids.stream().filter(id -> !id.equals(currentUserId)).toList();
+            }
+            if (!request.isAllowLockout()) {
+                checkLockout(ids);
+            }
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        int updated = 0;
+        for (int from = 0; from < ids.size(); from += BULK_CHUNK_SIZE) {
+            updated += userRepository.updateStatusByIdIn(
+                    ids.subList(from, Math.min(from + BULK_CHUNK_SIZE, ids.size())), status, now);
+        }
+        
+        userPrincipalCache.evictAll(ids);
+        if (status == UserStatus.BANNED) {
+            bannedUserRegistry.banAll(ids);
+        } else {
+            bannedUserRegistry.unbanAll(ids);
+        }
+        
+        String action = status == UserStatus.BANNED ? "banned" : "unbanned";
+        ActivityLogService.ActivityLogBuilder.create(activityLogService)
+                .description(String.format("%d users %s in bulk", updated, action))
+                .event("users_" + action)
+                .withProperties(bulkLogProperties(request, ids.size(), updated))
+                .log();
+        
+        return new BulkUserOperationResponse(ids.size(), updated);
+    }
+    
+    /**
+     * Refuse a ban that would leave nobody able to ban or unban users
+     */
+    private void checkLockout(List<Long> ids) {
+        Set<Long> selected = new HashSet<>(ids);
+        for (String permission : LOCKOUT_PERMISSIONS) {
+            List<Long> holders = userRepository.findActiveIdsWithPermission(permission);
+            if (!holders.isEmpty() && selected.containsAll(holders)) {
+                throw new ValidationException("The selection includes every active user with the " + permission +
+                        " permission; set allowLockout to ban them anyway");
+            }
+        }
+    }
+    
+    private static Long currentUserId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal principal) {
+            return principal.getId();
+        }
+        return null;
+    }
+    
+    static Map<String, Object> bulkLogProperties(BulkUserRequest request, int selected, int updated) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("selected", selected);
+        properties.put("updated", updated);
+        properties.put("by_ids", request.hasIds());
+        if (request.getAccountType() != null) {
+            properties.put("account_type", request.getAccountType());
+        }
+        if (request.getStatus() != null) {
+            properties.put("status", request.getStatus());
+        }
+        if (request.getRoleId() != null) {
+            properties.put("role_id", request.getRoleId());
+        }
+        if (request.isAllowLockout()) {
+            properties.put("allow_lockout", true);
+        }
+        properties.put("reason", request.getReason() != null ? request.getReason() : "No reason provided");
+        return properties;
     }
     
     /**
@@ -146,31 +303,77 @@ public class UserService {
     }
     
     /**
-     * Get all users (simple response) - Legacy method for backward compatibility
+     * Get all users with pagination, filtering, sorting, and searching
      */
-    public List<UserResponseSimple> getAllUsers() {
-        List<User> users = userRepository.findAll();
+    public Page<UserResponseSimple> getAllUsers(String search, AccountType accountType, UserStatus status, Pageable pageable) {
+        Page<UserSummary> users = userRepository.findUsersWithFilters(search, accountType, status, pageable);
         
-        return users.stream()
-                .map(this::mapToUserResponseSimple)
-                .toList();
+        return users.map(this::mapToUserResponseSimple);
     }
 
     /**
-     * Get all users with pagination, filtering, sorting, and searching
+     * Get users as a slice, without counting the matches
      */
-    public Page<UserResponseSimple> getAllUsers(String search, AccountType accountType, UserStatus status, Pageable pageable) {
-        Page<User> users = userRepository.findUsersWithFilters(search, accountType, status, pageable);
+    @Transactional(readOnly = true)
+    public Slice<UserResponseSimple> getUsersSlice(String search, AccountType accountType, UserStatus status, Pageable pageable) {
+        Slice<UserSummary> users = userRepository.findUsersSliceWithFilters(search, accountType, status, pageable);
         
         return users.map(this::mapToUserResponseSimple);
     }
     
+    /**
+     * Approximate number of users matching the filters, refreshed in the background.
+     * A search term is counted exactly, free text would rarely hit the cache.
+     */
+    public long approximateUserCount(String search, AccountType accountType, UserStatus status) {
+        if (search != null && !search.isBlank()) {
+            return userRepository.countUsersWithFilters(search, accountType, status);
+        }
+        return approximateCounts.get("users:" + accountType + ":" + status,
+                () -> userRepository.countUsersWithFilters(search, accountType, status));
+    }
+    
+    /**
+     * Search users by name or email, best matches first and tolerant of typos
+     */
+    @Transactional(readOnly = true)
+    public List<UserResponseSimple> searchUsers(String query, int limit) {
+        List<Long> ids = userSearchIndex.search(query, limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<Long, UserSummary> users = userRepository.findSummariesByIdIn(ids).stream()
+                .collect(Collectors.toMap(UserSummary::id, Function.identity()));
+        return ids.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .map(this::mapToUserResponseSimple)
+                .toList();
+    }
+    
+    /**
+     * Get the users after a keyset cursor, oldest first. Reads at constant cost per page
+     * however deep the cursor, and only counts the matches when {@code withTotal} is set.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<UserResponseSimple> getUsersAfter(String search, AccountType accountType, UserStatus status,
+                                                        String after, int size, boolean withTotal) {
+        KeysetCursor cursor = KeysetCursor.decode(after, KeysetCursor.FIRST_ASCENDING);
+        List<UserSummary> users = userRepository.findUsersWithFiltersAfter(search, accountType, status,
+                cursor.createdAt(), cursor.id(), Limit.of(size + 1));
+        Long total = withTotal ? userRepository.countUsersWithFilters(search, accountType, status) : null;
+        
+        return CursorPage.of(users, size, user -> new KeysetCursor(user.createdAt(), user.id()),
+                this::mapToUserResponseSimple, total);
+    }
+    
     /**
      * Get user by ID with roles and permissions
      */
     public UserResponse getUserById(Long id) {
         
-        User user = userRepository.findByIdWithRolesAndPermissions(id)
+        UserDetailRow user = userRepository.findDetailById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         
         return mapToUserResponse(user);
@@ -180,7 +383,7 @@ public class UserService {
      * Get user by email with roles and permissions
      */
     public UserResponse getUserByEmail(String email) {        
-        User user = userRepository.findByEmailWithRolesAndPermissions(email)
+        UserDetailRow user = userRepository.findDetailByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
         
         return mapToUserResponse(user);
@@ -229,9 +432,34 @@ public class UserService {
     }
     
     /**
-     * Reset password using token
+     * Reset password using token.
+     * The token is checked, then the new password hashed without holding a connection, then the
+     * token is checked again and consumed in a short transaction so a concurrent reset cannot reuse it.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void resetPassword(String token, String newPassword) {
+        findUserByValidResetToken(token);
+        String passwordHash = passwordEncoder.encode(newPassword);
+        
+        User user = transactionTemplate.execute(status -> {
+            User current = findUserByValidResetToken(token);
+            
+            // Update password
+            current.setPassword(passwordHash);
+            
+            // Clear reset token
+            current.setResetToken(null);
+            current.setResetTokenExpiresAt(null);
+            
+            return userRepository.save(current);
+        });
+        userPrincipalCache.evict(user.getId());
+        
+        // Send confirmation email asynchronously
+        emailService.sendPasswordResetConfirmationEmail(user.getEmail(), user.getName());
+    }
+    
+    private User findUserByValidResetToken(String token) {
         User user = userRepository.findByResetToken(token)
                 .orElseThrow(() -> new BadCredentialsException("Invalid or expired reset token"));
         
@@ -239,18 +467,21 @@ public class UserService {
         if (user.getResetTokenExpiresAt() == null || user.getResetTokenExpiresAt().isBefore(LocalDateTime.now())) {
             throw new BadCredentialsException("Reset token has expired");
         }
-        
-        // Update password
-        user.setPassword(passwordEncoder.encode(newPassword));
-        
-        // Clear reset token
-        user.setResetToken(null);
-        user.setResetTokenExpiresAt(null);
-        
-        userRepository.save(user);
-        
-        // Send confirmation email asynchronously
-        emailService.sendPasswordResetConfirmationEmail(user.getEmail(), user.getName());
+        return user;
+    }
+    
+    /**
+     * Rehash a verified password with the current BCrypt cost.
+     * Hashes before touching the database and only replaces the hash the user was loaded with,
+     * so a password changed in the meantime is kept.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void upgradePasswordHash(User user, String rawPassword) {
+        String upgraded = passwordEncoder.encode(rawPassword);
+        if (userRepository.updatePasswordIfUnchanged(user.getId(), user.getPassword(), upgraded) > 0) {
+            user.setPassword(upgraded);
+            userPrincipalCache.evict(user.getId());
+        }
     }
     
     /**
@@ -308,15 +539,51 @@ public class UserService {
     }
     
     /**
-     * Map User entity to UserResponseSimple DTO
+     * Map a user whose roles and permissions are already known, without touching its associations
      */
-    private UserResponseSimple mapToUserResponseSimple(User user) {
-        return UserResponseSimple.builder()
+    public UserResponse mapToUserResponse(User user, Set<String> roles, Set<String> permissions) {
+        return UserResponse.builder()
                 .id(user.getId())
                 .name(user.getName())
                 .email(user.getEmail())
-                .accountType(user.getAccountType().toString())
-                .status(user.getStatus().toString())
+                .accountType(user.getAccountType())
+                .status(user.getStatus())
+                .roles(new HashSet<>(roles))
+                .permissions(new HashSet<>(permissions))
+                .hasVerifiedEmail(user.isEmailVerified())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .build();
+    }
+    
+    /**
+     * Map a user detail projection to UserResponse DTO
+     */
+    private UserResponse mapToUserResponse(UserDetailRow user) {
+        return UserResponse.builder()
+                .id(user.id())
+                .name(user.name())
+                .email(user.email())
+                .accountType(user.accountType())
+                .status(user.status())
+                .roles(user.roles())
+                .permissions(user.permissions())
+                .hasVerifiedEmail(user.emailVerifiedAt() != null)
+                .createdAt(user.createdAt())
+                .updatedAt(user.updatedAt())
+                .build();
+    }
+    
+    /**
+     * Map a user summary projection to UserResponseSimple DTO
+     */
+    private UserResponseSimple mapToUserResponseSimple(UserSummary user) {
+        return UserResponseSimple.builder()
+                .id(user.id())
+                .name(user.name())
+                .email(user.email())
+                .accountType(user.accountType().toString())
+                .status(user.status().toString())
                 .build();
     }
     
@@ -324,20 +591,24 @@ public class UserService {
      * Generate and send email verification token
      */
     public void sendEmailVerification(String email) {
-        User user = userRepository.findByEmailWithRolesAndPermissions(email)
+        User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with email: " + email));
         
-        // Generate verification token
-        String verificationToken = UUID.randomUUID().toString();
-        
         // Set verification token
-        user.setVerificationToken(verificationToken);
+        user.setVerificationToken(UUID.randomUUID().toString());
         userRepository.save(user);
         
-        // Send verification email
+        sendVerificationEmail(user);
+    }
+    
+    /**
+     * Send the verification email for the token already set on the user
+     */
+    public void sendVerificationEmail(User user) {
+        String verificationToken = user.getVerificationToken();
         String verificationUrl = "http://localhost:3000/auth/verify-email?token=" + verificationToken;
         EmailVerificationEmail emailTemplate = new EmailVerificationEmail(
-            email, 
+            user.getEmail(), 
             user.getName(), 
             verificationToken, 
             verificationUrl
@@ -355,6 +626,10 @@ public class UserService {
         // Mark email as verified
         user.markEmailAsVerified();
         userRepository.save(user);
+        
+        // Tokens issued before verification carry ev=false; stop trusting them and drop the cached principal
+        permissionEpochRegistry.bump(user.getId());
+        userPrincipalCache.evict(user.getId());
     }
     
     /**
@@ -0,0 +1,33 @@
+package com.mphoola.e_empuzitsi.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers the in-memory side effects of a write until its transaction commits.
+ *
+ * Caches and registries that mirror the database must not show a change that may still roll back.
+ * Outside a transaction the change is already durable, so the action runs right away. Actions
+ * registered in one transaction run in registration order.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Run now, or after commit when called inside a transaction
+     */
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
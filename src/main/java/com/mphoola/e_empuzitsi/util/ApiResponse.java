@@ -1,6 +1,8 @@
 package com.mphoola.e_empuzitsi.util;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -46,6 +48,35 @@ public class ApiResponse {
         return ResponseEntity.ok(response);
     }
     
+    /**
+     * Create a successful response with a slice, no total is counted
+     */
+    public static <T> ResponseEntity<Map<String, Object>> success(String message, Slice<T> slice, String basePath) {
+        return success(message, slice, basePath, null);
+    }
+    
+    /**
+     * Create a successful response with a slice and an approximate total (null when not known)
+     */
+    public static <T> ResponseEntity<Map<String, Object>> success(String message, Slice<T> slice, String basePath, Long approximateTotal) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", message);
+        response.put("errors", new HashMap<>());
+        response.put("data", createSlicedData(slice, basePath, approximateTotal));
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Create a successful response with a keyset-paginated page
+     */
+    public static <T> ResponseEntity<Map<String, Object>> success(String message, CursorPage<T> page, String basePath) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", message);
+        response.put("errors", new HashMap<>());
+        response.put("data", createCursorPaginatedData(page, basePath));
+        return ResponseEntity.ok(response);
+    }
+    
     /**
      * Create a successful response without data
      */
@@ -185,6 +216,24 @@ public class ApiResponse {
         return error(message, HttpStatus.CONFLICT);
     }
     
+    /**
+     * Create a service unavailable response telling the client when to retry
+     */
+    public static ResponseEntity<Map<String, Object>> serviceUnavailable(String message, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(error(message, HttpStatus.SERVICE_UNAVAILABLE).getBody());
+    }
+    
+    /**
+     * Create a too many requests response telling the client when to retry
+     */
+    public static ResponseEntity<Map<String, Object>> tooManyRequests(String message, long retryAfterSeconds) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .body(error(message, HttpStatus.TOO_MANY_REQUESTS).getBody());
+    }
+
     /**
      * Create a method not allowed response
      */
@@ -255,6 +304,67 @@ public class ApiResponse {
         return data;
     }
     
+    /**
+     * Helper method to create slice data: has_more replaces the total-dependent fields, which
+     * are only filled from an approximate total when one is given
+     */
+    private static <T> Map<String, Object> createSlicedData(Slice<T> slice, String basePath, Long approximateTotal) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("current_page", slice.getNumber() + 1); // Spring uses 0-based, API uses 1-based
+        data.put("data", slice.getContent());
+        data.put("first_page_url", createPageUrl(basePath, 1));
+        data.put("from", slice.hasContent() ? slice.getNumber() * slice.getSize() + 1 : 0);
+        data.put("has_more", slice.hasNext());
+        data.put("next_page_url", slice.hasNext() ? createPageUrl(basePath, slice.getNumber() + 2) : null);
+        data.put("path", basePath);
+        data.put("per_page", slice.getSize());
+        data.put("prev_page_url", slice.hasPrevious() ? createPageUrl(basePath, slice.getNumber()) : null);
+        data.put("to", slice.hasContent() ? slice.getNumber() * slice.getSize() + slice.getNumberOfElements() : 0);
+        data.put("total", approximateTotal);
+        data.put("total_is_approximate", approximateTotal != null);
+        
+        Map<String, Object> links = new HashMap<>();
+        links.put("first", createPageUrl(basePath, 1));
+        if (slice.hasPrevious()) {
+            links.put("prev", createPageUrl(basePath, slice.getNumber()));
+        }
+        if (slice.hasNext()) {
+            links.put("next", createPageUrl(basePath, slice.getNumber() + 2));
+        }
+        data.put("links", links);
+        
+        return data;
+    }
+    
+    /**
+     * Helper method to create keyset-paginated data; the next page is addressed by cursor rather than number
+     */
+    private static <T> Map<String, Object> createCursorPaginatedData(CursorPage<T> page, String basePath) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("data", page.content());
+        data.put("path", basePath);
+        data.put("per_page", page.size());
+        data.put("next_cursor", page.nextCursor());
+        data.put("next_page_url", page.hasNext() ? createCursorUrl(basePath, page.nextCursor()) : null);
+        data.put("total", page.total());
+        
+        Map<String, Object> links = new HashMap<>();
+        links.put("first", createCursorUrl(basePath, ""));
+        if (page.hasNext()) {
+            links.put("next", createCursorUrl(basePath, page.nextCursor()));
+        }
+        data.put("links", links);
+        
+        return data;
+    }
+    
+    /**
+     * Helper method to create cursor page URLs
+     */
+    private static String createCursorUrl(String basePath, String cursor) {
+        return String.format("%s?after=%s", basePath, cursor);
+    }
+    
     /**
      * Helper method to create page URLs
      */
@@ -0,0 +1,20 @@
+package com.mphoola.e_empuzitsi.util;
+
+/**
+ * How a paginated listing reports its total
+ */
+public enum CountMode {
+    /**
+     * Page with an exact total, one COUNT query per request
+     */
+    EXACT,
+    /**
+     * Slice with has_more and no total, no COUNT query
+     */
+    NONE,
+    /**
+     * Slice with a cached total that may lag behind by the refresh interval. Free-text and other
+     * high-cardinality filters are counted exactly instead.
+     */
+    APPROXIMATE
+}
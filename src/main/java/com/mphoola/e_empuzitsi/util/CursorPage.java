@@ -0,0 +1,29 @@
+package com.mphoola.e_empuzitsi.util;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing.
+ *
+ * {@code nextCursor} is null on the last page. {@code total} is only computed when asked for,
+ * since counting rescans every matching row.
+ */
+public record CursorPage<T>(List<T> content, int size, String nextCursor, Long total) {
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Build a page from rows fetched with a limit of {@code size + 1}; the extra row only
+     * signals that there is a next page and is not returned
+     */
+    public static <E, T> CursorPage<T> of(List<E> rows, int size, Function<E, KeysetCursor> cursorOf,
+                                          Function<E, T> mapper, Long total) {
+        boolean hasNext = rows.size() > size;
+        List<E> page = hasNext ? rows.subList(0, size) : rows;
+        String nextCursor = hasNext ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+        return new CursorPage<>(page.stream().map(mapper).toList(), size, nextCursor, total);
+    }
+}
@@ -0,0 +1,32 @@
+package com.mphoola.e_empuzitsi.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.support.JdbcUtils;
+
+import javax.sql.DataSource;
+
+/**
+ * Tells which database the application runs on, for the few features that are PostgreSQL only.
+ */
+public final class DatabaseProduct {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseProduct.class);
+
+    private DatabaseProduct() {
+    }
+
+    /**
+     * Whether the data source is PostgreSQL; false when the metadata cannot be read
+     */
+    public static boolean isPostgres(DataSource dataSource) {
+        try {
+            String product = JdbcUtils.extractDatabaseMetaData(dataSource,
+                    metaData -> metaData.getDatabaseProductName());
+            return "PostgreSQL".equalsIgnoreCase(product);
+        } catch (Exception e) {
+            log.debug("Could not determine database product: {}", e.getMessage());
+            return false;
+        }
+    }
+}
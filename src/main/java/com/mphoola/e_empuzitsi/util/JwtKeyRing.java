@@ -0,0 +1,115 @@
+package com.mphoola.e_empuzitsi.util;
+
+import io.jsonwebtoken.Header;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.ProtectedHeader;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable set of JWT signing keys identified by {@code kid}.
+ *
+ * The active key signs new tokens; retiring keys only verify tokens issued before a rotation
+ * and stop being accepted once every token they could have signed has expired. Keys and the
+ * parser are built once per ring, a rotation simply swaps in a new ring.
+ */
+public final class JwtKeyRing {
+
+    private final String activeKeyId;
+    private final SecretKey activeKey;
+    private final Map<String, SecretKey> keys;
+    private final Map<String, Instant> retireAt;
+    private final JwtParser parser;
+
+    private JwtKeyRing(String activeKeyId, Map<String, SecretKey> keys, Map<String, Instant> retireAt) {
+        this.activeKeyId = activeKeyId;
+        this.activeKey = keys.get(activeKeyId);
+        this.keys = Map.copyOf(keys);
+        this.retireAt = Map.copyOf(retireAt);
+        this.parser = Jwts.parser()
+                .keyLocator(this::locate)
+                .build();
+    }
+
+    /**
+     * Create a ring from the active secret and any retiring secrets (kid to secret)
+     */
+    public static JwtKeyRing of(String activeKeyId, String activeSecret, Map<String, String> retiringSecrets) {
+        Map<String, SecretKey> keys = new HashMap<>();
+        retiringSecrets.forEach((kid, secret) -> keys.put(kid, toKey(secret)));
+        keys.put(activeKeyId, toKey(activeSecret));
+        return new JwtKeyRing(activeKeyId, keys, Map.of());
+    }
+
+    /**
+     * Make a new key active. The current active key keeps verifying until {@code retireAt}.
+     */
+    public JwtKeyRing rotate(String newKeyId, String newSecret, Instant retireOldKeyAt) {
+        if (newKeyId.equals(activeKeyId)) {
+            throw new IllegalArgumentException("Key id is already active: " + newKeyId);
+        }
+
+        Instant now = Instant.now();
+        Map<String, SecretKey> nextKeys = new HashMap<>();
+        Map<String, Instant> nextRetireAt = new HashMap<>();
+
+        // Drop keys whose tokens can no longer be valid
+        keys.forEach((kid, key) -> {
+            Instant deadline = retireAt.get(kid);
+            if (deadline == null || deadline.isAfter(now)) {
+                nextKeys.put(kid, key);
+                if (deadline != null) {
+                    nextRetireAt.put(kid, deadline);
+                }
+            }
+        });
+
+        nextRetireAt.put(activeKeyId, retireOldKeyAt);
+        nextKeys.put(newKeyId, toKey(newSecret));
+        nextRetireAt.remove(newKeyId);
+
+        return new JwtKeyRing(newKeyId, nextKeys, nextRetireAt);
+    }
+
+    public String getActiveKeyId() {
+        return activeKeyId;
+    }
+
+    public SecretKey getActiveKey() {
+        return activeKey;
+    }
+
+    public JwtParser getParser() {
+        return parser;
+    }
+
+    /**
+     * Resolve the verification key from the token header.
+     * Tokens issued before key ids were introduced carry no {@code kid} and use the active key.
+     */
+    private Key locate(Header header) {
+        String kid = header instanceof ProtectedHeader protectedHeader ? protectedHeader.getKeyId() : null;
+        if (kid == null) {
+            return activeKey;
+        }
+
+        SecretKey key = keys.get(kid);
+        Instant deadline = retireAt.get(kid);
+        if (key == null || (deadline != null && deadline.isBefore(Instant.now()))) {
+            throw new SecurityException("Unknown or retired JWT signing key: " + kid);
+        }
+        return key;
+    }
+
+    private static SecretKey toKey(String secret) {
+        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,7 +1,6 @@
 package com.mphoola.e_empuzitsi.util;
 
 import io.jsonwebtoken.*;
-import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SecurityException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,10 +8,18 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import com.mphoola.e_empuzitsi.security.UserPrincipal;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
@@ -20,14 +27,73 @@ public class JwtUtil {
     
     private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
     
+    public static final String CLAIM_AUTHORITIES = "authorities";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_NAME = "name";
+    public static final String CLAIM_PERMISSION_EPOCH = "pv";
+    public static final String CLAIM_EMAIL_VERIFIED = "ev";
+    
     @Value("${app.jwt.secret:mySecretKeyThatMustBeAtLeast256BitsLongForHMACAlgorithmToWorkProperlyInJWT}")
     private String jwtSecret;
     
     @Value("${app.jwt.expiration:86400}")
     private int jwtExpirationInMs; // 24 hours in seconds
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @Value("${app.jwt.key-id:primary}")
+    private String jwtKeyId = "primary";
+    
+    // Comma-separated kid=secret pairs still accepted for verification after a rotation
+    @Value("${app.jwt.retiring-keys:}")
+    private String retiringKeys = "";
+    
+    private volatile JwtKeyRing keyRing;
+    
+    /**
+     * Key ring built once from configuration and replaced atomically on rotation
+     */
+    private JwtKeyRing getKeyRing() {
+        JwtKeyRing ring = keyRing;
+        if (ring == null) {
+            synchronized (this) {
+                ring = keyRing;
+                if (ring == null) {
+                    ring = JwtKeyRing.of(jwtKeyId, jwtSecret, parseRetiringKeys(retiringKeys));
+                    keyRing = ring;
+                }
+            }
+        }
+        return ring;
+    }
+    
+    /**
+     * Rotate the signing key without a restart.
+     * Tokens signed with the previous key stay valid until they would have expired anyway.
+     */
+    public synchronized void rotateSigningKey(String keyId, String secret) {
+        Instant retireAt = Instant.now().plusSeconds(Math.max(jwtExpirationInMs, 0));
+        keyRing = getKeyRing().rotate(keyId, secret, retireAt);
+        log.info("Rotated JWT signing key to '{}'", keyId);
+    }
+    
+    /**
+     * Id of the key currently signing new tokens
+     */
+    public String getActiveKeyId() {
+        return getKeyRing().getActiveKeyId();
+    }
+    
+    private static Map<String, String> parseRetiringKeys(String value) {
+        Map<String, String> keys = new HashMap<>();
+        if (value == null || value.isBlank()) {
+            return keys;
+        }
+        for (String entry : value.split(",")) {
+            int separator = entry.indexOf('=');
+            if (separator > 0) {
+                keys.put(entry.substring(0, separator).trim(), entry.substring(separator + 1).trim());
+            }
+        }
+        return keys;
     }
     
     /**
@@ -43,12 +109,25 @@ public class JwtUtil {
         
         Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs * 1000L);
         
-        return Jwts.builder()
+        JwtBuilder builder = Jwts.builder()
                 .subject(userPrincipal.getUsername())
-                .claim("authorities", authorities)
+                .claim(CLAIM_AUTHORITIES, authorities);
+        
+        // Identity, verification state and permission epoch let the filter trust the claims without a lookup
+        if (userPrincipal instanceof UserPrincipal principal && principal.getId() != null) {
+            builder.claim(CLAIM_USER_ID, principal.getId())
+                    .claim(CLAIM_NAME, principal.getName())
+                    .claim(CLAIM_EMAIL_VERIFIED, principal.isEmailVerified())
+                    .claim(CLAIM_PERMISSION_EPOCH, principal.getPermissionEpoch());
+        }
+        
+        JwtKeyRing ring = getKeyRing();
+        return builder
+                .header().keyId(ring.getActiveKeyId()).and()
+                .id(UUID.randomUUID().toString())
                 .issuedAt(new Date())
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(ring.getActiveKey())
                 .compact();
     }
     
@@ -58,23 +137,47 @@ public class JwtUtil {
     public String generateToken(String username) {
         Date expiryDate = new Date(System.currentTimeMillis() + jwtExpirationInMs * 1000L);
         
+        JwtKeyRing ring = getKeyRing();
         return Jwts.builder()
+                .header().keyId(ring.getActiveKeyId()).and()
+                .id(UUID.randomUUID().toString())
                 .subject(username)
                 .issuedAt(new Date())
                 .expiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(ring.getActiveKey())
                 .compact();
     }
     
     /**
-     * Extract username from JWT token
+     * Parse and verify a JWT token once, returning all of its claims
      */
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
+    public Claims getClaimsFromToken(String token) {
+        return getKeyRing().getParser()
                 .parseSignedClaims(token)
                 .getPayload();
+    }
+    
+    /**
+     * Id used to revoke a token: its jti, or a digest of the token for tokens issued without one
+     */
+    public String getTokenId(Claims claims, String token) {
+        String id = claims.getId();
+        if (id != null) {
+            return id;
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return "sha256:" + HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    /**
+     * Extract username from JWT token
+     */
+    public String getUsernameFromToken(String token) {
+        Claims claims = getClaimsFromToken(token);
         
         return claims.getSubject();
     }
@@ -83,24 +186,16 @@ public class JwtUtil {
      * Extract authorities from JWT token
      */
     public String getAuthoritiesFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = getClaimsFromToken(token);
         
-        return claims.get("authorities", String.class);
+        return claims.get(CLAIM_AUTHORITIES, String.class);
     }
     
     /**
      * Get expiration date from JWT token
      */
     public Date getExpirationDateFromToken(String token) {
-        Claims claims = Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        Claims claims = getClaimsFromToken(token);
         
         return claims.getExpiration();
     }
@@ -118,10 +213,7 @@ public class JwtUtil {
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
+            getClaimsFromToken(token);
             return true;
         } catch (SecurityException ex) {
             log.error("Invalid JWT signature: {}", ex.getMessage());
@@ -0,0 +1,62 @@
+package com.mphoola.e_empuzitsi.util;
+
+import com.mphoola.e_empuzitsi.exception.ValidationException;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated listing: the sort key and id of the last row returned.
+ *
+ * Clients get it as an opaque URL-safe token and send it back as {@code after}; the next page is
+ * read with an index-backed seek predicate instead of an OFFSET. {@code createdAt} is null for
+ * listings ordered by id alone.
+ */
+public record KeysetCursor(LocalDateTime createdAt, long id) {
+
+    /**
+     * Position before the first row of an ascending listing
+     */
+    public static final KeysetCursor FIRST_ASCENDING = new KeysetCursor(LocalDateTime.of(1970, 1, 1, 0, 0), 0L);
+
+    /**
+     * Position before the first row of a descending listing
+     */
+    public static final KeysetCursor FIRST_DESCENDING = new KeysetCursor(LocalDateTime.of(2999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    private static final char SEPARATOR = '|';
+
+    /**
+     * Encode as an opaque token
+     */
+    public String encode() {
+        String value = (createdAt != null ? createdAt.toString() : "") + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decode a token from {@link #encode()}, or return {@code first} when there is none
+     */
+    public static KeysetCursor decode(String token, KeysetCursor first) {
+        if (!StringUtils.hasText(token)) {
+            return first;
+        }
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new ValidationException("Invalid pagination cursor");
+            }
+            String createdAt = value.substring(0, separator);
+            return new KeysetCursor(
+                    createdAt.isEmpty() ? first.createdAt() : LocalDateTime.parse(createdAt),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ValidationException("Invalid pagination cursor", e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.mphoola.e_empuzitsi.benchmark;
+
+import com.mphoola.e_empuzitsi.EEmpuzitsiApplication;
+import com.mphoola.e_empuzitsi.entity.Permission;
+import com.mphoola.e_empuzitsi.entity.Role;
+import com.mphoola.e_empuzitsi.entity.User;
+import com.mphoola.e_empuzitsi.entity.UserPermission;
+import com.mphoola.e_empuzitsi.entity.UserRole;
+import com.mphoola.e_empuzitsi.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark for loading a user with roles and permissions.
+ *
+ * Compares the previous single query joining every collection with the per-collection queries in
+ * UserRepositoryImpl, for a user with 3 roles of 40 permissions each and 10 direct permissions.
+ * The rows each approach reads from the database are printed once at setup.
+ *
+ * Run with:
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main UserGraphLoadBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserGraphLoadBenchmark {
+
+    private static final int ROLES = 3;
+    private static final int PERMISSIONS_PER_ROLE = 40;
+    private static final int DIRECT_PERMISSIONS = 10;
+
+    private static final String CARTESIAN_JOIN_FETCH = "SELECT DISTINCT u FROM User u " +
+            "LEFT JOIN FETCH u.userRoles ur " +
+            "LEFT JOIN FETCH ur.role r " +
+            "LEFT JOIN FETCH r.permissions rp " +
+            "LEFT JOIN FETCH u.userPermissions up " +
+            "LEFT JOIN FETCH up.permission " +
+            "WHERE u.email = :email";
+
+    private ConfigurableApplicationContext context;
+    private EntityManagerFactory entityManagerFactory;
+    private UserRepository userRepository;
+    private String email;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(EEmpuzitsiApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run();
+        entityManagerFactory = context.getBean(EntityManagerFactory.class);
+        userRepository = context.getBean(UserRepository.class);
+        email = "graph-benchmark@example.com";
+
+        Long userId = new TransactionTemplate(context.getBean(PlatformTransactionManager.class))
+                .execute(status -> seed(context.getBean(EntityManager.class)));
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            Number cartesianRows = (Number) entityManager.createNativeQuery(
+                    "SELECT COUNT(*) FROM users u " +
+                    "LEFT JOIN user_roles ur ON ur.user_id = u.id " +
+                    "LEFT JOIN roles r ON r.id = ur.role_id " +
+                    "LEFT JOIN role_permissions rp ON rp.role_id = r.id " +
+                    "LEFT JOIN user_permissions up ON up.user_id = u.id " +
+                    "WHERE u.id = :id")
+                    .setParameter("id", userId)
+                    .getSingleResult();
+            Number userRoleRows = (Number) entityManager.createNativeQuery(
+                    "SELECT COUNT(*) FROM users u LEFT JOIN user_roles ur ON ur.user_id = u.id WHERE u.id = :id")
+                    .setParameter("id", userId)
+                    .getSingleResult();
+            Number rolePermissionRows = (Number) entityManager.createNativeQuery(
+                    "SELECT COUNT(*) FROM role_permissions rp JOIN user_roles ur ON ur.role_id = rp.role_id WHERE ur.user_id = :id")
+                    .setParameter("id", userId)
+                    .getSingleResult();
+            Number directPermissionRows = (Number) entityManager.createNativeQuery(
+                    "SELECT COUNT(*) FROM users u LEFT JOIN user_permissions up ON up.user_id = u.id WHERE u.id = :id")
+                    .setParameter("id", userId)
+                    .getSingleResult();
+            System.out.printf("Rows read: cartesian join fetch %d, per-collection queries %d (%d + %d + %d)%n",
+                    cartesianRows.longValue(),
+                    userRoleRows.longValue() + rolePermissionRows.longValue() + directPermissionRows.longValue(),
+                    userRoleRows.longValue(), rolePermissionRows.longValue(), directPermissionRows.longValue());
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private Long seed(EntityManager entityManager) {
+        User user = User.builder()
+                .name("Graph Benchmark")
+                .email(email)
+                .password("unused")
+                .build();
+        entityManager.persist(user);
+
+        for (int r = 0; r < ROLES; r++) {
+            Set<Permission> permissions = new HashSet<>();
+            for (int p = 0; p < PERMISSIONS_PER_ROLE; p++) {
+                permissions.add(permission(entityManager, "graph_benchmark_role" + r + "_" + p));
+            }
+            Role role = Role.builder()
+                    .name("GRAPH_BENCHMARK_" + r)
+                    .permissions(permissions)
+                    .build();
+            entityManager.persist(role);
+            entityManager.persist(UserRole.builder().user(user).role(role).build());
+        }
+
+        for (int p = 0; p < DIRECT_PERMISSIONS; p++) {
+            Permission permission = permission(entityManager, "graph_benchmark_direct_" + p);
+            entityManager.persist(UserPermission.builder().user(user).permission(permission).build());
+        }
+        return user.getId();
+    }
+
+    private static Permission permission(EntityManager entityManager, String name) {
+        Permission permission = Permission.builder().name(name).build();
+        entityManager.persist(permission);
+        return permission;
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Previous behaviour: every collection joined into one result set
+     */
+    @Benchmark
+    public Object cartesianJoinFetch() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            User user = entityManager.createQuery(CARTESIAN_JOIN_FETCH, User.class)
+                    .setParameter("email", email)
+                    .getSingleResult();
+            return user.getUserRoles().size() + user.getUserPermissions().size();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Current behaviour: one keyed query per collection
+     */
+    @Benchmark
+    public Object perCollectionQueries() {
+        User user = userRepository.findByEmailWithRolesAndPermissions(email).orElseThrow();
+        return user.getUserRoles().size() + user.getUserPermissions().size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserGraphLoadBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
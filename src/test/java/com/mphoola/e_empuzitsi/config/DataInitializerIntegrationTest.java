@@ -0,0 +1,94 @@
+package com.mphoola.e_empuzitsi.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the seed statements against the H2 test database
+ * Tests the seeded permissions, roles, ADMIN grants and admin link, and that seeding again changes nothing
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("DataInitializer Integration Tests")
+class DataInitializerIntegrationTest {
+
+    private static final String ADMIN_EMAIL = "admin@gmail.com";
+
+    @Autowired
+    private DataInitializer dataInitializer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        // Forget the applied checksum so the seed runs here whatever other tests left behind
+        forgetChecksum();
+        dataInitializer.run();
+    }
+
+    @Test
+    @DisplayName("Should seed every permission, role, ADMIN grant and the admin user's ADMIN role")
+    void should_seed_roles_and_permissions() {
+        assertThat(names("SELECT name FROM permissions")).containsAll(DataInitializer.PERMISSION_NAMES);
+        assertThat(names("SELECT name FROM roles")).containsAll(DataInitializer.ROLE_NAMES);
+        assertThat(names("SELECT p.name FROM role_permissions rp " +
+                "JOIN roles r ON r.id = rp.role_id JOIN permissions p ON p.id = rp.permission_id " +
+                "WHERE r.name = 'ADMIN'")).containsAll(DataInitializer.PERMISSION_NAMES);
+        assertThat(names("SELECT r.name FROM user_roles ur " +
+                "JOIN roles r ON r.id = ur.role_id JOIN users u ON u.id = ur.user_id " +
+                "WHERE u.email = '" + ADMIN_EMAIL + "'")).containsExactly("ADMIN");
+        assertThat(names("SELECT p.name FROM user_effective_permissions e " +
+                "JOIN permissions p ON p.id = e.permission_id JOIN users u ON u.id = e.user_id " +
+                "WHERE u.email = '" + ADMIN_EMAIL + "'")).containsAll(DataInitializer.PERMISSION_NAMES);
+        assertThat(jdbcTemplate.queryForObject("SELECT checksum FROM seed_checksums WHERE name = ?",
+                String.class, DataInitializer.SEED_NAME)).isEqualTo(DataInitializer.checksum());
+    }
+
+    @Test
+    @DisplayName("Should change nothing when the seed runs a second time")
+    void should_be_idempotent() throws Exception {
+        Map<String, Long> before = counts();
+
+        // Once skipped on the stored checksum, once applied again in full
+        dataInitializer.run();
+        forgetChecksum();
+        dataInitializer.run();
+
+        assertThat(counts()).isEqualTo(before);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users WHERE email = ?",
+                Long.class, ADMIN_EMAIL)).isEqualTo(1L);
+    }
+
+    private void forgetChecksum() {
+        jdbcTemplate.update("DELETE FROM seed_checksums WHERE name = ?", DataInitializer.SEED_NAME);
+    }
+
+    private List<String> names(String sql) {
+        return jdbcTemplate.queryForList(sql, String.class);
+    }
+
+    private Map<String, Long> counts() {
+        return Map.of(
+                "permissions", count("permissions"),
+                "roles", count("roles"),
+                "role_permissions", count("role_permissions"),
+                "user_roles", count("user_roles"),
+                "users", count("users"),
+                "user_effective_permissions", count("user_effective_permissions"));
+    }
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+}
@@ -1,23 +1,22 @@
 package com.mphoola.e_empuzitsi.config;
 
-import com.mphoola.e_empuzitsi.entity.Permission;
-import com.mphoola.e_empuzitsi.entity.Role;
 import com.mphoola.e_empuzitsi.entity.User;
-import com.mphoola.e_empuzitsi.repository.PermissionRepository;
-import com.mphoola.e_empuzitsi.repository.RoleRepository;
 import com.mphoola.e_empuzitsi.repository.UserRepository;
+import com.mphoola.e_empuzitsi.security.EffectivePermissionStore;
+import com.mphoola.e_empuzitsi.security.PermissionEpochRegistry;
+import com.mphoola.e_empuzitsi.security.UserPrincipalCache;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
-import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -26,277 +25,109 @@ import static org.mockito.Mockito.*;
 class DataInitializerTest {
 
     @Mock
-    private RoleRepository roleRepository;
+    private UserRepository userRepository;
 
     @Mock
-    private PermissionRepository permissionRepository;
+    private SeedGuard seedGuard;
 
     @Mock
-    private UserRepository userRepository;
+    private JdbcTemplate jdbcTemplate;
 
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private EffectivePermissionStore effectivePermissionStore;
+
+    @Mock
+    private PermissionEpochRegistry permissionEpochRegistry;
+
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
     @InjectMocks
     private DataInitializer dataInitializer;
 
-    @Test
-    @DisplayName("Should initialize permissions when they don't exist")
-    void should_initialize_permissions_when_they_dont_exist() throws Exception {
-        // Given
-        when(permissionRepository.existsByName(anyString())).thenReturn(false);
-        when(userRepository.existsByEmail("admin@gmail.com")).thenReturn(false);
-        when(passwordEncoder.encode(anyString())).thenReturn("encoded_password");
-        
-        Permission mockPermission = Permission.builder()
-                .name("upload_lesson")
-                .build();
-        when(permissionRepository.save(any(Permission.class))).thenReturn(mockPermission);
-        when(userRepository.save(any(User.class))).thenReturn(new User());
-        
-        // When
-        dataInitializer.run();
-        
-        // Then
-        verify(permissionRepository, times(17)).existsByName(anyString());
-        verify(permissionRepository, times(17)).save(any(Permission.class));
-        
-        // Verify specific permissions are checked
-        verify(permissionRepository).existsByName("upload_lesson");
-        verify(permissionRepository).existsByName("create_quiz");
-        verify(permissionRepository).existsByName("manage_users");
-        verify(permissionRepository).existsByName("view_lessons");
-        verify(permissionRepository).existsByName("add_role");
-        verify(permissionRepository).existsByName("update_role");
-        verify(permissionRepository).existsByName("delete_role");
-        verify(permissionRepository).existsByName("view_role_details");
+    private void runSeedStep() {
+        when(seedGuard.runIfChanged(eq(DataInitializer.SEED_NAME), eq(DataInitializer.checksum()), any(Runnable.class)))
+                .thenAnswer(invocation -> {
+                    invocation.<Runnable>getArgument(2).run();
+                    return true;
+                });
     }
 
     @Test
-    @DisplayName("Should not create permissions when they already exist")
-    void should_not_create_permissions_when_they_exist() throws Exception {
+    @DisplayName("Should skip seeding when the seed guard finds the checksum current")
+    void should_skip_seeding_when_checksum_matches() throws Exception {
         // Given
-        when(permissionRepository.existsByName(anyString())).thenReturn(true);
-        when(userRepository.existsByEmail("admin@gmail.com")).thenReturn(true);
-        
-        // When
-        dataInitializer.run();
-        
-        // Then
-        verify(permissionRepository, times(17)).existsByName(anyString());
-        verify(permissionRepository, never()).save(any(Permission.class));
-        verify(userRepository, never()).save(any(User.class));
-    }
+        when(seedGuard.runIfChanged(eq(DataInitializer.SEED_NAME), eq(DataInitializer.checksum()), any(Runnable.class)))
+                .thenReturn(false);
 
-    @Test
-    @DisplayName("Should initialize STUDENT role with correct permissions")
-    void should_initialize_student_role_with_correct_permissions() throws Exception {
-        // Given
-        when(permissionRepository.existsByName(anyString())).thenReturn(true);
-        when(roleRepository.existsByName("STUDENT")).thenReturn(false);
-        when(roleRepository.existsByName("TEACHER")).thenReturn(true);
-        when(roleRepository.existsByName("ADMIN")).thenReturn(true);
-        when(userRepository.existsByEmail("admin@gmail.com")).thenReturn(true);
-        
-        // Mock student permissions
-        Permission takeQuiz = Permission.builder().name("take_quiz").build();
-        Permission viewLessons = Permission.builder().name("view_lessons").build();
-        Permission participateDiscussion = Permission.builder().name("participate_discussion").build();
-        
-        when(permissionRepository.findByName("take_quiz")).thenReturn(Optional.of(takeQuiz));
-        when(permissionRepository.findByName("view_lessons")).thenReturn(Optional.of(viewLessons));
-        when(permissionRepository.findByName("participate_discussion")).thenReturn(Optional.of(participateDiscussion));
-        
-        Role mockStudentRole = Role.builder().name("STUDENT").build();
-        when(roleRepository.save(any(Role.class))).thenReturn(mockStudentRole);
-        
         // When
         dataInitializer.run();
-        
-        // Then
-        verify(roleRepository).existsByName("STUDENT");
-        verify(roleRepository).save(argThat(role -> 
-            role.getName().equals("STUDENT") && role.getPermissions().size() == 3
-        ));
-        
-        // Verify student permissions are retrieved
-        verify(permissionRepository).findByName("take_quiz");
-        verify(permissionRepository).findByName("view_lessons");
-        verify(permissionRepository).findByName("participate_discussion");
-    }
 
-    @Test
-    @DisplayName("Should initialize TEACHER role with correct permissions")
-    void should_initialize_teacher_role_with_correct_permissions() throws Exception {
-        // Given
-        when(permissionRepository.existsByName(anyString())).thenReturn(true);
-        when(roleRepository.existsByName("STUDENT")).thenReturn(true);
-        when(roleRepository.existsByName("TEACHER")).thenReturn(false);
-        when(roleRepository.existsByName("ADMIN")).thenReturn(true);
-        when(userRepository.existsByEmail("admin@gmail.com")).thenReturn(true);
-        
-        // Mock teacher permissions - Updated to 10 permissions including "view_role_details"
-        List<String> teacherPermissions = Arrays.asList(
-            "upload_lesson", "create_quiz", "grade_quiz", "manage_students",
-            "view_reports", "manage_subjects", "view_lessons", "participate_discussion", 
-            "take_quiz", "view_role_details"
-        );
-        
-        for (String permName : teacherPermissions) {
-            Permission perm = Permission.builder().name(permName).build();
-            when(permissionRepository.findByName(permName)).thenReturn(Optional.of(perm));
-        }
-        
-        Role mockTeacherRole = Role.builder().name("TEACHER").build();
-        when(roleRepository.save(any(Role.class))).thenReturn(mockTeacherRole);
-        
-        // When
-        dataInitializer.run();
-        
         // Then
-        verify(roleRepository).existsByName("TEACHER");
-        verify(roleRepository).save(argThat(role -> 
-            role.getName().equals("TEACHER") && role.getPermissions().size() == 10
-        ));
-        
-        // Verify some teacher permissions are retrieved
-        verify(permissionRepository).findByName("upload_lesson");
-        verify(permissionRepository).findByName("create_quiz");
-        verify(permissionRepository).findByName("manage_students");
-        verify(permissionRepository).findByName("view_role_details");
+        verifyNoInteractions(jdbcTemplate, userRepository, passwordEncoder, effectivePermissionStore);
     }
 
     @Test
-    @DisplayName("Should initialize ADMIN role with all permissions")
-    void should_initialize_admin_role_with_all_permissions() throws Exception {
+    @DisplayName("Should seed with one statement per table")
+    void should_seed_with_one_statement_per_table() throws Exception {
         // Given
-        when(permissionRepository.existsByName(anyString())).thenReturn(true);
-        when(roleRepository.existsByName("STUDENT")).thenReturn(true);
-        when(roleRepository.existsByName("TEACHER")).thenReturn(true);
-        when(roleRepository.existsByName("ADMIN")).thenReturn(false);
-        when(userRepository.existsByEmail("admin@gmail.com")).thenReturn(true);
-        
-        // Mock all 17 permissions for admin
-        List<Permission> allPermissions = Arrays.asList(
-            Permission.builder().name("upload_lesson").build(),
-            Permission.builder().name("create_quiz").build(),
-            Permission.builder().name("grade_quiz").build(),
-            Permission.builder().name("manage_students").build(),
-            Permission.builder().name("view_reports").build(),
-            Permission.builder().name("manage_subjects").build(),
-            Permission.builder().name("manage_users").build(),
-            Permission.builder().name("manage_roles").build(),
-            Permission.builder().name("manage_permissions").build(),
-            Permission.builder().name("view_analytics").build(),
-            Permission.builder().name("take_quiz").build(),
-            Permission.builder().name("view_lessons").build(),
-            Permission.builder().name("participate_discussion").build(),
-            Permission.builder().name("add_role").build(),
-            Permission.builder().name("update_role").build(),
-            Permission.builder().name("delete_role").build(),
-            Permission.builder().name("view_role_details").build()
-        );
-        
-        when(permissionRepository.findAll()).thenReturn(allPermissions);
-        
-        Role mockAdminRole = Role.builder().name("ADMIN").build();
-        when(roleRepository.save(any(Role.class))).thenReturn(mockAdminRole);
-        
+        runSeedStep();
+        when(userRepository.existsByEmail("admin@gmail.com")).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("encoded_password");
+
         // When
         dataInitializer.run();
-        
+
         // Then
-        verify(roleRepository).existsByName("ADMIN");
-        verify(permissionRepository).findAll();
-        verify(roleRepository).save(argThat(role -> 
-            role.getName().equals("ADMIN") && role.getPermissions().size() == 17
-        ));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO permissions"), any(Object[].class));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO roles"), any(Object[].class));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO role_permissions"), any(Object[].class));
+        verify(jdbcTemplate).update(startsWith("INSERT INTO user_roles"), any(Object[].class));
+        verify(userRepository).saveAndFlush(argThat((User user) -> user.getEmail().equals("admin@gmail.com")));
     }
 
     @Test
-    @DisplayName("Should not create roles when they already exist")
-    void should_not_create_roles_when_they_exist() throws Exception {
+    @DisplayName("Should refresh the effective permissions of the admin role's holders")
+    void should_refresh_admin_holders() throws Exception {
         // Given
-        when(permissionRepository.existsByName(anyString())).thenReturn(true);
-        when(roleRepository.existsByName(anyString())).thenReturn(true);
+        runSeedStep();
         when(userRepository.existsByEmail("admin@gmail.com")).thenReturn(true);
-        
+        when(jdbcTemplate.queryForList(startsWith("SELECT ur.user_id"), eq(Long.class), eq("ADMIN")))
+                .thenReturn(List.of(1L, 2L));
+
         // When
         dataInitializer.run();
-        
+
         // Then
-        verify(roleRepository).existsByName("STUDENT");
-        verify(roleRepository).existsByName("TEACHER");
-        verify(roleRepository).existsByName("ADMIN");
-        verify(roleRepository, never()).save(any(Role.class));
+        verify(effectivePermissionStore).refresh(List.of(1L, 2L));
+        verify(permissionEpochRegistry).bumpAll(List.of(1L, 2L));
+        verify(userPrincipalCache).evictAll(List.of(1L, 2L));
     }
 
     @Test
-    @DisplayName("Should handle missing permissions gracefully")
-    void should_handle_missing_permissions_gracefully() throws Exception {
+    @DisplayName("Should reapply a changed seed without recreating the admin user")
+    void should_reapply_changed_seed_without_recreating_admin() throws Exception {
         // Given
-        when(permissionRepository.existsByName(anyString())).thenReturn(true);
-        when(roleRepository.existsByName("STUDENT")).thenReturn(false);
-        when(roleRepository.existsByName("TEACHER")).thenReturn(true);
-        when(roleRepository.existsByName("ADMIN")).thenReturn(true);
+        runSeedStep();
         when(userRepository.existsByEmail("admin@gmail.com")).thenReturn(true);
-        
-        // Mock that some permissions are not found
-        when(permissionRepository.findByName("take_quiz")).thenReturn(Optional.empty());
-        when(permissionRepository.findByName("view_lessons")).thenReturn(Optional.of(
-            Permission.builder().name("view_lessons").build()
-        ));
-        when(permissionRepository.findByName("participate_discussion")).thenReturn(Optional.of(
-            Permission.builder().name("participate_discussion").build()
-        ));
-        
-        Role mockStudentRole = Role.builder().name("STUDENT").build();
-        when(roleRepository.save(any(Role.class))).thenReturn(mockStudentRole);
-        
+
         // When
         dataInitializer.run();
-        
-        // Then - Should still create role with available permissions
-        verify(roleRepository).save(argThat(role -> 
-            role.getName().equals("STUDENT") && role.getPermissions().size() == 2
-        ));
+
+        // Then
+        verify(jdbcTemplate, times(4)).update(anyString(), any(Object[].class));
+        verify(userRepository, never()).saveAndFlush(any(User.class));
     }
 
     @Test
-    @DisplayName("Should complete initialization successfully")
-    void should_complete_initialization_successfully() throws Exception {
-        // Given
-        when(permissionRepository.existsByName(anyString())).thenReturn(false);
-        when(roleRepository.existsByName(anyString())).thenReturn(false);
-        when(userRepository.existsByEmail("admin@gmail.com")).thenReturn(false);
-        when(passwordEncoder.encode(anyString())).thenReturn("encoded_password");
-        
-        // Mock permission creation
-        when(permissionRepository.save(any(Permission.class))).thenAnswer(invocation -> {
-            Permission perm = invocation.getArgument(0);
-            return Permission.builder().name(perm.getName()).build();
-        });
-        
-        // Mock role creation  
-        when(roleRepository.save(any(Role.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        
-        // Mock user creation
-        when(userRepository.save(any(User.class))).thenAnswer(invocation -> invocation.getArgument(0));
-        
-        // Mock permission lookups for roles
-        when(permissionRepository.findByName(anyString())).thenReturn(Optional.of(
-            Permission.builder().name("test_permission").build()
-        ));
-        when(permissionRepository.findAll()).thenReturn(Arrays.asList(
-            Permission.builder().name("test_permission").build()
-        ));
-        
-        // When & Then - Should not throw exception
-        dataInitializer.run();
-        
-        // Verify the process completes
-        verify(permissionRepository, times(17)).save(any(Permission.class));
-        verify(roleRepository, times(3)).save(any(Role.class));
-        verify(userRepository, times(1)).save(any(User.class));
+    @DisplayName("Should hash the seed definition to a stable SHA-256 hex string")
+    void should_hash_seed_definition() {
+        assertThat(DataInitializer.checksum())
+                .hasSize(64)
+                .matches("[0-9a-f]+")
+                .isEqualTo(DataInitializer.checksum());
     }
 }
@@ -1,5 +1,6 @@
 package com.mphoola.e_empuzitsi.config;
 
+import com.mphoola.e_empuzitsi.security.BoundedPasswordEncoder;
 import com.mphoola.e_empuzitsi.security.CustomUserDetailsService;
 import com.mphoola.e_empuzitsi.security.JwtAuthenticationFilter;
 import org.junit.jupiter.api.DisplayName;
@@ -36,7 +37,7 @@ class SecurityConfigTest {
     }
 
     @Test
-    @DisplayName("Should create PasswordEncoder bean as BCryptPasswordEncoder")
+    @DisplayName("Should create PasswordEncoder bean as BCrypt on the bounded hashing lane")
     void should_create_password_encoder_bean() {
         // Given
         SecurityConfig securityConfig = new SecurityConfig(customUserDetailsService, jwtAuthenticationFilter);
@@ -46,7 +47,8 @@ class SecurityConfigTest {
         
         // Then
         assertNotNull(passwordEncoder);
-        assertTrue(passwordEncoder instanceof BCryptPasswordEncoder);
+        assertTrue(passwordEncoder instanceof BoundedPasswordEncoder);
+        assertTrue(((BoundedPasswordEncoder) passwordEncoder).getDelegate() instanceof BCryptPasswordEncoder);
         
         // Test encoding functionality
         String password = "testPassword";
@@ -84,7 +86,8 @@ class SecurityConfigTest {
         // Then
         assertNotNull(encoder);
         assertNotNull(corsSource);
-        assertTrue(encoder instanceof BCryptPasswordEncoder);
+        assertTrue(encoder instanceof BoundedPasswordEncoder);
+        assertTrue(((BoundedPasswordEncoder) encoder).getDelegate() instanceof BCryptPasswordEncoder);
     }
 
     @Test
@@ -0,0 +1,94 @@
+package com.mphoola.e_empuzitsi.config;
+
+import com.mphoola.e_empuzitsi.entity.SeedChecksum;
+import com.mphoola.e_empuzitsi.repository.SeedChecksumRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("SeedGuard Tests")
+class SeedGuardTest {
+
+    @Mock
+    private SeedChecksumRepository seedChecksumRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SeedGuard seedGuard;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        seedGuard = new SeedGuard(seedChecksumRepository, transactionManager);
+    }
+
+    private SeedChecksum seed(String checksum) {
+        return new SeedChecksum("seed", checksum, LocalDateTime.now());
+    }
+
+    @Test
+    @DisplayName("Should skip the step without locking when the checksum is current")
+    void should_skip_when_current() {
+        when(seedChecksumRepository.findById("seed")).thenReturn(Optional.of(seed("abc")));
+
+        assertThat(seedGuard.runIfChanged("seed", "abc", runs::incrementAndGet)).isFalse();
+
+        assertThat(runs).hasValue(0);
+        verify(seedChecksumRepository, never()).lockByName(anyString());
+    }
+
+    @Test
+    @DisplayName("Should run the step under the lock and store the new checksum")
+    void should_run_and_store_checksum() {
+        SeedChecksum locked = seed("");
+        when(seedChecksumRepository.findById("seed")).thenReturn(Optional.empty());
+        when(seedChecksumRepository.lockByName("seed")).thenReturn(Optional.of(locked));
+
+        assertThat(seedGuard.runIfChanged("seed", "abc", runs::incrementAndGet)).isTrue();
+
+        assertThat(runs).hasValue(1);
+        assertThat(locked.getChecksum()).isEqualTo("abc");
+        verify(seedChecksumRepository).insertIfAbsent(eq("seed"), any(LocalDateTime.class));
+    }
+
+    @Test
+    @DisplayName("Should skip the step when another instance applied it while waiting for the lock")
+    void should_recheck_under_lock() {
+        when(seedChecksumRepository.findById("seed")).thenReturn(Optional.of(seed("old")));
+        when(seedChecksumRepository.insertIfAbsent(eq("seed"), any(LocalDateTime.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+        when(seedChecksumRepository.lockByName("seed")).thenReturn(Optional.of(seed("abc")));
+
+        assertThat(seedGuard.runIfChanged("seed", "abc", runs::incrementAndGet)).isFalse();
+
+        assertThat(runs).hasValue(0);
+    }
+
+    @Test
+    @DisplayName("Should run a current step when forced")
+    void should_run_when_forced() {
+        when(seedChecksumRepository.findById("seed")).thenReturn(Optional.of(seed("abc")));
+        when(seedChecksumRepository.lockByName("seed")).thenReturn(Optional.of(seed("abc")));
+
+        assertThat(seedGuard.runIfChanged("seed", "abc", () -> true, runs::incrementAndGet)).isTrue();
+
+        assertThat(runs).hasValue(1);
+    }
+}
@@ -13,6 +13,9 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
@@ -22,6 +25,8 @@ import java.util.List;
 
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -99,6 +104,45 @@ class AcademicYearControllerTest {
         verify(academicYearService).getAcademicYearsByStatus(eq(true), any());
     }
 
+    @Test
+    @WithMockUser(authorities = "list_academic_years")
+    void getAllAcademicYears_WithoutCount_ShouldReturnSliceWithoutTotal() throws Exception {
+        // Given
+        Slice<AcademicYearResponse> slice = new SliceImpl<>(List.of(academicYearResponse), PageRequest.of(0, 20), true);
+        when(academicYearService.getAcademicYearsSlice(isNull(), any())).thenReturn(slice);
+
+        // When & Then
+        mockMvc.perform(get("/api/academic-years")
+                        .param("count", "NONE")
+                        .param("page", "0")
+                        .param("size", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.data[0].year").value(2024))
+                .andExpect(jsonPath("$.data.has_more").value(true))
+                .andExpect(jsonPath("$.data.next_page_url").value("/api/academic-years?page=2"))
+                .andExpect(jsonPath("$.data.total").doesNotExist());
+
+        verify(academicYearService, never()).getAllAcademicYears(any());
+        verify(academicYearService, never()).approximateAcademicYearCount(any());
+    }
+
+    @Test
+    @WithMockUser(authorities = "list_academic_years")
+    void getAllAcademicYears_WithApproximateCount_ShouldReturnSliceWithCachedTotal() throws Exception {
+        // Given
+        Slice<AcademicYearResponse> slice = new SliceImpl<>(List.of(academicYearResponse), PageRequest.of(0, 20), false);
+        when(academicYearService.getAcademicYearsSlice(isNull(), any())).thenReturn(slice);
+        when(academicYearService.approximateAcademicYearCount(null)).thenReturn(1L);
+
+        // When & Then
+        mockMvc.perform(get("/api/academic-years")
+                        .param("count", "APPROXIMATE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.has_more").value(false))
+                .andExpect(jsonPath("$.data.total").value(1))
+                .andExpect(jsonPath("$.data.total_is_approximate").value(true));
+    }
+
     @Test
     void getAllAcademicYears_WithoutPermission_ShouldReturnForbidden() throws Exception {
         mockMvc.perform(get("/api/academic-years"))
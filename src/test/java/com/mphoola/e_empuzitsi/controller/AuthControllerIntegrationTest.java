@@ -76,6 +76,41 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.data.user.email").value("login.test@example.com"));
     }
 
+    @Test
+    void testLogin_RepeatedFailures_ShouldBeThrottled() throws Exception {
+        RegisterRequest registerRequest = RegisterRequest.builder()
+                .email("throttle.test@example.com")
+                .password("ThrottlePass123!")
+                .name("Throttle Test")
+                .build();
+
+        authService.register(registerRequest);
+
+        String wrongPassword = objectMapper.writeValueAsString(LoginRequest.builder()
+                .email("throttle.test@example.com")
+                .password("WrongPass123!")
+                .build());
+
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(post("/api/auth/login")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(wrongPassword))
+                    .andExpect(status().isUnauthorized());
+        }
+
+        // Even the right password is turned away from this client until its bucket for the email refills
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(LoginRequest.builder()
+                                .email("throttle.test@example.com")
+                                .password("ThrottlePass123!")
+                                .build())))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.message").exists())
+                .andExpect(jsonPath("$.errors").exists());
+    }
+
     @Test
     void testGetCurrentUser_WithValidToken() throws Exception {
         // Register and get token
@@ -94,4 +129,24 @@ class AuthControllerIntegrationTest {
                 .andExpect(jsonPath("$.data.email").value("current.user@example.com"))
                 .andExpect(jsonPath("$.data.name").value("Current User"));
     }
+
+    @Test
+    void testLogout_ShouldRevokeToken() throws Exception {
+        RegisterRequest registerRequest = RegisterRequest.builder()
+                .email("logout.user@example.com")
+                .password("LogoutPass123!")
+                .name("Logout User")
+                .build();
+
+        String token = authService.register(registerRequest).getToken();
+
+        mockMvc.perform(post("/api/auth/logout")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/auth/me")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Token has been revoked. Please login again."));
+    }
 }
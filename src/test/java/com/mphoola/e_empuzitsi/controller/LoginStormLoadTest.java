@@ -0,0 +1,157 @@
+package com.mphoola.e_empuzitsi.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mphoola.e_empuzitsi.dto.auth.LoginRequest;
+import com.mphoola.e_empuzitsi.entity.User;
+import com.mphoola.e_empuzitsi.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Load test for a burst of logins.
+ * While many threads log in concurrently, unrelated endpoints must stay responsive and logins
+ * must either succeed or be turned away with 503 + Retry-After. The sampled endpoint borrows a
+ * pooled connection, so logins holding connections while they wait for hashing would show up here.
+ *
+ * Asserts on latency, so it is excluded from the default build: run with {@code mvn test -Pload-tests}.
+ */
+@Tag("load")
+// Every storm thread signs in to the same account from the same address; only the hashing lane is under test
+@SpringBootTest(properties = "app.security.login-throttle.enabled=false")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class LoginStormLoadTest {
+
+    private static final int LOGIN_THREADS = 32;
+    private static final int DB_SAMPLES = 40;
+    private static final long MAX_DB_P95_MILLIS = 500;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private String loginBody;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String email = "storm-" + UUID.randomUUID().toString().substring(0, 8) + "@example.com";
+        userRepository.save(User.builder()
+                .name("Storm Test")
+                .email(email)
+                .password(passwordEncoder.encode("password123"))
+                .emailVerifiedAt(LocalDateTime.now())
+                .build());
+
+        loginBody = objectMapper.writeValueAsString(LoginRequest.builder()
+                .email(email)
+                .password("password123")
+                .build());
+    }
+
+    @Test
+    void database_endpoints_should_stay_responsive_during_login_storm() throws Exception {
+        // Warm up both paths
+        sampleDatabase(10);
+        login();
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger logins = new AtomicInteger();
+        Map<Integer, AtomicInteger> statuses = new ConcurrentHashMap<>();
+        List<String> missingRetryAfter = new ArrayList<>();
+
+        ExecutorService storm = Executors.newFixedThreadPool(LOGIN_THREADS);
+        for (int i = 0; i < LOGIN_THREADS; i++) {
+            storm.submit(() -> {
+                while (running.get()) {
+                    MockHttpServletResponse response = login();
+                    logins.incrementAndGet();
+                    statuses.computeIfAbsent(response.getStatus(), status -> new AtomicInteger()).incrementAndGet();
+                    if (response.getStatus() == 503 && response.getHeader(HttpHeaders.RETRY_AFTER) == null) {
+                        synchronized (missingRetryAfter) {
+                            missingRetryAfter.add(response.getContentAsString());
+                        }
+                    }
+                }
+                return null;
+            });
+        }
+
+        long[] latencies;
+        try {
+            // Let the hashing lane fill up before sampling
+            Thread.sleep(200);
+            latencies = sampleDatabase(DB_SAMPLES);
+        } finally {
+            running.set(false);
+            storm.shutdown();
+            assertThat(storm.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(logins.get()).isGreaterThan(0);
+        assertThat(statuses.keySet()).isSubsetOf(200, 503);
+        assertThat(missingRetryAfter).isEmpty();
+        assertThat(percentile(latencies, 95)).isLessThan(MAX_DB_P95_MILLIS);
+    }
+
+    private MockHttpServletResponse login() throws Exception {
+        return mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(loginBody))
+                .andReturn()
+                .getResponse();
+    }
+
+    private long[] sampleDatabase(int samples) throws Exception {
+        long[] latencies = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            long start = System.nanoTime();
+            int status = mockMvc.perform(get("/api/health/check")).andReturn().getResponse().getStatus();
+            latencies[i] = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertThat(status).isEqualTo(200);
+            Thread.sleep(10);
+        }
+        return latencies;
+    }
+
+    private static long percentile(long[] values, int percentile) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)];
+    }
+}
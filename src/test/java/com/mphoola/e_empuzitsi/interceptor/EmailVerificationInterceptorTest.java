@@ -0,0 +1,146 @@
+package com.mphoola.e_empuzitsi.interceptor;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mphoola.e_empuzitsi.entity.User;
+import com.mphoola.e_empuzitsi.security.AllowUnverifiedEmail;
+import com.mphoola.e_empuzitsi.security.UserPrincipal;
+import com.mphoola.e_empuzitsi.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.method.HandlerMethod;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for EmailVerificationInterceptor
+ * Tests the principal-based verified check and the per-handler annotation cache
+ */
+@DisplayName("EmailVerificationInterceptor Tests")
+class EmailVerificationInterceptorTest {
+
+    private UserService userService;
+    private EmailVerificationInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        userService = mock(UserService.class);
+        interceptor = new EmailVerificationInterceptor(userService, new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should refuse an unverified principal with 403 without a lookup")
+    void should_refuse_unverified_principal() throws Exception {
+        authenticate(null);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        boolean proceed = interceptor.preHandle(new MockHttpServletRequest(), response,
+                handler(new PlainController(), "list"));
+
+        assertThat(proceed).isFalse();
+        assertThat(response.getStatus()).isEqualTo(403);
+        assertThat(response.getContentAsString()).contains("Email verification required");
+        verify(userService, never()).isEmailVerified(anyString());
+    }
+
+    @Test
+    @DisplayName("Should let a verified principal through")
+    void should_allow_verified_principal() throws Exception {
+        authenticate(LocalDateTime.now());
+
+        boolean proceed = interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                handler(new PlainController(), "list"));
+
+        assertThat(proceed).isTrue();
+        verify(userService, never()).isEmailVerified(anyString());
+    }
+
+    @Test
+    @DisplayName("Should skip the check for a method marked @AllowUnverifiedEmail")
+    void should_allow_annotated_method() throws Exception {
+        authenticate(null);
+
+        boolean proceed = interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                handler(new PlainController(), "open"));
+
+        assertThat(proceed).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should skip the check for every method of a controller marked @AllowUnverifiedEmail")
+    void should_allow_annotated_controller() throws Exception {
+        authenticate(null);
+
+        boolean proceed = interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(),
+                handler(new OpenController(), "list"));
+
+        assertThat(proceed).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should resolve the annotations of a handler method only once")
+    void should_cache_annotation_lookup_per_method() throws Exception {
+        authenticate(LocalDateTime.now());
+        HandlerMethod first = spy(handler(new PlainController(), "list"));
+        HandlerMethod second = spy(handler(new PlainController(), "list"));
+
+        interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), first);
+        interceptor.preHandle(new MockHttpServletRequest(), new MockHttpServletResponse(), second);
+
+        verify(first).hasMethodAnnotation(AllowUnverifiedEmail.class);
+        verify(second, never()).hasMethodAnnotation(any());
+        verify(second, never()).getBeanType();
+    }
+
+    private static HandlerMethod handler(Object controller, String method) throws NoSuchMethodException {
+        return new HandlerMethod(controller, controller.getClass().getMethod(method));
+    }
+
+    private static void authenticate(LocalDateTime emailVerifiedAt) {
+        User user = User.builder()
+                .id(7L)
+                .name("Jane Banda")
+                .email("jane@example.com")
+                .emailVerifiedAt(emailVerifiedAt)
+                .build();
+        UserPrincipal principal = UserPrincipal.create(user, List.of());
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    static class PlainController {
+
+        public void list() {
+        }
+
+        @AllowUnverifiedEmail
+        public void open() {
+        }
+    }
+
+    @AllowUnverifiedEmail
+    static class OpenController {
+
+        public void list() {
+        }
+    }
+}
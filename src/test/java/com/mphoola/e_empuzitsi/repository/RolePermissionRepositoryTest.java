@@ -89,6 +89,24 @@ class RolePermissionRepositoryTest {
         assertThat(permissionNames).contains("test_permission", "another_permission");
     }
 
+    @Test
+    @DisplayName("Should apply a permission delta with one insert and one delete")
+    void should_apply_permission_delta() {
+        // When
+        int inserted = rolePermissionRepository.insertMissing(anotherRole.getId(),
+                List.of(testPermission.getId(), anotherPermission.getId()));
+        int deleted = rolePermissionRepository.deleteByRoleIdAndPermissionIdIn(testRole.getId(),
+                List.of(testPermission.getId()));
+
+        // Then
+        assertThat(inserted).isEqualTo(1);
+        assertThat(deleted).isEqualTo(1);
+        assertThat(rolePermissionRepository.findPermissionNamesByRoleId(anotherRole.getId()))
+                .containsExactlyInAnyOrder("test_permission", "another_permission");
+        assertThat(rolePermissionRepository.findPermissionNamesByRoleId(testRole.getId()))
+                .containsExactly("another_permission");
+    }
+
     @Test
     @DisplayName("Should return empty list when finding permission names for non-existent role")
     void should_return_empty_list_when_finding_permission_names_for_nonexistent_role() {
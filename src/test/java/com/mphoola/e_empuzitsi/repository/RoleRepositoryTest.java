@@ -154,6 +154,19 @@ class RoleRepositoryTest {
                 .containsExactlyInAnyOrder("test_permission", "another_permission");
     }
 
+    @Test
+    @DisplayName("Should find every role with its permissions in one query")
+    void should_find_all_roles_with_permissions() {
+        // When
+        List<Role> roles = roleRepository.findAllWithPermissions();
+
+        // Then
+        assertThat(roles).extracting(Role::getName).containsExactly("TEST_ROLE", "ANOTHER_ROLE");
+        assertThat(roles.get(1).getPermissions())
+                .extracting(Permission::getName)
+                .containsExactlyInAnyOrder("test_permission", "another_permission");
+    }
+
     @Test
     @DisplayName("Should count users by role ID")
     void should_count_users_by_role_id() {
@@ -175,26 +188,14 @@ class RoleRepositoryTest {
     }
 
     @Test
-    @DisplayName("Should find users by role ID")
-    void should_find_users_by_role_id() {
-        // When
-        List<User> users = roleRepository.findUsersByRoleId(testRole.getId());
-
-        // Then
-        assertThat(users).hasSize(2);
-        assertThat(users)
-                .extracting(User::getEmail)
-                .containsExactlyInAnyOrder("test@example.com", "another@example.com");
-    }
-
-    @Test
-    @DisplayName("Should return empty list when no users have the role")
-    void should_return_empty_list_when_no_users_have_role() {
+    @DisplayName("Should count users of every held role in one query")
+    void should_count_users_per_role() {
         // When
-        List<User> users = roleRepository.findUsersByRoleId(anotherRole.getId());
+        List<Object[]> counts = roleRepository.countUsersPerRole();
 
         // Then
-        assertThat(users).isEmpty();
+        assertThat(counts).hasSize(1);
+        assertThat(counts.get(0)).containsExactly(testRole.getId(), 2L);
     }
 
     @Test
@@ -0,0 +1,95 @@
+package com.mphoola.e_empuzitsi.repository;
+
+import com.mphoola.e_empuzitsi.entity.Permission;
+import com.mphoola.e_empuzitsi.entity.Role;
+import com.mphoola.e_empuzitsi.entity.User;
+import com.mphoola.e_empuzitsi.entity.UserPermission;
+import com.mphoola.e_empuzitsi.entity.UserRole;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@DisplayName("UserEffectivePermissionRepository Tests")
+class UserEffectivePermissionRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserEffectivePermissionRepository userEffectivePermissionRepository;
+
+    private User testUser;
+    private User anotherUser;
+
+    @BeforeEach
+    void setUp() {
+        Permission listUsers = entityManager.persistAndFlush(Permission.builder().name("list_users").build());
+        Permission listRoles = entityManager.persistAndFlush(Permission.builder().name("list_roles").build());
+
+        Role role = entityManager.persistAndFlush(Role.builder()
+                .name("TEST_ROLE")
+                .permissions(Set.of(listUsers, listRoles))
+                .build());
+
+        testUser = entityManager.persistAndFlush(User.builder()
+                .name("Test User")
+                .email("test@example.com")
+                .password("hashedPassword123")
+                .build());
+        anotherUser = entityManager.persistAndFlush(User.builder()
+                .name("Another User")
+                .email("another@example.com")
+                .password("hashedPassword456")
+                .build());
+
+        // The direct permission duplicates one of the role's
+        entityManager.persistAndFlush(UserRole.builder().user(testUser).role(role).build());
+        entityManager.persistAndFlush(UserPermission.builder().user(testUser).permission(listUsers).build());
+        entityManager.persistAndFlush(UserPermission.builder().user(anotherUser).permission(listRoles).build());
+
+        entityManager.clear();
+    }
+
+    @Test
+    @DisplayName("Should materialize the distinct union of role and direct permissions")
+    void should_materialize_distinct_union() {
+        // When
+        int inserted = userEffectivePermissionRepository.insertForUsers(List.of(testUser.getId()));
+
+        // Then
+        assertThat(inserted).isEqualTo(2);
+        assertThat(userEffectivePermissionRepository.findPermissionNamesByUserId(testUser.getId()))
+                .containsExactlyInAnyOrder("list_users", "list_roles");
+        assertThat(userEffectivePermissionRepository.findPermissionNamesByUserId(anotherUser.getId())).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should delete and rebuild rows")
+    void should_delete_and_rebuild_rows() {
+        // Given
+        assertThat(userEffectivePermissionRepository.hasRows()).isFalse();
+        assertThat(userEffectivePermissionRepository.insertAll()).isEqualTo(3);
+        assertThat(userEffectivePermissionRepository.hasRows()).isTrue();
+
+        // When
+        int deleted = userEffectivePermissionRepository.deleteByUserIdIn(List.of(testUser.getId()));
+
+        // Then
+        assertThat(deleted).isEqualTo(2);
+        assertThat(userEffectivePermissionRepository.findPermissionNamesByUserId(anotherUser.getId()))
+                .containsExactly("list_roles");
+        assertThat(userEffectivePermissionRepository.deleteAllRows()).isEqualTo(1);
+        assertThat(userEffectivePermissionRepository.hasRows()).isFalse();
+    }
+}
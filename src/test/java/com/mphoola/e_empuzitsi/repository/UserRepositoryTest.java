@@ -1,15 +1,23 @@
 package com.mphoola.e_empuzitsi.repository;
 
+import com.mphoola.e_empuzitsi.dto.user.UserDetailRow;
+import com.mphoola.e_empuzitsi.dto.user.UserSummary;
 import com.mphoola.e_empuzitsi.entity.*;
+import com.mphoola.e_empuzitsi.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
@@ -71,6 +79,9 @@ class UserRepositoryTest {
                 .build();
         entityManager.persistAndFlush(userPermission);
 
+        // Materialized union of the role and direct grants above
+        entityManager.persistAndFlush(new UserEffectivePermission(testUser.getId(), testPermission.getId()));
+
         entityManager.clear();
     }
 
@@ -126,6 +137,96 @@ class UserRepositoryTest {
         assertThat(foundUser).isEmpty();
     }
 
+    @Test
+    @DisplayName("Should read a user detail with aggregated role and permission names")
+    void should_read_user_detail_projection() {
+        // When
+        Optional<UserDetailRow> byId = userRepository.findDetailById(testUser.getId());
+        Optional<UserDetailRow> byEmail = userRepository.findDetailByEmail("test@example.com");
+
+        // Then
+        assertThat(byId).isPresent();
+        assertThat(byId.get().email()).isEqualTo("test@example.com");
+        assertThat(byId.get().roles()).containsExactly("TEST_ROLE");
+        assertThat(byId.get().permissions()).containsExactly("test_permission");
+        assertThat(byEmail).contains(byId.get());
+        assertThat(userRepository.findDetailById(-1L)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should keep role names containing commas whole in the user detail")
+    void should_keep_role_names_with_commas_whole() {
+        // Given
+        Role headOfScience = entityManager.persistAndFlush(Role.builder().name("Head, Science").build());
+        entityManager.persistAndFlush(UserRole.builder()
+                .user(entityManager.find(User.class, testUser.getId()))
+                .role(headOfScience)
+                .build());
+        entityManager.clear();
+
+        // When
+        Optional<UserDetailRow> detail = userRepository.findDetailById(testUser.getId());
+
+        // Then
+        assertThat(detail).isPresent();
+        assertThat(detail.get().roles()).containsExactly("Head, Science", "TEST_ROLE");
+    }
+
+    @Test
+    @DisplayName("Should page the members of a role as summaries")
+    void should_page_role_members() {
+        // When
+        Page<UserSummary> page = userRepository.findByRoleId(testRole.getId(), PageRequest.of(0, 10, Sort.by("name")));
+        List<UserSummary> afterFirst = userRepository.findByRoleIdAfter(testRole.getId(), testUser.getId(), Limit.of(10));
+
+        // Then
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        assertThat(page.getContent()).extracting(UserSummary::email).containsExactly("test@example.com");
+        assertThat(afterFirst).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should seek users after a keyset cursor")
+    void should_seek_users_after_a_keyset_cursor() {
+        // When
+        List<UserSummary> firstPage = userRepository.findUsersWithFiltersAfter(null, null, null,
+                KeysetCursor.FIRST_ASCENDING.createdAt(), KeysetCursor.FIRST_ASCENDING.id(), Limit.of(10));
+        UserSummary last = firstPage.get(firstPage.size() - 1);
+        List<UserSummary> afterLast = userRepository.findUsersWithFiltersAfter(null, null, null,
+                last.createdAt(), last.id(), Limit.of(10));
+
+        // Then
+        assertThat(firstPage).extracting(UserSummary::email).contains("test@example.com");
+        assertThat(afterLast).isEmpty();
+        assertThat(userRepository.countUsersWithFilters("test@", null, null)).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should select and update users in bulk")
+    void should_select_and_update_users_in_bulk() {
+        // Given
+        User other = entityManager.persistAndFlush(User.builder()
+                .name("Other User")
+                .email("other@example.com")
+                .password("hashedPassword123")
+                .accountType(AccountType.INSTRUCTOR)
+                .build());
+        entityManager.clear();
+
+        // When
+        List<Long> byIds = userRepository.findIdsForSelection(List.of(other.getId(), testUser.getId(), -1L), null, null, null);
+        List<Long> byRole = userRepository.findIdsForSelection(null, null, UserStatus.ACTIVE, testRole.getId());
+        int banned = userRepository.updateStatusByIdIn(byIds, UserStatus.BANNED, LocalDateTime.now());
+        int bannedAgain = userRepository.updateStatusByIdIn(byIds, UserStatus.BANNED, LocalDateTime.now());
+
+        // Then
+        assertThat(byIds).containsExactly(testUser.getId(), other.getId());
+        assertThat(byRole).containsExactly(testUser.getId());
+        assertThat(banned).isEqualTo(2);
+        assertThat(bannedAgain).isZero();
+        assertThat(userRepository.findIdsByStatus(UserStatus.BANNED)).containsExactlyInAnyOrder(testUser.getId(), other.getId());
+    }
+
     @Test
     @DisplayName("Should find user by email with roles and permissions")
     void should_find_user_by_email_with_roles_and_permissions() {
@@ -12,6 +12,7 @@ import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -98,6 +99,18 @@ class UserRoleRepositoryTest {
                 .contains("TEST_ROLE", "ANOTHER_ROLE");
     }
 
+    @Test
+    @DisplayName("Should assign a role in bulk, skipping users who already hold it")
+    void should_insert_missing_user_roles_in_bulk() {
+        // When
+        int inserted = userRoleRepository.insertMissing(anotherRole.getId(),
+                List.of(testUser.getId(), anotherUser.getId()), LocalDateTime.now());
+
+        // Then
+        assertThat(inserted).isEqualTo(1);
+        assertThat(userRoleRepository.findByRoleId(anotherRole.getId())).hasSize(2);
+    }
+
     @Test
     @DisplayName("Should find user roles by role ID")
     void should_find_user_roles_by_role_id() {
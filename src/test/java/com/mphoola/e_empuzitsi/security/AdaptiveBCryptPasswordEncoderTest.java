@@ -0,0 +1,50 @@
+package com.mphoola.e_empuzitsi.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for AdaptiveBCryptPasswordEncoder
+ * Tests cost calibration bounds and upgrade detection
+ */
+@DisplayName("AdaptiveBCryptPasswordEncoder Tests")
+class AdaptiveBCryptPasswordEncoderTest {
+
+    @Test
+    @DisplayName("Should keep the minimum cost when the budget is tiny")
+    void should_clamp_to_min_strength() {
+        assertThat(AdaptiveBCryptPasswordEncoder.calibrate(0, 4, 8)).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Should not exceed the maximum cost when the budget is large")
+    void should_clamp_to_max_strength() {
+        assertThat(AdaptiveBCryptPasswordEncoder.calibrate(60_000, 4, 6)).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Should hash with the configured cost")
+    void should_hash_with_strength() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+
+        String encoded = encoder.encode("secret");
+
+        assertThat(AdaptiveBCryptPasswordEncoder.costOf(encoded)).isEqualTo(5);
+        assertThat(encoder.matches("secret", encoded)).isTrue();
+        assertThat(encoder.upgradeEncoding(encoded)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should request a rehash for lower costs only")
+    void should_upgrade_lower_costs_only() {
+        AdaptiveBCryptPasswordEncoder encoder = new AdaptiveBCryptPasswordEncoder(5);
+
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode("secret"))).isTrue();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode("secret"))).isFalse();
+        assertThat(encoder.upgradeEncoding("not-a-bcrypt-hash")).isFalse();
+        assertThat(encoder.upgradeEncoding(null)).isFalse();
+    }
+}
@@ -0,0 +1,113 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.mphoola.e_empuzitsi.entity.UserStatus;
+import com.mphoola.e_empuzitsi.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for BannedUserRegistry
+ * Tests startup loading, ban/unban updates and after-commit application
+ */
+@DisplayName("BannedUserRegistry Tests")
+class BannedUserRegistryTest {
+
+    private UserRepository userRepository;
+    private BannedUserRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        registry = new BannedUserRegistry(userRepository);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should load banned ids at startup")
+    void should_load_banned_ids() {
+        when(userRepository.findIdsByStatus(UserStatus.BANNED)).thenReturn(List.of(42L, 7L, 7L));
+
+        registry.load();
+
+        assertThat(registry.isBanned(7L)).isTrue();
+        assertThat(registry.isBanned(42L)).isTrue();
+        assertThat(registry.isBanned(8L)).isFalse();
+        assertThat(registry.isBanned(null)).isFalse();
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should add and remove bans in any order")
+    void should_ban_and_unban() {
+        registry.ban(5L);
+        registry.ban(1L);
+        registry.ban(3L);
+        registry.ban(3L);
+        registry.unban(1L);
+        registry.unban(99L);
+
+        assertThat(registry.isBanned(1L)).isFalse();
+        assertThat(registry.isBanned(3L)).isTrue();
+        assertThat(registry.isBanned(5L)).isTrue();
+        assertThat(registry.size()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should ban and unban many users at once")
+    void should_ban_and_unban_in_bulk() {
+        registry.ban(4L);
+
+        registry.banAll(List.of(9L, 2L, 4L, 2L));
+        assertThat(registry.size()).isEqualTo(3);
+        assertThat(registry.isBanned(2L)).isTrue();
+        assertThat(registry.isBanned(9L)).isTrue();
+
+        registry.unbanAll(List.of(4L, 9L, 100L));
+        assertThat(registry.isBanned(2L)).isTrue();
+        assertThat(registry.isBanned(4L)).isFalse();
+        assertThat(registry.size()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should apply a ban only after the transaction commits")
+    void should_apply_ban_after_commit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        registry.ban(1L);
+        assertThat(registry.isBanned(1L)).isFalse();
+
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        synchronizations.forEach(TransactionSynchronization::afterCommit);
+        assertThat(registry.isBanned(1L)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should pick up bans committed elsewhere on reload")
+    void should_pick_up_remote_bans_on_reload() {
+        when(userRepository.findIdsByStatus(UserStatus.BANNED)).thenReturn(List.of(1L));
+        registry.afterSingletonsInstantiated();
+        assertThat(registry.isBanned(1L)).isTrue();
+
+        when(userRepository.findIdsByStatus(UserStatus.BANNED)).thenReturn(List.of(2L));
+        registry.load();
+
+        assertThat(registry.isBanned(1L)).isFalse();
+        assertThat(registry.isBanned(2L)).isTrue();
+    }
+}
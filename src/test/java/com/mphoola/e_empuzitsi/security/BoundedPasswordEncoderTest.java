@@ -0,0 +1,133 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.mphoola.e_empuzitsi.exception.ServiceBusyException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for BoundedPasswordEncoder
+ * Tests delegation, fast-fail back-pressure and published metrics
+ */
+@DisplayName("BoundedPasswordEncoder Tests")
+class BoundedPasswordEncoderTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+    private BoundedPasswordEncoder encoder;
+
+    /**
+     * Delegate that blocks until released, to hold the single hashing thread
+     */
+    private final PasswordEncoder blockingDelegate = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            await();
+            return "{hashed}" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            await();
+            return encodedPassword.equals("{hashed}" + rawPassword);
+        }
+
+        private void await() {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    };
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        callers.shutdownNow();
+        if (encoder != null) {
+            encoder.destroy();
+        }
+    }
+
+    @Test
+    @DisplayName("Should hash and verify through the delegate")
+    void should_delegate_hashing() {
+        release.countDown();
+        encoder = new BoundedPasswordEncoder(blockingDelegate, 1, 1, 1000, 2);
+
+        String encoded = encoder.encode("secret");
+
+        assertThat(encoded).isEqualTo("{hashed}secret");
+        assertThat(encoder.matches("secret", encoded)).isTrue();
+        assertThat(encoder.matches("other", encoded)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should reject immediately when the thread and queue are full")
+    void should_reject_when_saturated() throws Exception {
+        encoder = new BoundedPasswordEncoder(blockingDelegate, 1, 1, 5000, 3);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        // One hash running, one queued
+        callers.submit(() -> encoder.encode("first"));
+        callers.submit(() -> encoder.encode("second"));
+        waitForQueueDepth(registry, 1);
+
+        long start = System.nanoTime();
+        assertThatThrownBy(() -> encoder.matches("third", "{hashed}third"))
+                .isInstanceOf(ServiceBusyException.class)
+                .satisfies(e -> assertThat(((ServiceBusyException) e).getRetryAfterSeconds()).isEqualTo(3));
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1000);
+        assertThat(registry.get("password.hashing.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should give up waiting after the configured time and free the queue slot")
+    void should_time_out_waiting_for_lane() {
+        encoder = new BoundedPasswordEncoder(blockingDelegate, 1, 4, 100, 2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        callers.submit(() -> encoder.encode("first"));
+
+        assertThatThrownBy(() -> encoder.encode("second"))
+                .isInstanceOf(ServiceBusyException.class);
+        assertThat(registry.get("password.hashing.queue").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should record hashing latency")
+    void should_record_latency() {
+        release.countDown();
+        encoder = new BoundedPasswordEncoder(blockingDelegate, 1, 1, 1000, 2);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder.bindTo(registry);
+
+        encoder.matches("secret", encoder.encode("secret"));
+
+        assertThat(registry.get("password.hashing").tag("operation", "encode").timer().count()).isEqualTo(1);
+        assertThat(registry.get("password.hashing").tag("operation", "matches").timer().count()).isEqualTo(1);
+        assertThat(registry.get("password.hashing.queue").gauge().value()).isZero();
+    }
+
+    private void waitForQueueDepth(SimpleMeterRegistry registry, int depth) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (registry.get("password.hashing.queue").gauge().value() < depth
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.mphoola.e_empuzitsi.config.SeedGuard;
+import com.mphoola.e_empuzitsi.repository.UserEffectivePermissionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for EffectivePermissionStore
+ * Tests the mirror, chunked refreshes, invalidation after commit and the startup rebuild
+ */
+@DisplayName("EffectivePermissionStore Tests")
+class EffectivePermissionStoreTest {
+
+    private UserEffectivePermissionRepository repository;
+    private SeedGuard seedGuard;
+    private EffectivePermissionStore store;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(UserEffectivePermissionRepository.class);
+        seedGuard = mock(SeedGuard.class);
+        store = new EffectivePermissionStore(repository, seedGuard, mock(PlatformTransactionManager.class), 100, 600);
+        when(repository.findPermissionNamesByUserId(1L)).thenReturn(List.of("list_users", "list_roles"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from the mirror")
+    void should_serve_reads_from_mirror() {
+        assertThat(store.permissionNames(1L)).containsExactlyInAnyOrder("list_users", "list_roles");
+        assertThat(store.permissionNames(1L)).containsExactlyInAnyOrder("list_users", "list_roles");
+
+        verify(repository, times(1)).findPermissionNamesByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("Should refresh in chunks and invalidate the mirror after commit")
+    void should_refresh_in_chunks_after_commit() {
+        store.permissionNames(1L);
+        List<Long> userIds = LongStream.rangeClosed(1, EffectivePermissionStore.REFRESH_CHUNK_SIZE + 1).boxed().toList();
+
+        TransactionSynchronizationManager.initSynchronization();
+        store.refresh(userIds);
+        store.permissionNames(1L);
+        verify(repository, times(1)).findPermissionNamesByUserId(1L);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        store.permissionNames(1L);
+
+        verify(repository).flush();
+        verify(repository, times(2)).deleteByUserIdIn(anyCollection());
+        verify(repository, times(2)).insertForUsers(anyCollection());
+        verify(repository, times(2)).findPermissionNamesByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("Should rebuild the whole table and clear the mirror")
+    void should_rebuild_and_clear_mirror() {
+        store.permissionNames(1L);
+
+        store.rebuild();
+        store.permissionNames(1L);
+
+        verify(repository).deleteAllRows();
+        verify(repository).insertAll();
+        verify(repository, times(2)).findPermissionNamesByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("Should rebuild at startup when the guard runs the step")
+    void should_rebuild_at_startup_when_changed() {
+        when(seedGuard.runIfChanged(eq(EffectivePermissionStore.REBUILD_NAME), eq(EffectivePermissionStore.REBUILD_CHECKSUM),
+                any(BooleanSupplier.class), any(Runnable.class)))
+                .thenAnswer(invocation -> {
+                    invocation.<Runnable>getArgument(3).run();
+                    return true;
+                });
+        store.permissionNames(1L);
+
+        store.afterSingletonsInstantiated();
+        store.permissionNames(1L);
+
+        verify(repository).deleteAllRows();
+        verify(repository).insertAll();
+        verify(repository, times(2)).findPermissionNamesByUserId(1L);
+    }
+
+    @Test
+    @DisplayName("Should skip the startup rebuild when the table is current")
+    void should_skip_startup_rebuild_when_current() {
+        store.afterSingletonsInstantiated();
+
+        verify(repository, never()).deleteAllRows();
+        verify(repository, never()).insertAll();
+    }
+
+    @Test
+    @DisplayName("Should force the startup rebuild only when the table is empty")
+    void should_force_startup_rebuild_when_empty() {
+        ArgumentCaptor<BooleanSupplier> force = ArgumentCaptor.forClass(BooleanSupplier.class);
+        store.afterSingletonsInstantiated();
+        verify(seedGuard).runIfChanged(eq(EffectivePermissionStore.REBUILD_NAME), eq(EffectivePermissionStore.REBUILD_CHECKSUM),
+                force.capture(), any(Runnable.class));
+
+        when(repository.hasRows()).thenReturn(false);
+        assertThat(force.getValue().getAsBoolean()).isTrue();
+        when(repository.hasRows()).thenReturn(true);
+        assertThat(force.getValue().getAsBoolean()).isFalse();
+    }
+}
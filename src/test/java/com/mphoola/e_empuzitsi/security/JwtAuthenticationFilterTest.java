@@ -0,0 +1,163 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mphoola.e_empuzitsi.entity.User;
+import com.mphoola.e_empuzitsi.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for JwtAuthenticationFilter
+ * Tests the claims path, the epoch and max-age fallbacks, and refusing banned users and revoked tokens
+ */
+@DisplayName("JwtAuthenticationFilter Tests")
+class JwtAuthenticationFilterTest {
+
+    private JwtUtil jwtUtil;
+    private CustomUserDetailsService userDetailsService;
+    private PermissionEpochRegistry permissionEpochRegistry;
+    private PermissionIndex permissionIndex;
+    private TokenDenyList tokenDenyList;
+    private BannedUserRegistry bannedUserRegistry;
+    private JwtAuthenticationFilter filter;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret",
+                "myTestSecretKeyThatMustBeAtLeast256BitsLongForHMACAlgorithmToWorkProperly");
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationInMs", 3600);
+
+        userDetailsService = mock(CustomUserDetailsService.class);
+        permissionEpochRegistry = new PermissionEpochRegistry();
+        permissionIndex = new PermissionIndex();
+        tokenDenyList = mock(TokenDenyList.class);
+        bannedUserRegistry = mock(BannedUserRegistry.class);
+        filter = new JwtAuthenticationFilter(jwtUtil, userDetailsService, new ObjectMapper(),
+                permissionEpochRegistry, permissionIndex, tokenDenyList, bannedUserRegistry);
+        ReflectionTestUtils.setField(filter, "claimsAuthEnabled", true);
+
+        user = User.builder()
+                .id(7L)
+                .name("Jane Banda")
+                .email("jane@example.com")
+                .password("hashed")
+                .emailVerifiedAt(LocalDateTime.now())
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should authenticate a current-epoch token from its claims alone")
+    void should_authenticate_from_claims_without_lookup() throws Exception {
+        String token = tokenFor(permissionEpochRegistry.currentEpoch(7L));
+
+        MockHttpServletResponse response = filter(token);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(authentication.getPrincipal()).isInstanceOf(UserPrincipal.class);
+        assertThat(((UserPrincipal) authentication.getPrincipal()).getId()).isEqualTo(7L);
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                .containsExactly("list_users");
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    @DisplayName("Should load the user once the permission epoch was bumped")
+    void should_fall_back_after_epoch_bump() throws Exception {
+        String token = tokenFor(permissionEpochRegistry.currentEpoch(7L));
+        permissionEpochRegistry.bump(7L);
+        UserPrincipal reloaded = principal(permissionEpochRegistry.currentEpoch(7L), List.of());
+        when(userDetailsService.loadUserByUsername("jane@example.com")).thenReturn(reloaded);
+
+        filter(token);
+
+        verify(userDetailsService).loadUserByUsername("jane@example.com");
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isSameAs(reloaded);
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getAuthorities()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should load the user when the claims are older than the max age")
+    void should_fall_back_for_tokens_past_max_age() throws Exception {
+        ReflectionTestUtils.setField(filter, "claimsMaxAgeSeconds", 0L);
+        String token = tokenFor(permissionEpochRegistry.currentEpoch(7L));
+        UserPrincipal reloaded = principal(permissionEpochRegistry.currentEpoch(7L), List.of());
+        when(userDetailsService.loadUserByUsername("jane@example.com")).thenReturn(reloaded);
+
+        filter(token);
+
+        verify(userDetailsService).loadUserByUsername("jane@example.com");
+    }
+
+    @Test
+    @DisplayName("Should reject a banned user's token even while its epoch is current")
+    void should_reject_banned_user() throws Exception {
+        String token = tokenFor(permissionEpochRegistry.currentEpoch(7L));
+        when(bannedUserRegistry.isBanned(7L)).thenReturn(true);
+
+        MockHttpServletResponse response = filter(token);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(response.getContentAsString()).contains("Account has been banned");
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject a revoked token before trusting its claims")
+    void should_reject_revoked_token() throws Exception {
+        String token = tokenFor(permissionEpochRegistry.currentEpoch(7L));
+        String tokenId = jwtUtil.getTokenId(jwtUtil.getClaimsFromToken(token), token);
+        when(tokenDenyList.isRevoked(tokenId)).thenReturn(true);
+
+        MockHttpServletResponse response = filter(token);
+
+        assertThat(response.getStatus()).isEqualTo(401);
+        assertThat(response.getContentAsString()).contains("Token has been revoked");
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    private String tokenFor(long epoch) {
+        UserPrincipal principal = principal(epoch, List.of(permissionIndex.authority("list_users")));
+        return jwtUtil.generateToken(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+
+    private UserPrincipal principal(long epoch, List<GrantedAuthority> authorities) {
+        return UserPrincipal.create(user, authorities, epoch, permissionIndex.bitsOf(authorities));
+    }
+
+    private MockHttpServletResponse filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/users");
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        return response;
+    }
+}
@@ -0,0 +1,133 @@
+package com.mphoola.e_empuzitsi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for LoginThrottle
+ * Tests reservation, release, refill, key independence and the rejection metric
+ */
+@DisplayName("LoginThrottle Tests")
+class LoginThrottleTest {
+
+    private AtomicLong clock;
+    private LoginThrottle throttle;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+        // 10 attempts per IP refilling every 10s, 3 per IP and email refilling every 60s
+        throttle = new LoginThrottle(true, 1000, 10, 10, 3, 60, clock::get);
+    }
+
+    private void advanceSeconds(long seconds) {
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(seconds));
+    }
+
+    @Test
+    @DisplayName("Should charge attempts as they are reserved, before any of them fails")
+    void should_charge_concurrent_attempts() {
+        for (int i = 0; i < 3; i++) {
+            assertThat(throttle.tryAcquire("10.0.0.1", "john@example.com")).isZero();
+        }
+
+        assertThat(throttle.tryAcquire("10.0.0.1", "John@Example.com ")).isEqualTo(60);
+        assertThat(throttle.tryAcquire("10.0.0.1", "jane@example.com")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not lock the account out for other clients")
+    void should_keep_account_open_from_other_ips() {
+        for (int i = 0; i < 3; i++) {
+            throttle.tryAcquire("10.0.0.1", "john@example.com");
+        }
+
+        assertThat(throttle.tryAcquire("10.0.0.1", "john@example.com")).isEqualTo(60);
+        assertThat(throttle.tryAcquire("10.0.0.2", "john@example.com")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should hand back attempts that did not fail")
+    void should_release_successful_attempts() {
+        for (int i = 0; i < 10; i++) {
+            assertThat(throttle.tryAcquire("10.0.0.1", "john@example.com")).isZero();
+            throttle.release("10.0.0.1", "john@example.com");
+        }
+
+        assertThat(throttle.tryAcquire("10.0.0.1", "john@example.com")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should let one more attempt through per refill interval")
+    void should_refill_over_time() {
+        for (int i = 0; i < 3; i++) {
+            throttle.tryAcquire("10.0.0.1", "john@example.com");
+        }
+
+        advanceSeconds(59);
+        assertThat(throttle.tryAcquire("10.0.0.1", "john@example.com")).isEqualTo(1);
+
+        advanceSeconds(1);
+        assertThat(throttle.tryAcquire("10.0.0.1", "john@example.com")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should block an IP spraying many emails")
+    void should_block_ip_across_emails() {
+        for (int i = 0; i < 10; i++) {
+            throttle.tryAcquire("10.0.0.1", "user" + i + "@example.com");
+        }
+
+        assertThat(throttle.tryAcquire("10.0.0.1", "fresh@example.com")).isEqualTo(10);
+        assertThat(throttle.tryAcquire("10.0.0.2", "fresh@example.com")).isZero();
+    }
+
+    @Test
+    @DisplayName("Should not charge the IP when the IP and email bucket turns the attempt away")
+    void should_give_back_ip_token_on_rejection() {
+        for (int i = 0; i < 3; i++) {
+            throttle.tryAcquire("10.0.0.1", "john@example.com");
+        }
+        for (int i = 0; i < 20; i++) {
+            throttle.tryAcquire("10.0.0.1", "john@example.com");
+        }
+
+        // 3 of the 10 IP tokens are used, the 20 rejected attempts took none
+        for (int i = 0; i < 7; i++) {
+            assertThat(throttle.tryAcquire("10.0.0.1", "user" + i + "@example.com")).isZero();
+        }
+        assertThat(throttle.tryAcquire("10.0.0.1", "fresh@example.com")).isPositive();
+    }
+
+    @Test
+    @DisplayName("Should count rejections by key")
+    void should_count_rejections() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        throttle.bindTo(registry);
+        for (int i = 0; i < 3; i++) {
+            throttle.tryAcquire("10.0.0.1", "john@example.com");
+        }
+
+        throttle.tryAcquire("10.0.0.1", "john@example.com");
+
+        assertThat(registry.get("login.throttle.rejected").tag("key", "ip_email").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("login.throttle.rejected").tag("key", "ip").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should never throttle when disabled")
+    void should_ignore_attempts_when_disabled() {
+        LoginThrottle disabled = new LoginThrottle(false, 1000, 1, 10, 1, 60, clock::get);
+        disabled.tryAcquire("10.0.0.1", "john@example.com");
+        disabled.tryAcquire("10.0.0.1", "john@example.com");
+
+        assertThat(disabled.tryAcquire("10.0.0.1", "john@example.com")).isZero();
+    }
+}
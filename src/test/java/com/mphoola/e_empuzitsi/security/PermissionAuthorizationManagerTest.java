@@ -0,0 +1,104 @@
+package com.mphoola.e_empuzitsi.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authorization.AuthorizationResult;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.util.SimpleMethodInvocation;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PermissionAuthorizationManager
+ * Tests expression compilation, bitset checks and the SpEL fallback
+ */
+@DisplayName("PermissionAuthorizationManager Tests")
+class PermissionAuthorizationManagerTest {
+
+    private PermissionIndex permissionIndex;
+    private PermissionAuthorizationManager manager;
+
+    static class SecuredController {
+
+        @PreAuthorize("hasAuthority('list_users')")
+        public void listUsers() {
+        }
+
+        @PreAuthorize("hasAuthority('manage_user_access') or hasAuthority('list_user_roles')")
+        public void listUserRoles() {
+        }
+
+        @PreAuthorize("isAuthenticated()")
+        public void authenticatedOnly() {
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        permissionIndex = new PermissionIndex();
+        manager = new PermissionAuthorizationManager(permissionIndex);
+    }
+
+    private Authentication principalWith(String... names) {
+        List<GrantedAuthority> authorities = Arrays.stream(names).map(permissionIndex::authority).toList();
+        UserPrincipal principal = UserPrincipal.fromClaims(1L, "John", "john@example.com", authorities, 0L, true,
+                permissionIndex.bitsOf(authorities));
+        return new UsernamePasswordAuthenticationToken(principal, null, authorities);
+    }
+
+    private boolean authorize(Authentication authentication, String methodName) throws Exception {
+        SimpleMethodInvocation invocation = new SimpleMethodInvocation(new SecuredController(),
+                SecuredController.class.getMethod(methodName));
+        AuthorizationResult result = manager.authorize(() -> authentication, invocation);
+        return result != null && result.isGranted();
+    }
+
+    @Test
+    @DisplayName("Should intern seeded permissions to dense ids")
+    void should_intern_seeded_permissions() {
+        int first = permissionIndex.idOf("add_role");
+
+        assertThat(first).isZero();
+        assertThat(permissionIndex.idOf("add_role")).isEqualTo(first);
+        assertThat(permissionIndex.authority("add_role")).isSameAs(permissionIndex.authority("add_role"));
+    }
+
+    @Test
+    @DisplayName("Should grant and deny from the principal's authority bits")
+    void should_check_authority_bits() throws Exception {
+        assertThat(authorize(principalWith("list_users"), "listUsers")).isTrue();
+        assertThat(authorize(principalWith("add_user"), "listUsers")).isFalse();
+        assertThat(authorize(principalWith("list_user_roles"), "listUserRoles")).isTrue();
+        assertThat(authorize(principalWith(), "listUserRoles")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should check principals without compiled bits by authority name")
+    void should_check_by_name_without_bits() throws Exception {
+        Authentication authentication = new TestingAuthenticationToken("test", null, "list_users");
+
+        assertThat(authorize(authentication, "listUsers")).isTrue();
+        assertThat(authorize(authentication, "listUserRoles")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should delegate other expressions to SpEL")
+    void should_delegate_other_expressions() throws Exception {
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken("test", null);
+        authentication.setAuthenticated(true);
+
+        assertThat(authorize(authentication, "authenticatedOnly")).isTrue();
+        assertThat(PermissionAuthorizationManager.parse("isAuthenticated()")).isNull();
+        assertThat(PermissionAuthorizationManager.parse("hasAuthority('a') and hasAuthority('b')")).isNull();
+        assertThat(PermissionAuthorizationManager.parse("hasAnyAuthority('a', 'b') or hasAuthority('c')"))
+                .containsExactly("a", "b", "c");
+    }
+}
@@ -0,0 +1,85 @@
+package com.mphoola.e_empuzitsi.security;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for PermissionEpochRegistry
+ * Tests epoch stamping, revocation and after-commit bumps
+ */
+@DisplayName("PermissionEpochRegistry Tests")
+class PermissionEpochRegistryTest {
+
+    private PermissionEpochRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new PermissionEpochRegistry();
+    }
+
+    @Test
+    @DisplayName("Should trust a stamped epoch until the user is bumped")
+    void should_trust_epoch_until_bumped() {
+        long snapshot = registry.snapshot();
+        long epoch = registry.stampFor(1L, snapshot);
+
+        assertThat(registry.isCurrent(1L, epoch)).isTrue();
+
+        registry.bump(1L);
+
+        assertThat(registry.isCurrent(1L, epoch)).isFalse();
+        assertThat(registry.isCurrent(2L, registry.currentEpoch(2L))).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should stamp principals loaded during a bump as stale")
+    void should_stamp_stale_when_bumped_during_load() {
+        long snapshot = registry.snapshot();
+
+        registry.bump(1L);
+
+        long epoch = registry.stampFor(1L, snapshot);
+        assertThat(epoch).isEqualTo(PermissionEpochRegistry.STALE);
+        assertThat(registry.isCurrent(1L, epoch)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should bump every holder at once")
+    void should_bump_all_users() {
+        long epochOne = registry.currentEpoch(1L);
+        long epochTwo = registry.currentEpoch(2L);
+
+        registry.bumpAll(List.of(1L, 2L));
+
+        assertThat(registry.isCurrent(1L, epochOne)).isFalse();
+        assertThat(registry.isCurrent(2L, epochTwo)).isFalse();
+        assertThat(registry.currentEpoch(1L)).isEqualTo(registry.currentEpoch(2L));
+    }
+
+    @Test
+    @DisplayName("Should defer bump until the surrounding transaction commits")
+    void should_defer_bump_until_commit() {
+        long epoch = registry.currentEpoch(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            registry.bump(1L);
+            assertThat(registry.isCurrent(1L, epoch)).isTrue();
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(registry.isCurrent(1L, epoch)).isFalse();
+    }
+}
@@ -0,0 +1,118 @@
+package com.mphoola.e_empuzitsi.security;
+
+import com.mphoola.e_empuzitsi.entity.RevokedToken;
+import com.mphoola.e_empuzitsi.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for TokenDenyList
+ * Tests that the table is only queried on a filter positive and that rebuilds keep revocations
+ */
+@ExtendWith(MockitoExtension.class)
+@DisplayName("TokenDenyList Tests")
+class TokenDenyListTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TokenDenyList denyList;
+
+    @BeforeEach
+    void setUp() {
+        denyList = new TokenDenyList(revokedTokenRepository, transactionManager, 1000, 0.001);
+    }
+
+    @Test
+    @DisplayName("Should answer unknown tokens without a query")
+    void should_not_query_for_unknown_tokens() {
+        assertThat(denyList.isRevoked("never-revoked")).isFalse();
+        assertThat(denyList.isRevoked(null)).isFalse();
+
+        verify(revokedTokenRepository, never()).existsByTokenId(anyString());
+    }
+
+    @Test
+    @DisplayName("Should store a revoked token and confirm it against the table")
+    void should_revoke_token() {
+        Date expiresAt = new Date(System.currentTimeMillis() + 60_000);
+        when(revokedTokenRepository.existsByTokenId("jti-1")).thenReturn(false, true);
+
+        denyList.revoke("jti-1", 7L, expiresAt);
+
+        verify(revokedTokenRepository).saveAndFlush(argThat((RevokedToken token) ->
+                token.getTokenId().equals("jti-1") && token.getUserId().equals(7L)));
+        assertThat(denyList.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should treat a concurrent duplicate revocation as already revoked")
+    void should_tolerate_concurrent_duplicate_revocation() {
+        Date expiresAt = new Date(System.currentTimeMillis() + 60_000);
+        when(revokedTokenRepository.existsByTokenId("jti-1")).thenReturn(false, true);
+        when(revokedTokenRepository.saveAndFlush(any(RevokedToken.class)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        denyList.revoke("jti-1", 7L, expiresAt);
+
+        assertThat(denyList.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should keep tokens revoked while a rebuild reads the table")
+    void should_keep_revocations_made_during_rebuild() {
+        Date expiresAt = new Date(System.currentTimeMillis() + 60_000);
+        when(revokedTokenRepository.findActiveTokenIds(any())).thenAnswer(invocation -> {
+            // Row not committed yet when the rebuild reads the table
+            denyList.revoke("jti-2", 7L, expiresAt);
+            return List.of();
+        });
+        when(revokedTokenRepository.existsByTokenId("jti-2")).thenReturn(false, true);
+
+        denyList.purgeAndRebuild();
+
+        assertThat(denyList.isRevoked("jti-2")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should rebuild the filter from the table after purging")
+    void should_rebuild_from_table() {
+        when(revokedTokenRepository.findActiveTokenIds(any())).thenReturn(List.of("jti-1"));
+        when(revokedTokenRepository.existsByTokenId("jti-1")).thenReturn(true);
+
+        denyList.purgeAndRebuild();
+
+        verify(revokedTokenRepository).deleteExpired(any());
+        assertThat(denyList.isRevoked("jti-1")).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should forget tokens that are no longer in the table after a rebuild")
+    void should_drop_purged_tokens_on_rebuild() {
+        when(revokedTokenRepository.findActiveTokenIds(any())).thenReturn(List.of());
+        denyList.revoke("jti-1", 7L, new Date(System.currentTimeMillis() - 1000));
+
+        denyList.purgeAndRebuild();
+        clearInvocations(revokedTokenRepository);
+
+        assertThat(denyList.isRevoked("jti-1")).isFalse();
+        verify(revokedTokenRepository, never()).existsByTokenId(anyString());
+    }
+}
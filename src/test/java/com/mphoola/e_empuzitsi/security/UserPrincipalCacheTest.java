@@ -0,0 +1,111 @@
+package com.mphoola.e_empuzitsi.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for UserPrincipalCache
+ * Tests lookups by email and id, targeted eviction and published metrics
+ */
+@DisplayName("UserPrincipalCache Tests")
+class UserPrincipalCacheTest {
+
+    private UserPrincipalCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserPrincipalCache(100, 600);
+        loads = new AtomicInteger();
+    }
+
+    private UserPrincipal load(Long id, String email) {
+        loads.incrementAndGet();
+        return UserPrincipal.fromClaims(id, "User " + id, email, List.of(), 0L, true, new long[0]);
+    }
+
+    @Test
+    @DisplayName("Should share one entry between email and id lookups")
+    void should_share_entry_between_keys() {
+        UserPrincipal byEmail = cache.getByEmail("john@example.com", email -> load(1L, email));
+        UserPrincipal byId = cache.getById(1L, id -> load(id, "john@example.com"));
+        UserPrincipal again = cache.getByEmail("john@example.com", email -> load(1L, email));
+
+        assertThat(byId).isSameAs(byEmail);
+        assertThat(again).isSameAs(byEmail);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should evict only the touched user")
+    void should_evict_only_touched_user() {
+        cache.getByEmail("john@example.com", email -> load(1L, email));
+        cache.getByEmail("jane@example.com", email -> load(2L, email));
+
+        cache.evict(1L);
+
+        cache.getByEmail("john@example.com", email -> load(1L, email));
+        cache.getByEmail("jane@example.com", email -> load(2L, email));
+        assertThat(loads.get()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("Should defer eviction until the surrounding transaction commits")
+    void should_defer_eviction_until_commit() {
+        UserPrincipal cached = cache.getById(1L, id -> load(id, "john@example.com"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.evictAll(List.of(1L));
+            assertThat(cache.getById(1L, id -> load(id, "john@example.com"))).isSameAs(cached);
+
+            for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+                synchronization.afterCommit();
+            }
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(cache.getById(1L, id -> load(id, "john@example.com"))).isNotSameAs(cached);
+    }
+
+    @Test
+    @DisplayName("Should not keep a principal loaded while the user was evicted")
+    void should_drop_principal_loaded_during_eviction() {
+        cache.getByEmail("john@example.com", email -> {
+            cache.evict(1L);
+            return load(1L, email);
+        });
+
+        cache.getByEmail("john@example.com", email -> load(1L, email));
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should publish hit, miss and load metrics")
+    void should_publish_metrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        cache.getByEmail("john@example.com", email -> load(1L, email));
+        cache.getByEmail("john@example.com", email -> load(1L, email));
+
+        assertThat(registry.get("cache.gets").tag("cache", UserPrincipalCache.CACHE_NAME).tag("result", "hit")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.gets").tag("cache", UserPrincipalCache.CACHE_NAME).tag("result", "miss")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.load").tag("cache", UserPrincipalCache.CACHE_NAME).tag("result", "success")
+                .functionCounter().count()).isEqualTo(1.0);
+        assertThat(registry.get("cache.load.duration").tag("cache", UserPrincipalCache.CACHE_NAME)
+                .timeGauge().value()).isPositive();
+    }
+}
@@ -16,6 +16,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
@@ -36,6 +38,9 @@ class AcademicYearServiceTest {
     @Mock
     private ActivityLogService activityLogService;
 
+    @Mock
+    private ApproximateCounts approximateCounts;
+
     @InjectMocks
     private AcademicYearService academicYearService;
 
@@ -76,6 +81,22 @@ class AcademicYearServiceTest {
         verify(academicYearRepository).findAll(pageable);
     }
 
+    @Test
+    void getAcademicYearsSlice_ShouldNotCount() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 10);
+        when(academicYearRepository.findSliceBy(pageable)).thenReturn(new SliceImpl<>(List.of(academicYear), pageable, false));
+
+        // When
+        Slice<AcademicYearResponse> result = academicYearService.getAcademicYearsSlice(null, pageable);
+
+        // Then
+        assertEquals(1, result.getNumberOfElements());
+        assertFalse(result.hasNext());
+        verify(academicYearRepository, never()).findAll(any(Pageable.class));
+        verify(academicYearRepository, never()).count();
+    }
+
     @Test
     void getAcademicYearsByStatus_ShouldReturnFilteredResults() {
         // Given
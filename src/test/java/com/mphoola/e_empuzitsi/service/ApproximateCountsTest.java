@@ -0,0 +1,69 @@
+package com.mphoola.e_empuzitsi.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for ApproximateCounts
+ * Tests caching, stale-while-refresh and key independence
+ */
+@DisplayName("ApproximateCounts Tests")
+class ApproximateCountsTest {
+
+    private AtomicLong clock;
+    private AtomicLong rows;
+    private AtomicLong countQueries;
+    private ApproximateCounts approximateCounts;
+
+    @BeforeEach
+    void setUp() {
+        clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+        rows = new AtomicLong(100);
+        countQueries = new AtomicLong();
+        // Refresh after 60s, reloading on the calling thread
+        approximateCounts = new ApproximateCounts(60, 100, clock::get, Runnable::run);
+    }
+
+    private long count() {
+        countQueries.incrementAndGet();
+        return rows.get();
+    }
+
+    @Test
+    @DisplayName("Should count once and serve the cached value within the refresh interval")
+    void should_serve_cached_count() {
+        assertThat(approximateCounts.get("users", this::count)).isEqualTo(100);
+
+        rows.set(150);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(59));
+
+        assertThat(approximateCounts.get("users", this::count)).isEqualTo(100);
+        assertThat(countQueries.get()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should serve the stale value while refreshing, then the new one")
+    void should_refresh_after_interval() {
+        approximateCounts.get("users", this::count);
+        rows.set(150);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+        assertThat(approximateCounts.get("users", this::count)).isEqualTo(100);
+        assertThat(approximateCounts.get("users", this::count)).isEqualTo(150);
+        assertThat(countQueries.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should count each key separately")
+    void should_count_keys_separately() {
+        assertThat(approximateCounts.get("users:null:null:ACTIVE", () -> 7L)).isEqualTo(7);
+        assertThat(approximateCounts.get("users:null:null:BANNED", () -> 2L)).isEqualTo(2);
+        assertThat(approximateCounts.get("users:null:null:ACTIVE", () -> 99L)).isEqualTo(7);
+    }
+}
@@ -0,0 +1,119 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.mphoola.e_empuzitsi.dto.auth.AuthResponse;
+import com.mphoola.e_empuzitsi.dto.auth.LoginRequest;
+import com.mphoola.e_empuzitsi.entity.Permission;
+import com.mphoola.e_empuzitsi.entity.Role;
+import com.mphoola.e_empuzitsi.entity.User;
+import com.mphoola.e_empuzitsi.entity.UserPermission;
+import com.mphoola.e_empuzitsi.entity.UserRole;
+import com.mphoola.e_empuzitsi.repository.PermissionRepository;
+import com.mphoola.e_empuzitsi.repository.RoleRepository;
+import com.mphoola.e_empuzitsi.repository.UserPermissionRepository;
+import com.mphoola.e_empuzitsi.repository.UserRepository;
+import com.mphoola.e_empuzitsi.repository.UserRoleRepository;
+import com.mphoola.e_empuzitsi.security.EffectivePermissionStore;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Integration test for the number of SQL statements issued by a login
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+public class AuthServiceLoginStatementTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PermissionRepository permissionRepository;
+
+    @Autowired
+    private UserRoleRepository userRoleRepository;
+
+    @Autowired
+    private UserPermissionRepository userPermissionRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private EffectivePermissionStore effectivePermissionStore;
+
+    private Statistics statistics;
+    private String email;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        email = "login-" + suffix + "@example.com";
+
+        Permission listUsers = permissionRepository.findByName("list_users").orElseThrow();
+        Permission listRoles = permissionRepository.findByName("list_roles").orElseThrow();
+        Permission listSubjects = permissionRepository.findByName("list_subjects").orElseThrow();
+
+        Role role = roleRepository.save(Role.builder()
+                .name("LOGIN_TEST_" + suffix)
+                .permissions(new HashSet<>(Set.of(listUsers, listRoles)))
+                .build());
+
+        User user = userRepository.save(User.builder()
+                .name("Login Test")
+                .email(email)
+                .password(passwordEncoder.encode("password123"))
+                .build());
+
+        userRoleRepository.save(UserRole.builder().user(user).role(role).build());
+        userPermissionRepository.save(UserPermission.builder().user(user).permission(listSubjects).build());
+        effectivePermissionStore.rebuild();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        statistics.setStatisticsEnabled(false);
+    }
+
+    @Test
+    public void login_should_issue_one_statement_per_collection() {
+        // When
+        AuthResponse response = authService.login(LoginRequest.builder()
+                .email(email)
+                .password("password123")
+                .build());
+
+        // Then - user with roles, then its materialized effective permissions: one keyed query each
+        assertThat(response.getToken()).isNotBlank();
+        assertThat(response.getUser().getRoles()).hasSize(1);
+        assertThat(response.getUser().getPermissions())
+                .containsExactlyInAnyOrder("list_users", "list_roles", "list_subjects");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2);
+    }
+}
@@ -6,28 +6,37 @@ import com.mphoola.e_empuzitsi.dto.auth.RegisterRequest;
 import com.mphoola.e_empuzitsi.dto.user.UserResponse;
 import com.mphoola.e_empuzitsi.entity.Role;
 import com.mphoola.e_empuzitsi.entity.User;
-import com.mphoola.e_empuzitsi.entity.UserRole;
+import com.mphoola.e_empuzitsi.entity.UserStatus;
 import com.mphoola.e_empuzitsi.exception.BadCredentialsException;
 import com.mphoola.e_empuzitsi.exception.ResourceConflictException;
 import com.mphoola.e_empuzitsi.exception.ResourceNotFoundException;
+import com.mphoola.e_empuzitsi.exception.ServiceBusyException;
 import com.mphoola.e_empuzitsi.repository.RoleRepository;
 import com.mphoola.e_empuzitsi.repository.UserRepository;
-import com.mphoola.e_empuzitsi.repository.UserRoleRepository;
+import com.mphoola.e_empuzitsi.security.CustomUserDetailsService;
+import com.mphoola.e_empuzitsi.security.EffectivePermissionStore;
+import com.mphoola.e_empuzitsi.security.PermissionEpochRegistry;
+import com.mphoola.e_empuzitsi.security.TokenDenyList;
+import com.mphoola.e_empuzitsi.security.UserPrincipal;
 import com.mphoola.e_empuzitsi.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -48,7 +57,7 @@ public class AuthServiceTest {
     private RoleRepository roleRepository;
 
     @Mock
-    private UserRoleRepository userRoleRepository;
+    private DefaultRoleCache defaultRoleCache;
 
     @Mock
     private UserService userService;
@@ -57,10 +66,22 @@ public class AuthServiceTest {
     private PasswordEncoder passwordEncoder;
 
     @Mock
-    private AuthenticationManager authenticationManager;
+    private JwtUtil jwtUtil;
 
     @Mock
-    private JwtUtil jwtUtil;
+    private CustomUserDetailsService userDetailsService;
+
+    @Mock
+    private PermissionEpochRegistry permissionEpochRegistry;
+
+    @Mock
+    private TokenDenyList tokenDenyList;
+
+    @Mock
+    private EffectivePermissionStore effectivePermissionStore;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
 
     @InjectMocks
     private AuthService authService;
@@ -110,13 +131,14 @@ public class AuthServiceTest {
     @Test
     void register_WithValidData_ShouldCreateUserSuccessfully() {
         // Given
+        DefaultRoleCache.DefaultRole defaultRole = new DefaultRoleCache.DefaultRole(1L, "STUDENT", Set.of("view_subjects"));
         when(userRepository.existsByEmail(registerRequest.getEmail())).thenReturn(false);
+        when(defaultRoleCache.get()).thenReturn(defaultRole);
+        when(roleRepository.getReferenceById(1L)).thenReturn(studentRole);
         when(passwordEncoder.encode(registerRequest.getPassword())).thenReturn("encodedPassword");
         when(userRepository.save(any(User.class))).thenReturn(testUser);
-        when(roleRepository.findByName("STUDENT")).thenReturn(Optional.of(studentRole));
-        when(userRoleRepository.save(any(UserRole.class))).thenReturn(new UserRole());
         when(jwtUtil.generateToken(testUser.getEmail())).thenReturn("jwt-token");
-        when(userService.mapToUserResponse(testUser)).thenReturn(userResponse);
+        when(userService.mapToUserResponse(testUser, Set.of("STUDENT"), Set.of("view_subjects"))).thenReturn(userResponse);
 
         // When
         AuthResponse result = authService.register(registerRequest);
@@ -128,11 +150,53 @@ public class AuthServiceTest {
 
         verify(userRepository).existsByEmail(registerRequest.getEmail());
         verify(passwordEncoder).encode(registerRequest.getPassword());
-        verify(userRepository).save(any(User.class));
-        verify(roleRepository).findByName("STUDENT");
-        verify(userRoleRepository).save(any(UserRole.class));
+        verify(userRepository).save(argThat((User user) ->
+                user.getVerificationToken() != null
+                        && user.getUserRoles().size() == 1
+                        && user.getUserRoles().iterator().next().getRole() == studentRole));
+        verify(effectivePermissionStore).refresh(List.of(1L));
+        verify(userService).sendVerificationEmail(testUser);
         verify(jwtUtil).generateToken(testUser.getEmail());
-        verify(userService).mapToUserResponse(testUser);
+    }
+
+    @Test
+    void register_ShouldNotReloadUserOrRole() {
+        // Given
+        DefaultRoleCache.DefaultRole defaultRole = new DefaultRoleCache.DefaultRole(1L, "STUDENT", Set.of());
+        when(userRepository.existsByEmail(registerRequest.getEmail())).thenReturn(false);
+        when(defaultRoleCache.get()).thenReturn(defaultRole);
+        when(passwordEncoder.encode(registerRequest.getPassword())).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        // When
+        authService.register(registerRequest);
+
+        // Then
+        verify(userRepository, times(1)).save(any(User.class));
+        verify(userRepository, never()).findByEmailWithRolesAndPermissions(anyString());
+        verify(roleRepository, never()).findByName(anyString());
+        verify(userService, never()).sendEmailVerification(anyString());
+    }
+
+    @Test
+    void register_ShouldHashPasswordBeforeOpeningTheTransaction() {
+        // Given
+        DefaultRoleCache.DefaultRole defaultRole = new DefaultRoleCache.DefaultRole(1L, "STUDENT", Set.of());
+        when(userRepository.existsByEmail(registerRequest.getEmail())).thenReturn(false);
+        when(defaultRoleCache.get()).thenReturn(defaultRole);
+        when(passwordEncoder.encode(registerRequest.getPassword())).thenReturn("encodedPassword");
+        when(userRepository.save(any(User.class))).thenReturn(testUser);
+
+        // When
+        authService.register(registerRequest);
+
+        // Then
+        InOrder inOrder = inOrder(passwordEncoder, transactionManager, userRepository);
+        inOrder.verify(passwordEncoder).encode(registerRequest.getPassword());
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(userRepository).existsByEmail(registerRequest.getEmail());
+        inOrder.verify(userRepository).save(argThat((User user) -> "encodedPassword".equals(user.getPassword())));
+        inOrder.verify(transactionManager).commit(any());
     }
 
     @Test
@@ -153,9 +217,8 @@ public class AuthServiceTest {
     void register_WithMissingStudentRole_ShouldThrowResourceNotFoundException() {
         // Given
         when(userRepository.existsByEmail(registerRequest.getEmail())).thenReturn(false);
-        when(passwordEncoder.encode(registerRequest.getPassword())).thenReturn("encodedPassword");
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
-        when(roleRepository.findByName("STUDENT")).thenReturn(Optional.empty());
+        when(defaultRoleCache.get()).thenThrow(
+                new ResourceNotFoundException("STUDENT role not found. Please ensure roles are initialized."));
 
         // When/Then
         assertThatThrownBy(() -> authService.register(registerRequest))
@@ -163,20 +226,20 @@ public class AuthServiceTest {
                 .hasMessage("STUDENT role not found. Please ensure roles are initialized.");
 
         verify(userRepository).existsByEmail(registerRequest.getEmail());
-        verify(userRepository).save(any(User.class));
-        verify(roleRepository).findByName("STUDENT");
-        verify(userRoleRepository, never()).save(any(UserRole.class));
+        verify(userRepository, never()).save(any(User.class));
     }
 
     @Test
     void login_WithValidCredentials_ShouldReturnAuthResponse() {
         // Given
-        Authentication mockAuth = mock(Authentication.class);
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(mockAuth);
-        when(jwtUtil.generateToken(mockAuth)).thenReturn("jwt-token");
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
-        when(userService.mapToUserResponse(testUser)).thenReturn(userResponse);
+        UserPrincipal principal = UserPrincipal.create(testUser, List.of());
+        when(permissionEpochRegistry.snapshot()).thenReturn(42L);
+        when(userRepository.findByEmailWithRoles(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches(loginRequest.getPassword(), testUser.getPassword())).thenReturn(true);
+        when(userDetailsService.createPrincipal(testUser, 42L)).thenReturn(principal);
+        when(jwtUtil.generateToken(any(Authentication.class))).thenReturn("jwt-token");
+        when(effectivePermissionStore.permissionNames(1L)).thenReturn(Set.of("list_users"));
+        when(userService.mapToUserResponse(testUser, Set.of(), Set.of("list_users"))).thenReturn(userResponse);
 
         // When
         AuthResponse result = authService.login(loginRequest);
@@ -186,70 +249,106 @@ public class AuthServiceTest {
         assertThat(result.getToken()).isEqualTo("jwt-token");
         assertThat(result.getUser()).isEqualTo(userResponse);
 
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtUtil).generateToken(mockAuth);
-        verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(userService).mapToUserResponse(testUser);
+        // The same entity serves the password check, the token and the response
+        verify(userRepository).findByEmailWithRoles(loginRequest.getEmail());
+        verify(userRepository, never()).findByEmail(anyString());
+        verify(jwtUtil).generateToken(argThat((Authentication authentication) -> authentication.getPrincipal() == principal));
+        verify(userService).mapToUserResponse(testUser, Set.of(), Set.of("list_users"));
+        verify(userService, never()).upgradePasswordHash(any(), anyString());
+    }
+
+    @Test
+    void login_WithOutdatedHashCost_ShouldRehashPassword() {
+        // Given
+        UserPrincipal principal = UserPrincipal.create(testUser, List.of());
+        when(userRepository.findByEmailWithRoles(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches(loginRequest.getPassword(), testUser.getPassword())).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding(testUser.getPassword())).thenReturn(true);
+        when(userDetailsService.createPrincipal(eq(testUser), anyLong())).thenReturn(principal);
+        when(jwtUtil.generateToken(any(Authentication.class))).thenReturn("jwt-token");
+
+        // When
+        authService.login(loginRequest);
+
+        // Then
+        verify(userService).upgradePasswordHash(testUser, loginRequest.getPassword());
+    }
+
+    @Test
+    void login_WhenRehashIsBusy_ShouldStillSucceed() {
+        // Given
+        UserPrincipal principal = UserPrincipal.create(testUser, List.of());
+        when(userRepository.findByEmailWithRoles(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches(loginRequest.getPassword(), testUser.getPassword())).thenReturn(true);
+        when(passwordEncoder.upgradeEncoding(testUser.getPassword())).thenReturn(true);
+        doThrow(new ServiceBusyException("busy", 2)).when(userService).upgradePasswordHash(testUser, loginRequest.getPassword());
+        when(userDetailsService.createPrincipal(eq(testUser), anyLong())).thenReturn(principal);
+        when(jwtUtil.generateToken(any(Authentication.class))).thenReturn("jwt-token");
+
+        // When
+        AuthResponse result = authService.login(loginRequest);
+
+        // Then
+        assertThat(result.getToken()).isEqualTo("jwt-token");
     }
 
     @Test
     void login_WithInvalidCredentials_ShouldThrowBadCredentialsException() {
         // Given
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenThrow(new AuthenticationException("Bad credentials") {});
+        when(userRepository.findByEmailWithRoles(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
+        when(passwordEncoder.matches(loginRequest.getPassword(), testUser.getPassword())).thenReturn(false);
 
         // When/Then
         assertThatThrownBy(() -> authService.login(loginRequest))
                 .isInstanceOf(BadCredentialsException.class)
                 .hasMessage("Invalid email or password");
 
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(jwtUtil, never()).generateToken(any(Authentication.class));
-        verify(userRepository, never()).findByEmail(anyString());
+        verify(userService, never()).mapToUserResponse(any(), anySet(), anySet());
     }
 
     @Test
-    void login_WithNonExistentUser_ShouldThrowResourceNotFoundException() {
+    void login_WithNonExistentUser_ShouldThrowBadCredentialsException() {
         // Given
-        Authentication mockAuth = mock(Authentication.class);
-        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
-                .thenReturn(mockAuth);
-        when(jwtUtil.generateToken(mockAuth)).thenReturn("jwt-token");
-        when(userRepository.findByEmail(loginRequest.getEmail())).thenReturn(Optional.empty());
+        when(userRepository.findByEmailWithRoles(loginRequest.getEmail())).thenReturn(Optional.empty());
 
         // When/Then
         assertThatThrownBy(() -> authService.login(loginRequest))
-                .isInstanceOf(ResourceNotFoundException.class)
-                .hasMessage("User not found");
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Invalid email or password");
 
-        verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
-        verify(jwtUtil).generateToken(mockAuth);
-        verify(userRepository).findByEmail(loginRequest.getEmail());
-        verify(userService, never()).mapToUserResponse(any());
+        verify(passwordEncoder, never()).matches(anyString(), anyString());
+        verify(jwtUtil, never()).generateToken(any(Authentication.class));
+        verify(userService, never()).mapToUserResponse(any(), anySet(), anySet());
     }
 
     @Test
-    void assignDefaultRole_ShouldCreateUserRoleSuccessfully() {
+    void login_WithBannedUser_ShouldThrowBadCredentialsException() {
         // Given
-        when(roleRepository.findByName("STUDENT")).thenReturn(Optional.of(studentRole));
-        when(userRoleRepository.save(any(UserRole.class))).thenReturn(new UserRole());
+        testUser.setStatus(UserStatus.BANNED);
+        when(userRepository.findByEmailWithRoles(loginRequest.getEmail())).thenReturn(Optional.of(testUser));
 
-        // This tests the private method indirectly through register()
-        when(userRepository.existsByEmail(registerRequest.getEmail())).thenReturn(false);
-        when(passwordEncoder.encode(registerRequest.getPassword())).thenReturn("encodedPassword");
-        when(userRepository.save(any(User.class))).thenReturn(testUser);
-        when(jwtUtil.generateToken(testUser.getEmail())).thenReturn("jwt-token");
-        when(userService.mapToUserResponse(testUser)).thenReturn(userResponse);
+        // When/Then
+        assertThatThrownBy(() -> authService.login(loginRequest))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Account has been banned. Please contact administrator.");
+
+        verify(passwordEncoder, never()).matches(anyString(), anyString());
+        verify(jwtUtil, never()).generateToken(any(Authentication.class));
+    }
+
+    @Test
+    void logout_ShouldRevokeTokenUntilItExpires() {
+        // Given
+        Date expiration = new Date(System.currentTimeMillis() + 60_000);
+        Claims claims = Jwts.claims().id("jti-1").expiration(expiration).add(JwtUtil.CLAIM_USER_ID, 1L).build();
+        when(jwtUtil.getClaimsFromToken("jwt-token")).thenReturn(claims);
+        when(jwtUtil.getTokenId(claims, "jwt-token")).thenReturn("jti-1");
 
         // When
-        AuthResponse result = authService.register(registerRequest);
+        authService.logout("jwt-token");
 
         // Then
-        assertThat(result).isNotNull();
-        
-        verify(roleRepository).findByName("STUDENT");
-        verify(userRoleRepository).save(argThat(userRole -> 
-            userRole.getUser().equals(testUser) && 
-            userRole.getRole().equals(studentRole)));
+        verify(tokenDenyList).revoke("jti-1", 1L, expiration);
     }
 }
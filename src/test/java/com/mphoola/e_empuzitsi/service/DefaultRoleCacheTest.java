@@ -0,0 +1,86 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.mphoola.e_empuzitsi.entity.Permission;
+import com.mphoola.e_empuzitsi.entity.Role;
+import com.mphoola.e_empuzitsi.exception.ResourceNotFoundException;
+import com.mphoola.e_empuzitsi.repository.RoleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for DefaultRoleCache
+ * Tests single loading of the STUDENT role and invalidation
+ */
+@ExtendWith(MockitoExtension.class)
+public class DefaultRoleCacheTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @InjectMocks
+    private DefaultRoleCache defaultRoleCache;
+
+    private Role studentRole;
+
+    @BeforeEach
+    void setUp() {
+        studentRole = Role.builder()
+                .id(3L)
+                .name("STUDENT")
+                .permissions(Set.of(Permission.builder().id(1L).name("view_subjects").build()))
+                .build();
+    }
+
+    @Test
+    void get_ShouldLoadRoleOnce() {
+        // Given
+        when(roleRepository.findByNameWithPermissions("STUDENT")).thenReturn(Optional.of(studentRole));
+
+        // When
+        DefaultRoleCache.DefaultRole first = defaultRoleCache.get();
+        DefaultRoleCache.DefaultRole second = defaultRoleCache.get();
+
+        // Then
+        assertThat(first.id()).isEqualTo(3L);
+        assertThat(first.name()).isEqualTo("STUDENT");
+        assertThat(first.permissions()).containsExactly("view_subjects");
+        assertThat(second).isSameAs(first);
+        verify(roleRepository, times(1)).findByNameWithPermissions("STUDENT");
+    }
+
+    @Test
+    void invalidate_ShouldReloadOnNextGet() {
+        // Given
+        when(roleRepository.findByNameWithPermissions("STUDENT")).thenReturn(Optional.of(studentRole));
+        defaultRoleCache.get();
+
+        // When
+        defaultRoleCache.invalidate();
+        defaultRoleCache.get();
+
+        // Then
+        verify(roleRepository, times(2)).findByNameWithPermissions("STUDENT");
+    }
+
+    @Test
+    void get_WithMissingRole_ShouldThrowResourceNotFoundException() {
+        // Given
+        when(roleRepository.findByNameWithPermissions("STUDENT")).thenReturn(Optional.empty());
+
+        // When/Then
+        assertThatThrownBy(() -> defaultRoleCache.get())
+                .isInstanceOf(ResourceNotFoundException.class)
+                .hasMessage("STUDENT role not found. Please ensure roles are initialized.");
+    }
+}
@@ -0,0 +1,132 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.mphoola.e_empuzitsi.entity.Permission;
+import com.mphoola.e_empuzitsi.entity.Role;
+import com.mphoola.e_empuzitsi.repository.PermissionRepository;
+import com.mphoola.e_empuzitsi.repository.RoleRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for RoleCatalog
+ * Tests single loading of the snapshot, versioned ETags, expiry and invalidation after commit
+ */
+@ExtendWith(MockitoExtension.class)
+public class RoleCatalogTest {
+
+    @Mock
+    private RoleRepository roleRepository;
+
+    @Mock
+    private PermissionRepository permissionRepository;
+
+    private RoleCatalog roleCatalog;
+    private Permission view;
+
+    @BeforeEach
+    void setUp() {
+        Permission edit = Permission.builder().id(2L).name("edit_subject").build();
+        view = Permission.builder().id(1L).name("view_subjects").build();
+        Role student = Role.builder().id(3L).name("STUDENT").permissions(Set.of(view, edit)).build();
+        when(permissionRepository.findAll()).thenReturn(List.of(edit, view));
+        when(roleRepository.findAllWithPermissions()).thenReturn(List.of(student));
+        roleCatalog = new RoleCatalog(roleRepository, permissionRepository, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void get_ShouldLoadSnapshotOnce() {
+        // When
+        RoleCatalog.Snapshot first = roleCatalog.get();
+        RoleCatalog.Snapshot second = roleCatalog.get();
+
+        // Then
+        assertThat(first.permissions()).extracting("name").containsExactly("view_subjects", "edit_subject");
+        assertThat(first.roles()).hasSize(1);
+        assertThat(first.roles().get(0).permissions()).containsExactly("edit_subject", "view_subjects");
+        assertThat(first.eTag()).startsWith("\"").endsWith("-1\"");
+        assertThat(second).isSameAs(first);
+        verify(permissionRepository, times(1)).findAll();
+        verify(roleRepository, times(1)).findAllWithPermissions();
+    }
+
+    @Test
+    void invalidate_ShouldReloadWithHigherVersion() {
+        // Given
+        RoleCatalog.Snapshot first = roleCatalog.get();
+
+        // When
+        roleCatalog.invalidate();
+        RoleCatalog.Snapshot second = roleCatalog.get();
+
+        // Then
+        assertThat(second.version()).isGreaterThan(first.version());
+        assertThat(second.eTag()).isNotEqualTo(first.eTag());
+        verify(roleRepository, times(2)).findAllWithPermissions();
+    }
+
+    @Test
+    void invalidate_InsideTransaction_ShouldKeepSnapshotUntilCommit() {
+        // Given
+        RoleCatalog.Snapshot first = roleCatalog.get();
+        TransactionSynchronizationManager.initSynchronization();
+
+        // When
+        roleCatalog.invalidate();
+
+        // Then
+        assertThat(roleCatalog.get()).isSameAs(first);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertThat(roleCatalog.eTag()).isNotEqualTo(first.eTag());
+    }
+
+    @Test
+    void get_AfterTtl_ShouldKeepUnchangedSnapshot() {
+        // Given
+        RoleCatalog expiring = new RoleCatalog(roleRepository, permissionRepository, 0);
+        RoleCatalog.Snapshot first = expiring.get();
+
+        // When
+        RoleCatalog.Snapshot second = expiring.get();
+
+        // Then
+        assertThat(second).isSameAs(first);
+        verify(roleRepository, times(2)).findAllWithPermissions();
+    }
+
+    @Test
+    void get_AfterTtl_ShouldPublishChangesFromOtherInstances() {
+        // Given
+        RoleCatalog expiring = new RoleCatalog(roleRepository, permissionRepository, 0);
+        RoleCatalog.Snapshot first = expiring.get();
+        Role teacher = Role.builder().id(4L).name("TEACHER").permissions(Set.of(view)).build();
+        when(roleRepository.findAllWithPermissions()).thenReturn(List.of(teacher));
+
+        // When
+        RoleCatalog.Snapshot second = expiring.get();
+
+        // Then
+        assertThat(second.version()).isGreaterThan(first.version());
+        assertThat(second.roles()).extracting("name").containsExactly("TEACHER");
+    }
+}
@@ -10,7 +10,11 @@ import com.mphoola.e_empuzitsi.exception.ResourceConflictException;
 import com.mphoola.e_empuzitsi.exception.ResourceNotFoundException;
 import com.mphoola.e_empuzitsi.exception.RoleInUseException;
 import com.mphoola.e_empuzitsi.repository.PermissionRepository;
+import com.mphoola.e_empuzitsi.repository.RolePermissionRepository;
 import com.mphoola.e_empuzitsi.repository.RoleRepository;
+import com.mphoola.e_empuzitsi.security.EffectivePermissionStore;
+import com.mphoola.e_empuzitsi.security.PermissionEpochRegistry;
+import com.mphoola.e_empuzitsi.security.UserPrincipalCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -41,6 +45,27 @@ class RoleServiceTest {
     @Mock
     private PermissionRepository permissionRepository;
 
+    @Mock
+    private PermissionEpochRegistry permissionEpochRegistry;
+
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private DefaultRoleCache defaultRoleCache;
+
+    @Mock
+    private RolePermissionRepository rolePermissionRepository;
+
+    @Mock
+    private ActivityLogService activityLogService;
+
+    @Mock
+    private EffectivePermissionStore effectivePermissionStore;
+
+    @Mock
+    private RoleCatalog roleCatalog;
+
     @InjectMocks
     private RoleService roleService;
 
@@ -85,7 +110,7 @@ class RoleServiceTest {
     void should_create_new_role_successfully() {
         // Given
         when(roleRepository.existsByName(roleRequest.getName())).thenReturn(false);
-        when(permissionRepository.findById(1L)).thenReturn(Optional.of(testPermission));
+        when(permissionRepository.findAllById(Set.of(1L))).thenReturn(List.of(testPermission));
         when(roleRepository.save(any(Role.class))).thenReturn(testRole);
 
         // When
@@ -99,8 +124,10 @@ class RoleServiceTest {
         assertThat(result.getPermissionCount()).isEqualTo(0L);
 
         verify(roleRepository).existsByName(roleRequest.getName());
-        verify(permissionRepository).findById(1L);
+        verify(permissionRepository).findAllById(Set.of(1L));
         verify(roleRepository).save(any(Role.class));
+        verify(defaultRoleCache).invalidate();
+        verify(roleCatalog).invalidate();
     }
 
     @Test
@@ -123,7 +150,7 @@ class RoleServiceTest {
     void should_throw_exception_when_creating_role_with_invalid_permission() {
         // Given
         when(roleRepository.existsByName(roleRequest.getName())).thenReturn(false);
-        when(permissionRepository.findById(1L)).thenReturn(Optional.empty());
+        when(permissionRepository.findAllById(Set.of(1L))).thenReturn(List.of());
 
         // When & Then
         assertThatThrownBy(() -> roleService.createRole(roleRequest))
@@ -131,7 +158,7 @@ class RoleServiceTest {
                 .hasMessage("Permission not found with id: 1");
 
         verify(roleRepository).existsByName(roleRequest.getName());
-        verify(permissionRepository).findById(1L);
+        verify(permissionRepository).findAllById(Set.of(1L));
         verify(roleRepository, never()).save(any(Role.class));
     }
 
@@ -142,7 +169,7 @@ class RoleServiceTest {
         Long roleId = 1L;
         when(roleRepository.findByIdWithPermissions(roleId)).thenReturn(Optional.of(testRole));
         when(roleRepository.existsByNameAndIdNot(roleRequest.getName(), roleId)).thenReturn(false);
-        when(permissionRepository.findById(1L)).thenReturn(Optional.of(testPermission));
+        when(permissionRepository.findAllById(Set.of(1L))).thenReturn(List.of(testPermission));
         when(roleRepository.save(any(Role.class))).thenReturn(testRole);
 
         // When
@@ -155,10 +182,64 @@ class RoleServiceTest {
 
         verify(roleRepository).findByIdWithPermissions(roleId);
         verify(roleRepository).existsByNameAndIdNot(roleRequest.getName(), roleId);
-        verify(permissionRepository).findById(1L);
+        verify(permissionRepository).findAllById(Set.of(1L));
         verify(roleRepository).save(any(Role.class));
     }
 
+    @Test
+    @DisplayName("Should apply only the permission delta when updating a role")
+    void should_apply_only_permission_delta_when_updating_role() {
+        // Given
+        Long roleId = 1L;
+        Permission addedPermission = Permission.builder().id(2L).name("added_permission").build();
+        RoleRequest request = RoleRequest.builder()
+                .name("TEST_ROLE")
+                .permissionIds(Set.of(2L))
+                .build();
+        when(roleRepository.findByIdWithPermissions(roleId)).thenReturn(Optional.of(testRole));
+        when(permissionRepository.findAllById(Set.of(2L))).thenReturn(List.of(addedPermission));
+        when(roleRepository.save(any(Role.class))).thenReturn(testRole);
+        when(roleRepository.findUserIdsByRoleId(roleId)).thenReturn(List.of(5L, 6L));
+
+        // When
+        RoleResponse result = roleService.updateRole(roleId, request);
+
+        // Then
+        assertThat(result.getAddedPermissions()).containsExactly("added_permission");
+        assertThat(result.getRemovedPermissions()).containsExactly("test_permission");
+        assertThat(testRole.getPermissions()).containsExactly(testPermission); // Collection left untouched
+
+        verify(rolePermissionRepository).deleteByRoleIdAndPermissionIdIn(roleId, Set.of(1L));
+        verify(rolePermissionRepository).insertMissing(roleId, Set.of(2L));
+        verify(effectivePermissionStore).refresh(List.of(5L, 6L));
+        verify(permissionEpochRegistry).bumpAll(List.of(5L, 6L));
+        verify(userPrincipalCache).evictAll(List.of(5L, 6L));
+        verify(roleRepository, never()).existsByNameAndIdNot(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should not invalidate holders when an update changes nothing")
+    void should_not_invalidate_holders_when_update_changes_nothing() {
+        // Given
+        Long roleId = 1L;
+        RoleRequest request = RoleRequest.builder()
+                .name("TEST_ROLE")
+                .permissionIds(Set.of(1L))
+                .build();
+        when(roleRepository.findByIdWithPermissions(roleId)).thenReturn(Optional.of(testRole));
+        when(permissionRepository.findAllById(Set.of(1L))).thenReturn(List.of(testPermission));
+        when(roleRepository.save(any(Role.class))).thenReturn(testRole);
+
+        // When
+        RoleResponse result = roleService.updateRole(roleId, request);
+
+        // Then
+        assertThat(result.getAddedPermissions()).isEmpty();
+        assertThat(result.getRemovedPermissions()).isEmpty();
+        verifyNoInteractions(rolePermissionRepository, effectivePermissionStore, permissionEpochRegistry, userPrincipalCache);
+        verify(roleRepository, never()).findUserIdsByRoleId(any());
+    }
+
     @Test
     @DisplayName("Should throw ResourceNotFoundException when updating non-existent role")
     void should_throw_exception_when_updating_non_existent_role() {
@@ -250,7 +331,7 @@ class RoleServiceTest {
         // Given
         Long roleId = 1L;
         when(roleRepository.findByIdWithPermissions(roleId)).thenReturn(Optional.of(testRole));
-        when(roleRepository.findUsersByRoleId(roleId)).thenReturn(List.of(testUser));
+        when(roleRepository.countUsersByRoleId(roleId)).thenReturn(80000L);
 
         // When
         RoleResponse result = roleService.getRoleById(roleId);
@@ -260,12 +341,12 @@ class RoleServiceTest {
         assertThat(result.getId()).isEqualTo(1L);
         assertThat(result.getName()).isEqualTo("TEST_ROLE");
         assertThat(result.getPermissions()).hasSize(1);
-        assertThat(result.getUsers()).hasSize(1);
-        assertThat(result.getUserCount()).isEqualTo(1L);
+        assertThat(result.getUsers()).isEmpty(); // Members are paged separately
+        assertThat(result.getUserCount()).isEqualTo(80000L);
         assertThat(result.getPermissionCount()).isEqualTo(1L);
 
         verify(roleRepository).findByIdWithPermissions(roleId);
-        verify(roleRepository).findUsersByRoleId(roleId);
+        verify(roleRepository).countUsersByRoleId(roleId);
     }
 
     @Test
@@ -281,16 +362,18 @@ class RoleServiceTest {
                 .hasMessage("Role not found with id: 999");
 
         verify(roleRepository).findByIdWithPermissions(roleId);
-        verify(roleRepository, never()).findUsersByRoleId(any());
+        verify(roleRepository, never()).countUsersByRoleId(any());
     }
 
     @Test
     @DisplayName("Should get all roles with counts successfully")
     void should_get_all_roles_with_counts_successfully() {
         // Given
-        List<Role> roles = List.of(testRole);
-        when(roleRepository.findAll()).thenReturn(roles);
-        when(roleRepository.countUsersByRoleId(testRole.getId())).thenReturn(2L);
+        RoleCatalog.RoleEntry entry = new RoleCatalog.RoleEntry(1L, "TEST_ROLE", Set.of("test_permission"));
+        when(roleCatalog.get()).thenReturn(new RoleCatalog.Snapshot(1L, "\"t-1\"", List.of(), List.of(entry)));
+        List<Object[]> counts = new ArrayList<>();
+        counts.add(new Object[]{testRole.getId(), 2L});
+        when(roleRepository.countUsersPerRole()).thenReturn(counts);
 
         // When
         List<RoleResponseSimple> result = roleService.getAllRoles();
@@ -299,9 +382,12 @@ class RoleServiceTest {
         assertThat(result).hasSize(1);
         assertThat(result.get(0).getId()).isEqualTo(1L);
         assertThat(result.get(0).getName()).isEqualTo("TEST_ROLE");
-        assertThat(result.get(0).getPermissions()).isNotNull(); // Check permissions list
+        assertThat(result.get(0).getUserCount()).isEqualTo(2L);
+        assertThat(result.get(0).getPermissions()).containsExactly("test_permission");
+        assertThat(result.get(0).getPermissionCount()).isEqualTo(1L);
 
-        verify(roleRepository).findAll();
+        verify(roleRepository, never()).findAll();
+        verify(roleRepository, never()).countUsersByRoleId(any());
     }
 
     @Test
@@ -352,7 +438,7 @@ class RoleServiceTest {
                 .build();
 
         when(roleRepository.findByIdWithPermissions(2L)).thenReturn(Optional.of(roleWithoutPermissions));
-        when(roleRepository.findUsersByRoleId(2L)).thenReturn(Collections.emptyList());
+        when(roleRepository.countUsersByRoleId(2L)).thenReturn(0L);
 
         // When
         RoleResponse result = roleService.getRoleById(2L);
@@ -0,0 +1,73 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.mphoola.e_empuzitsi.dto.auth.RotateSigningKeyRequest;
+import com.mphoola.e_empuzitsi.entity.ActivityLog;
+import com.mphoola.e_empuzitsi.exception.ValidationException;
+import com.mphoola.e_empuzitsi.util.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Unit tests for SigningKeyService
+ * Tests rotating the key ring of a real JwtUtil and the audit entry
+ */
+@ExtendWith(MockitoExtension.class)
+class SigningKeyServiceTest {
+
+    private static final String NEXT_SECRET = "nextSecretKeyThatMustBeAtLeast256BitsLongForHMACAlgorithmToWork";
+
+    @Mock
+    private ActivityLogService activityLogService;
+
+    private JwtUtil jwtUtil;
+    private SigningKeyService signingKeyService;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "jwtSecret", "myTestSecretKeyThatMustBeAtLeast256BitsLongForHMACAlgorithmToWorkProperly");
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpirationInMs", 3600);
+        signingKeyService = new SigningKeyService(jwtUtil, activityLogService);
+    }
+
+    @Test
+    void rotate_WithNewKeyId_ShouldSignWithNewKeyAndKeepVerifyingOldTokens() {
+        // Given
+        String oldToken = jwtUtil.generateToken("admin@example.com");
+
+        // When
+        String previousKeyId = signingKeyService.rotate(new RotateSigningKeyRequest("next", NEXT_SECRET));
+
+        // Then
+        assertThat(previousKeyId).isEqualTo("primary");
+        assertThat(jwtUtil.getActiveKeyId()).isEqualTo("next");
+        assertThat(jwtUtil.validateToken(oldToken)).isTrue();
+
+        ArgumentCaptor<ActivityLog> entry = ArgumentCaptor.forClass(ActivityLog.class);
+        verify(activityLogService).saveActivityLog(entry.capture());
+        assertThat(entry.getValue().getEvent()).isEqualTo("signing_key_rotated");
+        assertThat(entry.getValue().getDescription()).doesNotContain(NEXT_SECRET);
+    }
+
+    @Test
+    void rotate_WithActiveKeyId_ShouldThrowValidationException() {
+        // When/Then
+        assertThatThrownBy(() -> signingKeyService.rotate(new RotateSigningKeyRequest("primary", NEXT_SECRET)))
+                .isInstanceOf(ValidationException.class)
+                .hasMessage("Key id is already active: primary");
+
+        assertThat(jwtUtil.getActiveKeyId()).isEqualTo("primary");
+        verify(activityLogService, never()).saveActivityLog(any());
+    }
+}
@@ -0,0 +1,85 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mphoola.e_empuzitsi.config.JacksonConfig;
+import com.mphoola.e_empuzitsi.dto.user.UserSummary;
+import com.mphoola.e_empuzitsi.entity.AccountType;
+import com.mphoola.e_empuzitsi.entity.UserStatus;
+import com.mphoola.e_empuzitsi.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for UserExportService
+ * Tests NDJSON and CSV output and that the row stream is closed
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserExportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    private final ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+
+    private UserExportService userExportService;
+    private AtomicBoolean closed;
+
+    @BeforeEach
+    void setUp() {
+        userExportService = new UserExportService(userRepository, objectMapper);
+        closed = new AtomicBoolean();
+        LocalDateTime createdAt = LocalDateTime.of(2025, 1, 15, 8, 30);
+        when(userRepository.streamAllForExport()).thenReturn(Stream.of(
+                new UserSummary(1L, "John Doe", "john@example.com", AccountType.STUDENT, UserStatus.ACTIVE, createdAt),
+                new UserSummary(2L, "Banda, \"Grace\"", "=cmd@example.com", AccountType.ADMIN, UserStatus.BANNED, createdAt))
+                .onClose(() -> closed.set(true)));
+    }
+
+    @Test
+    void export_AsNdjson_ShouldWriteOneJsonObjectPerLine() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        userExportService.export(UserExportService.Format.NDJSON, out);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(2);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertThat(first.get("id").asLong()).isEqualTo(1L);
+        assertThat(first.get("email").asText()).isEqualTo("john@example.com");
+        assertThat(first.get("createdAt").asText()).isEqualTo("2025-01-15T08:30:00");
+        assertThat(objectMapper.readTree(lines[1]).get("status").asText()).isEqualTo("BANNED");
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    void export_AsCsv_ShouldQuoteAndDefuseFields() throws Exception {
+        // Given
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        userExportService.export(UserExportService.Format.CSV, out);
+
+        // Then
+        assertThat(out.toString(StandardCharsets.UTF_8)).isEqualTo(
+                "id,name,email,account_type,status,created_at\r\n" +
+                "1,John Doe,john@example.com,STUDENT,ACTIVE,2025-01-15T08:30\r\n" +
+                "2,\"Banda, \"\"Grace\"\"\",'=cmd@example.com,ADMIN,BANNED,2025-01-15T08:30\r\n");
+        assertThat(closed).isTrue();
+    }
+}
@@ -0,0 +1,192 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.mphoola.e_empuzitsi.config.EmailProperties;
+import com.mphoola.e_empuzitsi.dto.user.UserImportJobResponse;
+import com.mphoola.e_empuzitsi.dto.user.UserImportRowResult;
+import com.mphoola.e_empuzitsi.exception.ServiceBusyException;
+import com.mphoola.e_empuzitsi.mail.EmailTemplate;
+import com.mphoola.e_empuzitsi.repository.UserRepository;
+import com.mphoola.e_empuzitsi.util.PasswordGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for UserImportService
+ * Tests row validation, the set-based existence check, batched inserts and queued emails
+ */
+@ExtendWith(MockitoExtension.class)
+public class UserImportServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private PasswordGenerator passwordGenerator;
+
+    @Mock
+    private EmailService emailService;
+
+    @Mock
+    private UserSearchIndex userSearchIndex;
+
+    @Mock
+    private ActivityLogService activityLogService;
+
+    private UserImportService userImportService;
+
+    @BeforeEach
+    void setUp() {
+        EmailProperties emailProperties = new EmailProperties();
+        emailProperties.setFrontendUrl("http://localhost:3000");
+        // Jobs run on the calling thread so the import has finished when startImport returns
+        userImportService = new UserImportService(userRepository, jdbcTemplate, transactionManager, passwordEncoder,
+                passwordGenerator, emailService, emailProperties, userSearchIndex, activityLogService,
+                Runnable::run, 2, 500, 100, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userImportService.destroy();
+    }
+
+    @Test
+    void startImport_WithMixedRows_ShouldInsertValidRowsInOneBatchAndReportEachRow() {
+        // Given
+        String csv = "name,email,account_type\r\n"
+                + "John Doe,john@example.com,\r\n"
+                + "Mary Banda,mary@example.com,instructor\r\n"
+                + "X,bad,\r\n"
+                + "Grace Phiri,grace@example.com,\r\n"
+                + "\r\n"
+                + "Johnny Doe,john@example.com,\r\n";
+        when(userRepository.findExistingEmails(anyCollection())).thenReturn(List.of("grace@example.com"));
+        when(passwordGenerator.generatePassword()).thenReturn("Temp-Pass1!");
+        when(passwordEncoder.encode(anyString())).thenReturn("hashed");
+        List<Object[]> ids = new ArrayList<>();
+        ids.add(new Object[]{1L, "john@example.com"});
+        ids.add(new Object[]{2L, "mary@example.com"});
+        when(userRepository.findIdsByEmailIn(anyCollection())).thenReturn(ids);
+
+        // When
+        UserImportJobResponse started = userImportService.startImport(file(csv));
+        UserImportJobResponse job = userImportService.getImport(started.id(), false);
+
+        // Then
+        assertThat(job.status()).isEqualTo(UserImportJobResponse.Status.COMPLETED);
+        assertThat(job.createdCount()).isEqualTo(2);
+        assertThat(job.failedCount()).isEqualTo(3);
+        assertThat(job.rows()).extracting(UserImportRowResult::row).containsExactly(2L, 3L, 4L, 5L, 7L);
+        assertThat(job.rows().get(0).userId()).isEqualTo(1L);
+        assertThat(job.rows().get(2).error()).isEqualTo("Name must be between 2 and 100 characters");
+        assertThat(job.rows().get(3).error()).isEqualTo("Email already exists");
+        assertThat(job.rows().get(4).error()).isEqualTo("Email appears more than once in the file");
+        assertThat(userImportService.getImport(started.id(), true).rows()).hasSize(3);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(userRepository, times(1)).findExistingEmails(anyCollection());
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), batch.capture());
+        assertThat(batch.getValue()).extracting(values -> values[1]).containsExactly("john@example.com", "mary@example.com");
+        assertThat(batch.getValue().get(1)[3]).isEqualTo("INSTRUCTOR");
+        verify(emailService, times(2)).queueBulkEmail(any(EmailTemplate.class));
+        verify(userSearchIndex).update(1L, "John Doe", "john@example.com");
+    }
+
+    @Test
+    void startImport_WhenImportExecutorIsFull_ShouldRefuseWithServiceBusy() {
+        // Given
+        UserImportService saturated = new UserImportService(userRepository, jdbcTemplate, transactionManager,
+                passwordEncoder, passwordGenerator, emailService, new EmailProperties(), userSearchIndex,
+                activityLogService, task -> { throw new RejectedExecutionException("full"); }, 1, 500, 100, 60);
+
+        try {
+            // When & Then
+            assertThatThrownBy(() -> saturated.startImport(file("name,email\r\nJohn Doe,john@example.com\r\n")))
+                    .isInstanceOf(ServiceBusyException.class)
+                    .extracting("retryAfterSeconds").isEqualTo(UserImportService.BUSY_RETRY_AFTER_SECONDS);
+            verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        } finally {
+            saturated.destroy();
+        }
+    }
+
+    @Test
+    void startImport_WithoutEmailColumn_ShouldFailTheJob() {
+        // When
+        UserImportJobResponse started = userImportService.startImport(file("name,mail\r\nJohn Doe,john@example.com\r\n"));
+        UserImportJobResponse job = userImportService.getImport(started.id(), false);
+
+        // Then
+        assertThat(job.status()).isEqualTo(UserImportJobResponse.Status.FAILED);
+        assertThat(job.error()).isEqualTo("The header row must contain name and email columns");
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+        verify(activityLogService, never()).log(anyString(), eq("imported"));
+    }
+
+    @Test
+    void startImport_WithMoreRowsThanAllowed_ShouldFailBeforeImportingAnyChunk() {
+        // Given
+        UserImportService smallChunks = new UserImportService(userRepository, jdbcTemplate, transactionManager,
+                passwordEncoder, passwordGenerator, emailService, new EmailProperties(), userSearchIndex,
+                activityLogService, Runnable::run, 1, 10, 20, 60);
+        StringBuilder csv = new StringBuilder("name,email\r\n");
+        for (int i = 1; i <= 21; i++) {
+            csv.append("User ").append(i).append(",user").append(i).append("@example.com\r\n");
+        }
+
+        try {
+            // When
+            UserImportJobResponse started = smallChunks.startImport(file(csv.toString()));
+            UserImportJobResponse job = smallChunks.getImport(started.id(), false);
+
+            // Then
+            assertThat(job.status()).isEqualTo(UserImportJobResponse.Status.FAILED);
+            assertThat(job.error()).isEqualTo("An import may contain at most 20 rows");
+            assertThat(job.createdCount()).isZero();
+            verify(userRepository, never()).findExistingEmails(anyCollection());
+            verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+            verify(emailService, never()).queueBulkEmail(any(EmailTemplate.class));
+        } finally {
+            smallChunks.destroy();
+        }
+    }
+
+    private static MockMultipartFile file(String content) {
+        return new MockMultipartFile("file", "users.csv", "text/csv", content.getBytes(StandardCharsets.UTF_8));
+    }
+}
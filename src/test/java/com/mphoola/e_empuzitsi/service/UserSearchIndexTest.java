@@ -0,0 +1,141 @@
+package com.mphoola.e_empuzitsi.service;
+
+import com.mphoola.e_empuzitsi.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for UserSearchIndex
+ * Tests ranking, typo tolerance, short queries, overlay updates and the pg_trgm query on PostgreSQL
+ */
+@DisplayName("UserSearchIndex Tests")
+class UserSearchIndexTest {
+
+    private UserRepository userRepository;
+    private UserSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{3L, "Johnathan Banda", "jbanda@example.com"});
+        rows.add(new Object[]{1L, "John Phiri", "john.phiri@example.com"});
+        rows.add(new Object[]{2L, "Mary Chirwa", "mary@example.com"});
+        when(userRepository.findAllSearchFields()).thenReturn(rows);
+
+        index = new UserSearchIndex(userRepository, false, true, 0.5);
+        index.load();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should rank substring matches first and shorter names ahead")
+    void should_rank_substring_matches() {
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.search("JOHN", 10)).containsExactly(1L, 3L);
+        assertThat(index.search("chirwa", 10)).containsExactly(2L);
+    }
+
+    @Test
+    @DisplayName("Should find names despite a typo")
+    void should_tolerate_typos() {
+        assertThat(index.search("phirri", 10)).containsExactly(1L);
+    }
+
+    @Test
+    @DisplayName("Should scan for queries shorter than a gram")
+    void should_handle_short_queries() {
+        assertThat(index.search("ma", 10)).containsExactly(2L);
+        assertThat(index.search(" ", 10)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Should respect the limit")
+    void should_respect_limit() {
+        assertThat(index.search("example", 2)).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should apply updates and removals, after commit inside a transaction")
+    void should_apply_overlay_after_commit() {
+        index.update(4L, "Grace Banda", "grace@example.com");
+        index.remove(3L);
+        assertThat(index.search("banda", 10)).containsExactly(4L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.update(2L, "Mary Banda", "mary@example.com");
+        assertThat(index.search("banda", 10)).containsExactly(4L);
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertThat(index.search("banda", 10)).containsExactly(2L, 4L);
+    }
+
+    @Test
+    @DisplayName("Should drop overlay entries included in a rebuild")
+    void should_fold_overlay_into_rebuild() {
+        index.update(4L, "Grace Banda", "grace@example.com");
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{4L, "Grace Banda", "grace@example.com"});
+        when(userRepository.findAllSearchFields()).thenReturn(rows);
+
+        index.rebuild();
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.search("grace", 10)).containsExactly(4L);
+    }
+
+    @Test
+    @DisplayName("Should search with the ranked pg_trgm query on PostgreSQL without loading users")
+    void should_query_database_on_postgres() {
+        UserRepository postgresRepository = mock(UserRepository.class);
+        when(postgresRepository.isTrigramExtensionInstalled()).thenReturn(true);
+        when(postgresRepository.searchIdsByTrigram("j_o%", "%j\\_o\\%%", 10)).thenReturn(List.of(5L, 1L));
+        UserSearchIndex postgresIndex = new UserSearchIndex(postgresRepository, true, true, 0.4);
+
+        postgresIndex.load();
+        postgresIndex.update(4L, "Grace Banda", "grace@example.com");
+
+        assertThat(postgresIndex.search(" J_o% ", 10)).containsExactly(5L, 1L);
+        verify(postgresRepository).setWordSimilarityThreshold("0.4");
+        verify(postgresRepository, never()).findAllSearchFields();
+        assertThat(postgresIndex.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should fall back to the in-memory index on PostgreSQL without pg_trgm")
+    void should_fall_back_without_extension() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, "John Phiri", "john.phiri@example.com"});
+        when(userRepository.findAllSearchFields()).thenReturn(rows);
+        when(userRepository.isTrigramExtensionInstalled()).thenReturn(false);
+        UserSearchIndex postgresIndex = new UserSearchIndex(userRepository, true, true, 0.5);
+
+        postgresIndex.load();
+
+        assertThat(postgresIndex.search("phiri", 10)).containsExactly(1L);
+        verify(userRepository, never()).searchIdsByTrigram(anyString(), anyString(), anyInt());
+    }
+}
@@ -1,25 +1,44 @@
 package com.mphoola.e_empuzitsi.service;
 
+import com.mphoola.e_empuzitsi.dto.user.BulkUserOperationResponse;
+import com.mphoola.e_empuzitsi.dto.user.BulkUserRequest;
+import com.mphoola.e_empuzitsi.dto.user.UserDetailRow;
 import com.mphoola.e_empuzitsi.dto.user.UserResponse;
+import com.mphoola.e_empuzitsi.dto.user.UserResponseSimple;
+import com.mphoola.e_empuzitsi.dto.user.UserSummary;
+import com.mphoola.e_empuzitsi.entity.AccountType;
 import com.mphoola.e_empuzitsi.entity.User;
+import com.mphoola.e_empuzitsi.entity.UserStatus;
 import com.mphoola.e_empuzitsi.exception.BadCredentialsException;
 import com.mphoola.e_empuzitsi.exception.ResourceNotFoundException;
+import com.mphoola.e_empuzitsi.exception.ValidationException;
 import com.mphoola.e_empuzitsi.repository.UserRepository;
+import com.mphoola.e_empuzitsi.security.BannedUserRegistry;
+import com.mphoola.e_empuzitsi.security.PermissionEpochRegistry;
+import com.mphoola.e_empuzitsi.security.UserPrincipal;
+import com.mphoola.e_empuzitsi.security.UserPrincipalCache;
+import com.mphoola.e_empuzitsi.util.CursorPage;
+import com.mphoola.e_empuzitsi.util.KeysetCursor;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -42,10 +61,29 @@ public class UserServiceTest {
     @Mock
     private EmailService emailService;
 
+    @Mock
+    private UserPrincipalCache userPrincipalCache;
+
+    @Mock
+    private PermissionEpochRegistry permissionEpochRegistry;
+
+    @Mock
+    private BannedUserRegistry bannedUserRegistry;
+
+    @Mock
+    private ActivityLogService activityLogService;
+
+    @Mock
+    private ApproximateCounts approximateCounts;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private UserService userService;
 
     private User testUser;
+    private UserDetailRow testDetail;
     private Authentication mockAuthentication;
     private SecurityContext mockSecurityContext;
 
@@ -59,6 +97,8 @@ public class UserServiceTest {
                 .createdAt(LocalDateTime.now())
                 .updatedAt(LocalDateTime.now())
                 .build();
+        testDetail = new UserDetailRow(1L, "John Doe", "john.doe@example.com", AccountType.STUDENT, UserStatus.ACTIVE,
+                null, testUser.getCreatedAt(), testUser.getUpdatedAt(), "ADMIN" + UserDetailRow.SEPARATOR + "TEACHER", "add_user" + UserDetailRow.SEPARATOR + "view_user");
 
         mockAuthentication = mock(Authentication.class);
         mockSecurityContext = mock(SecurityContext.class);
@@ -67,7 +107,7 @@ public class UserServiceTest {
     @Test
     void getUserById_WithValidId_ShouldReturnUserResponse() {
         // Given
-        when(userRepository.findByIdWithRolesAndPermissions(1L)).thenReturn(Optional.of(testUser));
+        when(userRepository.findDetailById(1L)).thenReturn(Optional.of(testDetail));
 
         // When
         UserResponse result = userService.getUserById(1L);
@@ -77,28 +117,31 @@ public class UserServiceTest {
         assertThat(result.getId()).isEqualTo(testUser.getId());
         assertThat(result.getName()).isEqualTo(testUser.getName());
         assertThat(result.getEmail()).isEqualTo(testUser.getEmail());
+        assertThat(result.getRoles()).containsExactlyInAnyOrder("ADMIN", "TEACHER");
+        assertThat(result.getPermissions()).containsExactlyInAnyOrder("add_user", "view_user");
+        assertThat(result.isHasVerifiedEmail()).isFalse();
 
-        verify(userRepository).findByIdWithRolesAndPermissions(1L);
+        verify(userRepository).findDetailById(1L);
     }
 
     @Test
     void getUserById_WithInvalidId_ShouldThrowResourceNotFoundException() {
         // Given
-        when(userRepository.findByIdWithRolesAndPermissions(999L)).thenReturn(Optional.empty());
+        when(userRepository.findDetailById(999L)).thenReturn(Optional.empty());
 
         // When/Then
         assertThatThrownBy(() -> userService.getUserById(999L))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("User not found with id: 999");
 
-        verify(userRepository).findByIdWithRolesAndPermissions(999L);
+        verify(userRepository).findDetailById(999L);
     }
 
     @Test
     void getUserByEmail_WithValidEmail_ShouldReturnUserResponse() {
         // Given
         String email = "john.doe@example.com";
-        when(userRepository.findByEmailWithRolesAndPermissions(email)).thenReturn(Optional.of(testUser));
+        when(userRepository.findDetailByEmail(email)).thenReturn(Optional.of(testDetail));
 
         // When
         UserResponse result = userService.getUserByEmail(email);
@@ -109,21 +152,21 @@ public class UserServiceTest {
         assertThat(result.getName()).isEqualTo(testUser.getName());
         assertThat(result.getEmail()).isEqualTo(testUser.getEmail());
 
-        verify(userRepository).findByEmailWithRolesAndPermissions(email);
+        verify(userRepository).findDetailByEmail(email);
     }
 
     @Test
     void getUserByEmail_WithInvalidEmail_ShouldThrowResourceNotFoundException() {
         // Given
         String email = "nonexistent@example.com";
-        when(userRepository.findByEmailWithRolesAndPermissions(email)).thenReturn(Optional.empty());
+        when(userRepository.findDetailByEmail(email)).thenReturn(Optional.empty());
 
         // When/Then
         assertThatThrownBy(() -> userService.getUserByEmail(email))
                 .isInstanceOf(ResourceNotFoundException.class)
                 .hasMessage("User not found with email: " + email);
 
-        verify(userRepository).findByEmailWithRolesAndPermissions(email);
+        verify(userRepository).findDetailByEmail(email);
     }
 
     @Test
@@ -137,7 +180,7 @@ public class UserServiceTest {
             when(mockAuthentication.getName()).thenReturn(email);
             mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
             
-            when(userRepository.findByEmailWithRolesAndPermissions(email)).thenReturn(Optional.of(testUser));
+            when(userRepository.findDetailByEmail(email)).thenReturn(Optional.of(testDetail));
 
             // When
             UserResponse result = userService.getCurrentUser();
@@ -146,7 +189,7 @@ public class UserServiceTest {
             assertThat(result).isNotNull();
             assertThat(result.getEmail()).isEqualTo(email);
 
-            verify(userRepository).findByEmailWithRolesAndPermissions(email);
+            verify(userRepository).findDetailByEmail(email);
         }
     }
 
@@ -262,9 +305,13 @@ public class UserServiceTest {
         userService.resetPassword(token, newPassword);
 
         // Then
-        verify(userRepository).findByResetToken(token);
-        verify(passwordEncoder).encode(newPassword);
-        verify(userRepository).save(argThat(user -> {
+        // Checked before hashing and again inside the short transaction that consumes the token
+        InOrder inOrder = inOrder(userRepository, passwordEncoder, transactionManager);
+        inOrder.verify(userRepository).findByResetToken(token);
+        inOrder.verify(passwordEncoder).encode(newPassword);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(userRepository).findByResetToken(token);
+        inOrder.verify(userRepository).save(argThat(user -> {
             assertThat(user.getPassword()).isEqualTo(encodedPassword);
             assertThat(user.getResetToken()).isNull();
             assertThat(user.getResetTokenExpiresAt()).isNull();
@@ -272,6 +319,26 @@ public class UserServiceTest {
         }));
     }
 
+    @Test
+    void resetPassword_WhenTokenIsConsumedWhileHashing_ShouldNotSave() {
+        // Given
+        String token = UUID.randomUUID().toString();
+        testUser.setResetToken(token);
+        testUser.setResetTokenExpiresAt(LocalDateTime.now().plusHours(1));
+
+        when(userRepository.findByResetToken(token)).thenReturn(Optional.of(testUser), Optional.empty());
+        when(passwordEncoder.encode("newPassword123")).thenReturn("encodedNewPassword");
+
+        // When/Then
+        assertThatThrownBy(() -> userService.resetPassword(token, "newPassword123"))
+                .isInstanceOf(BadCredentialsException.class)
+                .hasMessage("Invalid or expired reset token");
+
+        verify(userRepository, never()).save(any(User.class));
+        verify(transactionManager).rollback(any());
+        verify(userPrincipalCache, never()).evict(anyLong());
+    }
+
     @Test
     void resetPassword_WithInvalidToken_ShouldThrowBadCredentialsException() {
         // Given
@@ -332,6 +399,227 @@ public class UserServiceTest {
         verify(userRepository, never()).save(any(User.class));
     }
 
+    @Test
+    void verifyEmail_WithValidToken_ShouldRefreshPrincipalState() {
+        // Given
+        String token = UUID.randomUUID().toString();
+        testUser.setVerificationToken(token);
+
+        when(userRepository.findByVerificationToken(token)).thenReturn(Optional.of(testUser));
+
+        // When
+        userService.verifyEmail(token);
+
+        // Then
+        assertThat(testUser.isEmailVerified()).isTrue();
+        verify(userRepository).save(testUser);
+        verify(permissionEpochRegistry).bump(testUser.getId());
+        verify(userPrincipalCache).evict(testUser.getId());
+    }
+
+    @Test
+    void banUser_ShouldMarkUserBannedInRegistry() {
+        // Given
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // When
+        userService.banUser(1L);
+
+        // Then
+        assertThat(testUser.getStatus()).isEqualTo(UserStatus.BANNED);
+        verify(bannedUserRegistry).ban(1L);
+    }
+
+    @Test
+    void unbanUser_ShouldLiftBanInRegistry() {
+        // Given
+        testUser.setStatus(UserStatus.BANNED);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(testUser));
+
+        // When
+        userService.unbanUser(1L);
+
+        // Then
+        assertThat(testUser.getStatus()).isEqualTo(UserStatus.ACTIVE);
+        verify(bannedUserRegistry).unban(1L);
+    }
+
+    @Test
+    void banUsers_ByFilter_ShouldUpdateInChunksAndBanAllSelected() {
+        // Given
+        List<Long> ids = LongStream.rangeClosed(1, 2500).boxed().toList();
+        BulkUserRequest request = BulkUserRequest.builder().accountType(AccountType.STUDENT).build();
+        when(userRepository.findIdsForSelection(null, AccountType.STUDENT, null, null)).thenReturn(ids);
+        when(userRepository.updateStatusByIdIn(anyList(), eq(UserStatus.BANNED), any(LocalDateTime.class)))
+                .thenReturn(1000, 1000, 400);
+
+        // When
+        BulkUserOperationResponse response = userService.banUsers(request);
+
+        // Then
+        assertThat(response.selected()).isEqualTo(2500);
+        assertThat(response.updated()).isEqualTo(2400);
+        verify(userRepository, times(3)).updateStatusByIdIn(anyList(), eq(UserStatus.BANNED), any(LocalDateTime.class));
+        verify(userRepository, never()).findById(anyLong());
+        verify(bannedUserRegistry).banAll(ids);
+        verify(userPrincipalCache).evictAll(ids);
+        verify(activityLogService).saveActivityLog(any());
+    }
+
+    @Test
+    void banUsers_SelectingCaller_ShouldBanEveryoneElse() {
+        // Given
+        BulkUserRequest request = BulkUserRequest.builder().accountType(AccountType.ADMIN).build();
+        when(userRepository.findIdsForSelection(null, AccountType.ADMIN, null, null)).thenReturn(List.of(1L, 2L, 3L));
+        when(userRepository.findActiveIdsWithPermission(anyString())).thenReturn(List.of(1L, 2L));
+        when(mockAuthentication.getPrincipal()).thenReturn(
+                UserPrincipal.fromClaims(1L, "John Doe", "john.doe@example.com", List.of(), 0L, true, null));
+
+        try (MockedStatic<SecurityContextHolder> mockedSecurityContextHolder = mockStatic(SecurityContextHolder.class)) {
+            when(mockSecurityContext.getAuthentication()).thenReturn(mockAuthentication);
+            mockedSecurityContextHolder.when(SecurityContextHolder::getContext).thenReturn(mockSecurityContext);
+
+            // When
+            BulkUserOperationResponse response = userService.banUsers(request);
+
+            // Then
+            assertThat(response.selected()).isEqualTo(2);
+            verify(userRepository).updateStatusByIdIn(eq(List.of(2L, 3L)), eq(UserStatus.BANNED), any(LocalDateTime.class));
+            verify(bannedUserRegistry).banAll(List.of(2L, 3L));
+        }
+    }
+
+    @Test
+    void banUsers_SelectingEveryUnbanner_ShouldRefuseWithoutAllowLockout() {
+        // Given
+        BulkUserRequest request = BulkUserRequest.builder().status(UserStatus.ACTIVE).build();
+        when(userRepository.findIdsForSelection(null, null, UserStatus.ACTIVE, null)).thenReturn(List.of(2L, 3L, 4L));
+        when(userRepository.findActiveIdsWithPermission("ban_user")).thenReturn(List.of(1L, 2L));
+        when(userRepository.findActiveIdsWithPermission("unban_user")).thenReturn(List.of(2L, 3L));
+
+        // When & Then
+        assertThatThrownBy(() -> userService.banUsers(request))
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("unban_user");
+        verify(userRepository, never()).updateStatusByIdIn(anyList(), any(), any());
+        verify(bannedUserRegistry, never()).banAll(anyList());
+    }
+
+    @Test
+    void banUsers_SelectingEveryUnbannerWithAllowLockout_ShouldBan() {
+        // Given
+        BulkUserRequest request = BulkUserRequest.builder().status(UserStatus.ACTIVE).allowLockout(true).build();
+        when(userRepository.findIdsForSelection(null, null, UserStatus.ACTIVE, null)).thenReturn(List.of(2L, 3L));
+        when(userRepository.updateStatusByIdIn(anyList(), eq(UserStatus.BANNED), any(LocalDateTime.class))).thenReturn(2);
+
+        // When
+        BulkUserOperationResponse response = userService.banUsers(request);
+
+        // Then
+        assertThat(response.updated()).isEqualTo(2);
+        verify(userRepository, never()).findActiveIdsWithPermission(anyString());
+        verify(bannedUserRegistry).banAll(List.of(2L, 3L));
+    }
+
+    @Test
+    void approximateUserCount_WithSearchTerm_ShouldCountExactlyWithoutCaching() {
+        // Given
+        when(userRepository.countUsersWithFilters("john", null, UserStatus.ACTIVE)).thenReturn(3L);
+
+        // When
+        long total = userService.approximateUserCount("john", null, UserStatus.ACTIVE);
+
+        // Then
+        assertThat(total).isEqualTo(3L);
+        verifyNoInteractions(approximateCounts);
+    }
+
+    @Test
+    void approximateUserCount_WithEnumerableFilters_ShouldUseCachedCount() {
+        // Given
+        when(approximateCounts.get(eq("users:STUDENT:ACTIVE"), any())).thenReturn(42L);
+
+        // When
+        long total = userService.approximateUserCount(null, AccountType.STUDENT, UserStatus.ACTIVE);
+
+        // Then
+        assertThat(total).isEqualTo(42L);
+        verify(userRepository, never()).countUsersWithFilters(any(), any(), any());
+    }
+
+    @Test
+    void upgradePasswordHash_ShouldReplaceHashAndEvictPrincipal() {
+        // Given
+        String current = testUser.getPassword();
+        when(passwordEncoder.encode("password123")).thenReturn("rehashed");
+        when(userRepository.updatePasswordIfUnchanged(testUser.getId(), current, "rehashed")).thenReturn(1);
+
+        // When
+        userService.upgradePasswordHash(testUser, "password123");
+
+        // Then
+        assertThat(testUser.getPassword()).isEqualTo("rehashed");
+        verify(userPrincipalCache).evict(testUser.getId());
+    }
+
+    @Test
+    void upgradePasswordHash_WhenPasswordChangedMeanwhile_ShouldKeepNewPassword() {
+        // Given
+        String current = testUser.getPassword();
+        when(passwordEncoder.encode("password123")).thenReturn("rehashed");
+        when(userRepository.updatePasswordIfUnchanged(testUser.getId(), current, "rehashed")).thenReturn(0);
+
+        // When
+        userService.upgradePasswordHash(testUser, "password123");
+
+        // Then
+        assertThat(testUser.getPassword()).isEqualTo(current);
+        verify(userPrincipalCache, never()).evict(anyLong());
+    }
+
+    @Test
+    void getUsersAfter_WithMoreRowsThanSize_ShouldReturnCursorToLastUserWithoutCounting() {
+        // Given
+        UserSummary first = new UserSummary(1L, "John Doe", "john.doe@example.com",
+                AccountType.STUDENT, UserStatus.ACTIVE, testUser.getCreatedAt());
+        UserSummary second = new UserSummary(2L, "Jane Doe", "jane.doe@example.com",
+                AccountType.STUDENT, UserStatus.ACTIVE, testUser.getCreatedAt().plusSeconds(1));
+        UserSummary third = new UserSummary(3L, "Jim Doe", "jim.doe@example.com",
+                AccountType.STUDENT, UserStatus.ACTIVE, testUser.getCreatedAt().plusSeconds(2));
+        when(userRepository.findUsersWithFiltersAfter(isNull(), isNull(), isNull(),
+                eq(KeysetCursor.FIRST_ASCENDING.createdAt()), eq(0L), eq(Limit.of(3))))
+                .thenReturn(List.of(first, second, third));
+
+        // When
+        CursorPage<UserResponseSimple> page = userService.getUsersAfter(null, null, null, "", 2, false);
+
+        // Then
+        assertThat(page.content()).extracting(UserResponseSimple::getId).containsExactly(1L, 2L);
+        assertThat(KeysetCursor.decode(page.nextCursor(), KeysetCursor.FIRST_ASCENDING))
+                .isEqualTo(new KeysetCursor(second.createdAt(), 2L));
+        assertThat(page.total()).isNull();
+        verify(userRepository, never()).countUsersWithFilters(any(), any(), any());
+    }
+
+    @Test
+    void getUsersAfter_OnLastPageWithTotal_ShouldReturnNoCursorAndCount() {
+        // Given
+        String after = new KeysetCursor(testUser.getCreatedAt().minusDays(1), 7L).encode();
+        when(userRepository.findUsersWithFiltersAfter(eq("john"), isNull(), eq(UserStatus.ACTIVE),
+                eq(testUser.getCreatedAt().minusDays(1)), eq(7L), eq(Limit.of(11))))
+                .thenReturn(List.of(new UserSummary(1L, "John Doe", "john.doe@example.com",
+                        AccountType.STUDENT, UserStatus.ACTIVE, testUser.getCreatedAt())));
+        when(userRepository.countUsersWithFilters("john", null, UserStatus.ACTIVE)).thenReturn(8L);
+
+        // When
+        CursorPage<UserResponseSimple> page = userService.getUsersAfter("john", null, UserStatus.ACTIVE, after, 10, true);
+
+        // Then
+        assertThat(page.content()).hasSize(1);
+        assertThat(page.hasNext()).isFalse();
+        assertThat(page.total()).isEqualTo(8L);
+    }
+
     @Test
     void mapToUserResponse_WithValidUser_ShouldReturnUserResponse() {
         // Given - User without roles/permissions to test basic mapping
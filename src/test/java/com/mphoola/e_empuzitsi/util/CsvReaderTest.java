@@ -0,0 +1,48 @@
+package com.mphoola.e_empuzitsi.util;
+
+import com.mphoola.e_empuzitsi.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for CsvReader record parsing
+ */
+public class CsvReaderTest {
+
+    @Test
+    public void should_read_quoted_fields_and_track_lines() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("\uFEFFname,email\r\n\"Banda, \"\"Grace\"\"\",grace@example.com\n\n\"Two\r\nLines\",x@example.com"));
+
+        assertThat(csv.next()).containsExactly("name", "email");
+        assertThat(csv.getRecordLine()).isEqualTo(1);
+        assertThat(csv.next()).containsExactly("Banda, \"Grace\"", "grace@example.com");
+        assertThat(csv.getRecordLine()).isEqualTo(2);
+        assertThat(csv.next()).containsExactly("Two\r\nLines", "x@example.com");
+        assertThat(csv.getRecordLine()).isEqualTo(4);
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    public void should_keep_empty_fields() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("a,,c,\n"));
+
+        assertThat(csv.next()).containsExactly("a", "", "c", "");
+        assertThat(csv.next()).isNull();
+    }
+
+    @Test
+    public void unterminated_quote_should_be_rejected() throws IOException {
+        CsvReader csv = new CsvReader(new StringReader("ok\n\"never closed,x"));
+
+        assertThat(csv.next()).containsExactly("ok");
+        assertThatThrownBy(csv::next)
+                .isInstanceOf(ValidationException.class)
+                .hasMessageContaining("line 2");
+    }
+}
@@ -12,11 +12,14 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -333,4 +336,103 @@ public class JwtUtilTest {
         // Then
         assertThat(extractedAuthorities).isEqualTo("ROLE_USER");
     }
+
+    @Test
+    public void should_return_all_claims_from_single_parse() {
+        // Given
+        String token = jwtUtil.generateToken(testUsername);
+
+        // When
+        io.jsonwebtoken.Claims claims = jwtUtil.getClaimsFromToken(token);
+
+        // Then
+        assertThat(claims.getSubject()).isEqualTo(testUsername);
+        assertThat(claims.getExpiration()).isAfter(new Date());
+    }
+
+    @Test
+    public void should_accept_tokens_signed_with_retiring_key_after_rotation() {
+        // Given
+        String oldToken = jwtUtil.generateToken(testUsername);
+
+        // When
+        JwtUtil rotatedJwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(rotatedJwtUtil, "jwtSecret", "nextSecretKeyThatMustBeAtLeast256BitsLongForHMACAlgorithmToWork");
+        ReflectionTestUtils.setField(rotatedJwtUtil, "jwtExpirationInMs", testExpiration);
+        ReflectionTestUtils.setField(rotatedJwtUtil, "jwtKeyId", "next");
+        ReflectionTestUtils.setField(rotatedJwtUtil, "retiringKeys", "primary=" + testSecret);
+        String newToken = rotatedJwtUtil.generateToken(testUsername);
+
+        // Then
+        assertThat(rotatedJwtUtil.validateToken(oldToken)).isTrue();
+        assertThat(rotatedJwtUtil.validateToken(newToken)).isTrue();
+        assertThat(rotatedJwtUtil.getUsernameFromToken(newToken)).isEqualTo(testUsername);
+        assertThat(jwtUtil.validateToken(newToken)).isFalse();
+    }
+
+    @Test
+    public void should_rotate_signing_key_without_restart() {
+        // Given
+        String oldToken = jwtUtil.generateToken(testUsername);
+
+        // When
+        jwtUtil.rotateSigningKey("next", "nextSecretKeyThatMustBeAtLeast256BitsLongForHMACAlgorithmToWork");
+        String newToken = jwtUtil.generateToken(testUsername);
+
+        // Then
+        assertThat(jwtUtil.getActiveKeyId()).isEqualTo("next");
+        assertThat(jwtUtil.validateToken(oldToken)).isTrue();
+        assertThat(jwtUtil.validateToken(newToken)).isTrue();
+        assertThat(jwtUtil.getUsernameFromToken(newToken)).isEqualTo(testUsername);
+    }
+
+    @Test
+    public void should_stop_accepting_retired_key_after_its_deadline() {
+        // Given
+        String oldToken = jwtUtil.generateToken(testUsername);
+        JwtKeyRing ring = JwtKeyRing.of("primary", testSecret, Map.of());
+
+        // When
+        JwtKeyRing rotated = ring.rotate("next", "nextSecretKeyThatMustBeAtLeast256BitsLongForHMACAlgorithmToWork",
+                Instant.now().minusSeconds(1));
+
+        // Then
+        assertThat(ring.getParser().parseSignedClaims(oldToken).getPayload().getSubject()).isEqualTo(testUsername);
+        assertThatThrownBy(() -> rotated.getParser().parseSignedClaims(oldToken))
+                .isInstanceOf(io.jsonwebtoken.security.SecurityException.class);
+        assertThatThrownBy(() -> rotated.rotate("next", testSecret, Instant.now()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void should_reject_tokens_with_unknown_key_id() {
+        // Given
+        JwtUtil otherJwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(otherJwtUtil, "jwtSecret", testSecret);
+        ReflectionTestUtils.setField(otherJwtUtil, "jwtExpirationInMs", testExpiration);
+        ReflectionTestUtils.setField(otherJwtUtil, "jwtKeyId", "unknown");
+        String token = otherJwtUtil.generateToken(testUsername);
+
+        // When
+        boolean isValid = jwtUtil.validateToken(token);
+
+        // Then
+        assertThat(isValid).isFalse();
+    }
+
+    @Test
+    public void should_give_each_token_a_unique_id() {
+        // Given
+        String token1 = jwtUtil.generateToken(testUsername);
+        String token2 = jwtUtil.generateToken(testUsername);
+
+        // When
+        String id1 = jwtUtil.getTokenId(jwtUtil.getClaimsFromToken(token1), token1);
+        String id2 = jwtUtil.getTokenId(jwtUtil.getClaimsFromToken(token2), token2);
+
+        // Then
+        assertThat(id1).isNotBlank();
+        assertThat(id1).isEqualTo(jwtUtil.getClaimsFromToken(token1).getId());
+        assertThat(id1).isNotEqualTo(id2);
+    }
 }
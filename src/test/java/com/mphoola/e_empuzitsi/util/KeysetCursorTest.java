@@ -0,0 +1,47 @@
+package com.mphoola.e_empuzitsi.util;
+
+import com.mphoola.e_empuzitsi.exception.ValidationException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Unit tests for KeysetCursor token encoding
+ */
+public class KeysetCursorTest {
+
+    @Test
+    public void encode_and_decode_should_round_trip() {
+        KeysetCursor cursor = new KeysetCursor(LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_793_000), 42L);
+
+        String token = cursor.encode();
+
+        assertThat(token).doesNotContain("|", "=", "+", "/");
+        assertThat(KeysetCursor.decode(token, KeysetCursor.FIRST_ASCENDING)).isEqualTo(cursor);
+    }
+
+    @Test
+    public void id_only_cursor_should_decode_with_the_first_position_sort_key() {
+        String token = new KeysetCursor(null, 42L).encode();
+
+        assertThat(KeysetCursor.decode(token, KeysetCursor.FIRST_ASCENDING))
+                .isEqualTo(new KeysetCursor(KeysetCursor.FIRST_ASCENDING.createdAt(), 42L));
+    }
+
+    @Test
+    public void missing_token_should_decode_to_the_first_position() {
+        assertThat(KeysetCursor.decode(null, KeysetCursor.FIRST_DESCENDING)).isEqualTo(KeysetCursor.FIRST_DESCENDING);
+        assertThat(KeysetCursor.decode("", KeysetCursor.FIRST_ASCENDING)).isEqualTo(KeysetCursor.FIRST_ASCENDING);
+    }
+
+    @Test
+    public void tampered_token_should_be_rejected() {
+        assertThatThrownBy(() -> KeysetCursor.decode("not a cursor!", KeysetCursor.FIRST_ASCENDING))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> KeysetCursor.decode("bm8tc2VwYXJhdG9y", KeysetCursor.FIRST_ASCENDING))
+                .isInstanceOf(ValidationException.class);
+    }
+}